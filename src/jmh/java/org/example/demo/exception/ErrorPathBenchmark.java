@@ -0,0 +1,90 @@
+package org.example.demo.exception;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.annotation.ExceptionHandlerMethodResolver;
+
+/**
+ * Cost of raising and classifying a stock conflict: the former untyped {@code RuntimeException}
+ * matched by message against the typed exception resolved by {@link GlobalExceptionHandler}.
+ * {@code depth} simulates how deep in the reactive call stack the error is created. Run with
+ * {@code -prof gc} to compare allocation too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+  @Param({"20", "100"})
+  private int depth;
+
+  private List<Long> rejectedIds;
+  private ExceptionHandlerMethodResolver resolver;
+
+  @Setup
+  public void setUp() {
+    rejectedIds = List.of(17L, 42L);
+    resolver = new ExceptionHandlerMethodResolver(GlobalExceptionHandler.class);
+  }
+
+  @Benchmark
+  public HttpStatus untypedWithMessageMatching() {
+    return legacyStatus(raiseUntyped(depth));
+  }
+
+  @Benchmark
+  public Method typedWithoutStackTrace() {
+    return resolver.resolveMethod(raiseTyped(depth));
+  }
+
+  private RuntimeException raiseUntyped(int frames) {
+    if (frames > 0) {
+      return raiseUntyped(frames - 1);
+    }
+    return new RuntimeException(
+        "Concurrency conflict: could not reserve requested quantity for product IDs: "
+            + rejectedIds);
+  }
+
+  private RuntimeException raiseTyped(int frames) {
+    if (frames > 0) {
+      return raiseTyped(frames - 1);
+    }
+    return new ConcurrencyConflictException(
+        "Concurrency conflict: could not reserve requested quantity for product IDs: "
+            + rejectedIds);
+  }
+
+  /** Classification done by the handler before exceptions were typed. */
+  private static HttpStatus legacyStatus(RuntimeException ex) {
+    String message = ex.getMessage();
+    if (message.toLowerCase().contains("not found")) {
+      return HttpStatus.NOT_FOUND;
+    } else if (message.toLowerCase().contains("stock")
+        || message.toLowerCase().contains("no items")) {
+      return HttpStatus.BAD_REQUEST;
+    } else if (message.toLowerCase().contains("concurrency conflict")
+        || message.toLowerCase().contains("conflicto de concurrencia")) {
+      return HttpStatus.CONFLICT;
+    }
+    return HttpStatus.INTERNAL_SERVER_ERROR;
+  }
+}
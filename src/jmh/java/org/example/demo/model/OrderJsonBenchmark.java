@@ -0,0 +1,80 @@
+package org.example.demo.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import org.example.demo.model.entity.Order;
+import org.example.demo.model.entity.OrderItem;
+import org.example.demo.model.request.CreateOrderRequest;
+import org.example.demo.model.request.OrderItemRequest;
+import org.example.demo.model.response.OrderWithItemsResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** JSON (de)serialization of the order payloads, with the modules Spring Boot registers. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderJsonBenchmark {
+
+  @Param({"10", "100", "500"})
+  private int lines;
+
+  private ObjectMapper objectMapper;
+  private Order order;
+  private OrderWithItemsResponse orderWithItems;
+  private byte[] createOrderRequestJson;
+
+  @Setup
+  public void setUp() throws Exception {
+    objectMapper = JsonMapper.builder().findAndAddModules().build();
+    order = Order.builder().id(1L).date(LocalDateTime.now()).totalGross(new BigDecimal("1234.50"))
+        .totalFinal(new BigDecimal("1111.05")).state("CONFIRMADO").build();
+
+    List<OrderItem> items = new ArrayList<>(lines);
+    List<OrderItemRequest> itemRequests = new ArrayList<>(lines);
+    for (int i = 0; i < lines; i++) {
+      items.add(OrderItem.builder().id((long) i).ordersId(1L).productId((long) i + 1)
+          .quantity(1 + i % 7).unitPrice(BigDecimal.valueOf(1_999 + i, 2)).build());
+      itemRequests.add(OrderItemRequest.builder().productId((long) i + 1).quantity(1 + i % 7)
+          .build());
+    }
+    orderWithItems = OrderWithItemsResponse.of(order, items);
+    createOrderRequestJson = objectMapper
+        .writeValueAsBytes(CreateOrderRequest.builder().items(itemRequests).build());
+  }
+
+  @Benchmark
+  public byte[] serializeOrder() throws Exception {
+    return objectMapper.writeValueAsBytes(order);
+  }
+
+  @Benchmark
+  public byte[] serializeOrderWithItems() throws Exception {
+    return objectMapper.writeValueAsBytes(orderWithItems);
+  }
+
+  @Benchmark
+  public CreateOrderRequest deserializeCreateOrderRequest() throws Exception {
+    return objectMapper.readValue(createOrderRequestJson, CreateOrderRequest.class);
+  }
+}
@@ -0,0 +1,118 @@
+package org.example.demo.repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.example.demo.SpringBootApplication;
+import org.example.demo.model.entity.OrderItem;
+import org.example.demo.model.request.CreateOrderRequest;
+import org.example.demo.model.request.CreateProductRequest;
+import org.example.demo.model.request.OrderItemRequest;
+import org.example.demo.repository.shard.OrderShard;
+import org.example.demo.repository.shard.OrderShards;
+import org.example.demo.service.OrderService;
+import org.example.demo.service.ProductService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Writing the lines of one order: the multi-row {@link OrderItemRepositoryCustom#insertAll} used
+ * by createOrder against {@code saveAll}, which sends one INSERT per line and reads back each key.
+ * Both run in a transaction that is rolled back, so ORDERS_ITEM does not grow between invocations
+ * and each one pays the same begin/rollback.
+ *
+ * <p>The default {@code profile=h2} has no network, so it shows statement and bind overhead only;
+ * the gap widens with the round trip to a real server ({@code -p profile=default} with
+ * HOST/JDBC_HOST/USER/PWD set), where saveAll pays one per line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class OrderItemInsertBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int lines;
+
+  @Param({"h2"})
+  private String profile;
+
+  private ConfigurableApplicationContext context;
+  private OrderShard shard;
+  private List<OrderItem> items;
+
+  @Setup
+  public void setUp() {
+    context = new SpringApplicationBuilder(SpringBootApplication.class)
+        .web(WebApplicationType.NONE).profiles(profile)
+        .properties("order.async-confirm.workers-enabled=false",
+            "logging.level.org.example.demo=WARN")
+        .run();
+    long productId = context.getBean(ProductService.class).createProduct(CreateProductRequest
+            .builder().name("Benchmark product").price(BigDecimal.TEN).stock(1_000).build())
+        .block().getId();
+    long orderId = context.getBean(OrderService.class).createOrder(CreateOrderRequest.builder()
+            .items(List.of(OrderItemRequest.builder().productId(productId).quantity(1).build()))
+            .build())
+        .block().getId();
+    shard = context.getBean(OrderShards.class).forOrder(orderId);
+
+    items = new ArrayList<>(lines);
+    for (int i = 0; i < lines; i++) {
+      items.add(OrderItem.builder().ordersId(orderId).productId(productId).quantity(1 + i % 7)
+          .unitPrice(BigDecimal.valueOf(1_999 + i, 2)).build());
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  /** What createOrder does: the lines in one multi-row INSERT (per 1000 rows). */
+  @Benchmark
+  public Long multiRowInsert() {
+    return rolledBack(shard.items().insertAll(items));
+  }
+
+  /** The previous path: one INSERT and one generated key per line. */
+  @Benchmark
+  public Long saveAll() {
+    // saveAll asigna el id generado a cada entidad: se insertan copias sin id
+    List<OrderItem> copies = items.stream()
+        .map(item -> OrderItem.builder().ordersId(item.getOrdersId())
+            .productId(item.getProductId()).quantity(item.getQuantity())
+            .unitPrice(item.getUnitPrice()).build())
+        .toList();
+    return rolledBack(shard.items().saveAll(copies).count());
+  }
+
+  private Long rolledBack(Mono<Long> insert) {
+    return shard.transactionalOperator().execute(status -> {
+      status.setRollbackOnly();
+      return insert;
+    }).single().subscribeOn(Schedulers.parallel()).block();
+  }
+}
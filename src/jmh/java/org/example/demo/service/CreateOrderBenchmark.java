@@ -0,0 +1,145 @@
+package org.example.demo.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.example.demo.SpringBootApplication;
+import org.example.demo.model.entity.Order;
+import org.example.demo.model.entity.OrderItem;
+import org.example.demo.model.entity.Product;
+import org.example.demo.model.request.CreateOrderRequest;
+import org.example.demo.model.request.CreateProductRequest;
+import org.example.demo.model.request.OrderItemRequest;
+import org.example.demo.repository.ProductRepository;
+import org.example.demo.repository.shard.OrderIdGenerator;
+import org.example.demo.repository.shard.OrderShard;
+import org.example.demo.repository.shard.OrderShards;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Latency of order creation: {@link OrderService#createOrder} (cached product lookup, then header,
+ * multi-row lines and outbox event in one transaction) against the steps it replaced, run the way
+ * they were before: product query, header save and one INSERT per line, each on its own pool
+ * checkout and without a transaction. Both write the same rows but the outbox event, which only the
+ * current path adds.
+ *
+ * <p>SampleTime gives the p50/p99 per variant; {@code @Threads} callers share the pool as requests
+ * do. The default {@code profile=h2} has no network round trip, so it mostly shows the extra
+ * statements and checkouts; use {@code -p profile=default} with HOST/JDBC_HOST/USER/PWD set for
+ * MySQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(4)
+@Fork(1)
+public class CreateOrderBenchmark {
+
+  private static final int PRODUCTS = 1_000;
+
+  @Param({"2", "20"})
+  private int lines;
+
+  @Param({"h2"})
+  private String profile;
+
+  private ConfigurableApplicationContext context;
+  private OrderService orderService;
+  private ProductRepository productRepository;
+  private OrderShards orderShards;
+  private OrderIdGenerator orderIdGenerator;
+  private long[] productIds;
+
+  @Setup
+  public void setUp() {
+    context = new SpringApplicationBuilder(SpringBootApplication.class)
+        .web(WebApplicationType.NONE).profiles(profile)
+        .properties("order.async-confirm.workers-enabled=false",
+            "logging.level.org.example.demo=WARN")
+        .run();
+    orderService = context.getBean(OrderService.class);
+    productRepository = context.getBean(ProductRepository.class);
+    orderShards = context.getBean(OrderShards.class);
+    orderIdGenerator = context.getBean(OrderIdGenerator.class);
+    ProductService productService = context.getBean(ProductService.class);
+
+    productIds = new long[PRODUCTS];
+    for (int i = 0; i < PRODUCTS; i++) {
+      productIds[i] = productService.createProduct(CreateProductRequest.builder()
+          .name("Benchmark product " + i).price(BigDecimal.valueOf(1_000 + i, 2))
+          .stock(1_000_000).build()).block().getId();
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  /** The current path: one transaction on one connection. */
+  @Benchmark
+  public Order transactional() {
+    return call(orderService.createOrder(randomOrder()));
+  }
+
+  /** The previous path: every step auto-committed on its own checkout. */
+  @Benchmark
+  public Order separateSteps() {
+    CreateOrderRequest request = randomOrder();
+    List<Long> ids = request.getItems().stream().map(OrderItemRequest::getProductId)
+        .distinct().collect(Collectors.toList());
+    Order order = Order.builder().id(orderIdGenerator.next()).date(LocalDateTime.now())
+        .state("PENDIENTE").build();
+    OrderShard shard = orderShards.forOrder(order.getId());
+    return call(productRepository.findByIdIn(ids).collectMap(Product::getId)
+        .flatMap(products -> shard.entityOperations().insert(order).flatMap(saved ->
+            shard.items().saveAll(request.getItems().stream()
+                    .map(item -> OrderItem.builder().ordersId(saved.getId())
+                        .productId(item.getProductId()).quantity(item.getQuantity())
+                        .unitPrice(products.get(item.getProductId()).getPrice()).build())
+                    .collect(Collectors.toList()))
+                .then(Mono.just(saved)))));
+  }
+
+  private static <T> T call(Mono<T> operation) {
+    return operation.subscribeOn(Schedulers.parallel()).block();
+  }
+
+  private CreateOrderRequest randomOrder() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int first = random.nextInt(PRODUCTS - lines);
+    List<OrderItemRequest> items = new ArrayList<>(lines);
+    for (int i = 0; i < lines; i++) {
+      items.add(OrderItemRequest.builder().productId(productIds[first + i])
+          .quantity(1 + random.nextInt(3)).build());
+    }
+    return CreateOrderRequest.builder().items(items).build();
+  }
+}
@@ -0,0 +1,113 @@
+package org.example.demo.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.example.demo.SpringBootApplication;
+import org.example.demo.model.entity.Order;
+import org.example.demo.model.request.CreateOrderRequest;
+import org.example.demo.model.request.CreateProductRequest;
+import org.example.demo.model.request.OrderItemRequest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Cost of the metrics on the order write path: the same create-and-confirm load with every meter
+ * registered as configured ({@code metrics=on}: stage timers with histograms, counters, r2dbc pool
+ * gauges) and with all meters denied ({@code metrics=off}, {@code management.metrics.enable.all=
+ * false}), which turns each record into a no-op. The difference between both latency
+ * distributions is the instrumentation overhead; HTTP server timers are not included, as the
+ * context runs without a web server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(4)
+@Fork(1)
+public class InstrumentationOverheadBenchmark {
+
+  private static final int PRODUCTS = 1_000;
+
+  @Param({"on", "off"})
+  private String metrics;
+
+  @Param({"h2"})
+  private String profile;
+
+  private ConfigurableApplicationContext context;
+  private OrderService orderService;
+  private long[] productIds;
+
+  @Setup
+  public void setUp() {
+    context = new SpringApplicationBuilder(SpringBootApplication.class)
+        .web(WebApplicationType.NONE).profiles(profile)
+        .properties("order.async-confirm.workers-enabled=false",
+            "management.metrics.enable.all=" + "on".equals(metrics),
+            "logging.level.org.example.demo=WARN")
+        .run();
+    orderService = context.getBean(OrderService.class);
+    ProductService productService = context.getBean(ProductService.class);
+
+    productIds = new long[PRODUCTS];
+    for (int i = 0; i < PRODUCTS; i++) {
+      productIds[i] = productService.createProduct(CreateProductRequest.builder()
+          .name("Benchmark product " + i).price(BigDecimal.valueOf(1_000 + i, 2))
+          .stock(1_000_000_000).build()).block().getId();
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    // Comprobación de que el parámetro surtió efecto: sin medidores con metrics=off
+    long stageTimers = context.getBean(MeterRegistry.class).find("orders.stage").timers().stream()
+        .filter(timer -> timer.count() > 0).count();
+    if ("on".equals(metrics) != stageTimers > 0) {
+      throw new IllegalStateException("metrics=" + metrics + " but " + stageTimers
+          + " stage timers recorded");
+    }
+    context.close();
+  }
+
+  /** Create an order and confirm it, as in PersistenceModeBenchmark. */
+  @Benchmark
+  public Order createAndConfirm() {
+    return orderService.createOrder(randomOrder())
+        .flatMap(order -> orderService.confirmOrder(order.getId()))
+        .subscribeOn(Schedulers.parallel()).block();
+  }
+
+  private CreateOrderRequest randomOrder() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return CreateOrderRequest.builder().items(List.of(
+        OrderItemRequest.builder().productId(productIds[random.nextInt(PRODUCTS)])
+            .quantity(1 + random.nextInt(3)).build(),
+        OrderItemRequest.builder().productId(productIds[random.nextInt(PRODUCTS)])
+            .quantity(1 + random.nextInt(3)).build()))
+        .build();
+  }
+}
@@ -0,0 +1,142 @@
+package org.example.demo.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.example.demo.SpringBootApplication;
+import org.example.demo.model.entity.Order;
+import org.example.demo.model.request.CreateOrderRequest;
+import org.example.demo.model.request.CreateProductRequest;
+import org.example.demo.model.request.OrderItemRequest;
+import org.example.demo.model.response.OrderWithItemsResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Same load against both persistence modes: the application context is started with
+ * {@code persistence.mode} set to each value and {@code @Threads} concurrent callers drive the
+ * {@link OrderService} it wires. Throughput and the latency distribution come from the two modes
+ * below; run with {@code -prof gc} for allocation per operation, e.g.
+ * {@code mvn -Pjmh verify -Djmh.args="PersistenceModeBenchmark -prof gc"}.
+ *
+ * <p>Calls are subscribed on the parallel scheduler, as requests start on event-loop threads in
+ * the application; JMH threads only wait for the result. Otherwise, with a synchronous driver such
+ * as r2dbc-h2, the JMH thread releasing a pooled connection would go on to run the next waiter's
+ * pipeline and might not return from its own invocation.
+ *
+ * <p>The default {@code profile=h2} runs on the embedded database, which shows the cost of each
+ * stack rather than of MySQL; pass {@code -p profile=default} with HOST/JDBC_HOST/USER/PWD set to
+ * measure against a real server, and raise the callers there (e.g. {@code -t 32}). On H2 keep them
+ * low: r2dbc-h2 waits for row locks on the thread that would release them, so many concurrent
+ * confirmations stall the r2dbc write path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(4)
+@Fork(1)
+public class PersistenceModeBenchmark {
+
+  private static final int PRODUCTS = 1_000;
+  private static final int SEEDED_ORDERS = 2_000;
+
+  @Param({"r2dbc", "jdbc"})
+  private String mode;
+
+  @Param({"h2"})
+  private String profile;
+
+  private ConfigurableApplicationContext context;
+  private OrderService orderService;
+  private long[] productIds;
+  private long[] orderIds;
+
+  @Setup
+  public void setUp() {
+    context = new SpringApplicationBuilder(SpringBootApplication.class)
+        .web(WebApplicationType.NONE).profiles(profile)
+        .properties("persistence.mode=" + mode, "order.async-confirm.workers-enabled=false",
+            "logging.level.org.example.demo=WARN")
+        .run();
+    orderService = context.getBean(OrderService.class);
+    ProductService productService = context.getBean(ProductService.class);
+
+    productIds = new long[PRODUCTS];
+    for (int i = 0; i < PRODUCTS; i++) {
+      productIds[i] = productService.createProduct(CreateProductRequest.builder()
+          .name("Benchmark product " + i).price(BigDecimal.valueOf(1_000 + i, 2))
+          .stock(1_000_000_000).build()).block().getId();
+    }
+    orderIds = new long[SEEDED_ORDERS];
+    for (int i = 0; i < SEEDED_ORDERS; i++) {
+      Order order = orderService.createOrder(randomOrder()).block();
+      orderIds[i] = order.getId();
+      if (i % 2 == 0) {
+        orderService.confirmOrder(order.getId()).block();
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  /** Write path: create an order and confirm it (stock reservation, outbox, summaries). */
+  @Benchmark
+  public Order createAndConfirm() {
+    return call(orderService.createOrder(randomOrder())
+        .flatMap(order -> orderService.confirmOrder(order.getId())));
+  }
+
+  /** Read path: one order with its lines. */
+  @Benchmark
+  public OrderWithItemsResponse readOrderWithItems() {
+    long orderId = orderIds[ThreadLocalRandom.current().nextInt(orderIds.length)];
+    return call(orderService.getOrderWithItems(orderId));
+  }
+
+  /** Listing: a page of 50 orders with their lines. */
+  @Benchmark
+  public List<OrderWithItemsResponse> readOrdersPage() {
+    long afterId = orderIds[ThreadLocalRandom.current().nextInt(orderIds.length - 50)];
+    return call(orderService.getOrdersWithItemsPage(afterId, 50).collectList());
+  }
+
+  private static <T> T call(Mono<T> operation) {
+    return operation.subscribeOn(Schedulers.parallel()).block();
+  }
+
+  private CreateOrderRequest randomOrder() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return CreateOrderRequest.builder().items(List.of(
+        OrderItemRequest.builder().productId(productIds[random.nextInt(PRODUCTS)])
+            .quantity(1 + random.nextInt(3)).build(),
+        OrderItemRequest.builder().productId(productIds[random.nextInt(PRODUCTS)])
+            .quantity(1 + random.nextInt(3)).build()))
+        .build();
+  }
+}
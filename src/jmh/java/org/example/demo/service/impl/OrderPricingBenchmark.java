@@ -0,0 +1,92 @@
+package org.example.demo.service.impl;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.example.demo.exception.BusinessException;
+import org.example.demo.model.entity.OrderItem;
+import org.example.demo.model.entity.Product;
+import org.example.demo.model.request.CreateOrderRequest;
+import org.example.demo.model.request.OrderItemRequest;
+import org.example.demo.service.pricing.AmountThresholdDiscountRule;
+import org.example.demo.service.pricing.PricingEngine;
+import org.example.demo.service.pricing.PricingResult;
+import org.example.demo.service.pricing.UniqueProductsDiscountRule;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pricing and request validation as run on every confirmOrder / createOrder. Run with
+ * {@code -prof gc} to check that pricing allocation does not grow with the number of lines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderPricingBenchmark {
+
+  @Param({"10", "100", "500"})
+  private int lines;
+
+  private List<OrderItem> items;
+  private CreateOrderRequest request;
+  private List<Long> productIds;
+  private Map<Long, Product> products;
+  private PricingEngine pricingEngine;
+
+  @Setup
+  public void setUp() {
+    // Unas pocas líneas repiten producto, como en los pedidos reales
+    int distinctProducts = Math.max(1, lines * 4 / 5);
+    items = new ArrayList<>(lines);
+    List<OrderItemRequest> itemRequests = new ArrayList<>(lines);
+    products = new HashMap<>();
+    productIds = new ArrayList<>();
+    for (int i = 0; i < lines; i++) {
+      long productId = i % distinctProducts + 1;
+      BigDecimal price = BigDecimal.valueOf(1_999 + productId * 37, 2);
+      items.add(OrderItem.builder().id((long) i).ordersId(1L).productId(productId)
+          .quantity(1 + i % 7).unitPrice(price).build());
+      itemRequests.add(OrderItemRequest.builder().productId(productId).quantity(1 + i % 7).build());
+      if (!products.containsKey(productId)) {
+        products.put(productId, Product.builder().id(productId).name("Product " + productId)
+            .price(price).stock(1_000).version(0L).build());
+        productIds.add(productId);
+      }
+    }
+    request = CreateOrderRequest.builder().items(itemRequests).build();
+    pricingEngine = new PricingEngine(
+        List.of(new AmountThresholdDiscountRule(), new UniqueProductsDiscountRule()));
+  }
+
+  @Benchmark
+  public PricingResult pricing() {
+    return pricingEngine.price(items);
+  }
+
+  @Benchmark
+  public Map<Long, Integer> quantityPerProduct() {
+    return OrderServiceImpl.quantityPerProduct(items);
+  }
+
+  @Benchmark
+  public BusinessException createOrderValidation() {
+    return OrderServiceImpl.validateAgainstProducts(request, productIds, products);
+  }
+}
@@ -0,0 +1,30 @@
+package org.example.demo.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+
+/** R2DBC pools for databases configured outside {@code spring.r2dbc}. */
+final class ConnectionPools {
+
+  private ConnectionPools() {
+  }
+
+  static ConnectionPool create(String url, String username, String password,
+      R2dbcProperties.Pool pool) {
+    ConnectionFactory connectionFactory = ConnectionFactoryBuilder.withUrl(url)
+        .username(username).password(password).build();
+    ConnectionPoolConfiguration.Builder configuration =
+        ConnectionPoolConfiguration.builder(connectionFactory)
+            .initialSize(pool.getInitialSize())
+            .maxSize(pool.getMaxSize())
+            .maxIdleTime(pool.getMaxIdleTime());
+    if (pool.getMaxAcquireTime() != null) {
+      configuration.maxAcquireTime(pool.getMaxAcquireTime());
+    }
+    return new ConnectionPool(configuration.build());
+  }
+}
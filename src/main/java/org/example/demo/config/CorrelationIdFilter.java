@@ -0,0 +1,56 @@
+package org.example.demo.config;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+import io.micrometer.context.ContextRegistry;
+
+import org.slf4j.MDC;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Puts a correlation id in the Reactor {@link Context} of every request, taken from the
+ * {@value #HEADER} header or generated. With automatic context propagation enabled, Reactor
+ * restores it into the logging MDC on whatever thread an operator runs.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter implements WebFilter {
+
+  public static final String HEADER = "X-Correlation-Id";
+  public static final String CONTEXT_KEY = "correlationId";
+
+  private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+  public CorrelationIdFilter() {
+    ContextRegistry.getInstance().registerThreadLocalAccessor(CONTEXT_KEY,
+        () -> MDC.get(CONTEXT_KEY), value -> MDC.put(CONTEXT_KEY, value),
+        () -> MDC.remove(CONTEXT_KEY));
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    String requested = exchange.getRequest().getHeaders().getFirst(HEADER);
+    // Solo se acepta un id corto y sin caracteres especiales para no ensuciar los logs
+    String correlationId = requested != null && VALID_ID.matcher(requested).matches()
+        ? requested : newCorrelationId();
+    exchange.getResponse().getHeaders().set(HEADER, correlationId);
+    return chain.filter(exchange).contextWrite(Context.of(CONTEXT_KEY, correlationId));
+  }
+
+  // Sin SecureRandom: UUID.randomUUID() puede leer /dev/urandom en el event loop
+  private static String newCorrelationId() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return new UUID(random.nextLong(), random.nextLong()).toString();
+  }
+}
@@ -0,0 +1,60 @@
+package org.example.demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.example.demo.repository.shard.OrderShardingProperties;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Blocking JDBC persistence, enabled with {@code persistence.mode=jdbc}. Order and product
+ * services then run on a Hikari pool; the ledger, outbox relay, idempotency keys and the async
+ * confirmation queue keep using the R2DBC pool. Spring Boot adds the JdbcTemplate and the
+ * {@code hikaricp.*} metrics on top of this DataSource, but not a JDBC transaction manager while
+ * the R2DBC one exists, so it is declared here.
+ */
+@Configuration
+@ConditionalOnProperty(name = "persistence.mode", havingValue = "jdbc")
+public class JdbcPersistenceConfig {
+
+  /** Tasks waiting for a JDBC thread before new calls are rejected. */
+  private static final int QUEUED_TASK_CAP = 100_000;
+
+  public JdbcPersistenceConfig(OrderShardingProperties orderShardingProperties) {
+    // Los repositorios JDBC solo conocen la base principal
+    if (!orderShardingProperties.getAdditionalShards().isEmpty()) {
+      throw new IllegalStateException(
+          "order.sharding.additional-shards requires persistence.mode=r2dbc");
+    }
+  }
+
+  @Bean
+  @ConfigurationProperties(prefix = "persistence.jdbc")
+  public HikariDataSource jdbcDataSource() {
+    return new HikariDataSource();
+  }
+
+  @Bean
+  public TransactionTemplate jdbcTransactionTemplate(HikariDataSource jdbcDataSource) {
+    return new TransactionTemplate(new JdbcTransactionManager(jdbcDataSource));
+  }
+
+  /**
+   * Threads the blocking calls run on, one per pooled connection: a JDBC call holds its connection
+   * for as long as it runs, so extra threads would only queue inside Hikari. This is the bean to
+   * replace with a virtual-thread executor once the project moves to Java 21.
+   */
+  @Bean(destroyMethod = "dispose")
+  public Scheduler jdbcScheduler(HikariDataSource jdbcDataSource) {
+    return Schedulers.newBoundedElastic(jdbcDataSource.getMaximumPoolSize(), QUEUED_TASK_CAP,
+        "jdbc");
+  }
+}
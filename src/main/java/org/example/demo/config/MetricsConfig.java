@@ -0,0 +1,32 @@
+package org.example.demo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.ConnectionFactory;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+  /** Wraps the pooled ConnectionFactory to publish {@code r2dbc.pool.acquire}. */
+  @Bean
+  static BeanPostProcessor connectionFactoryAcquireTimer(ObjectProvider<MeterRegistry> registry) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof ConnectionFactory connectionFactory)) {
+          return bean;
+        }
+        Timer acquireTimer = Timer.builder("r2dbc.pool.acquire")
+            .description("Time waited to acquire a connection from the pool")
+            .tag("name", beanName).publishPercentileHistogram()
+            .register(registry.getObject());
+        return new TimedConnectionFactory(connectionFactory, acquireTimer);
+      }
+    };
+  }
+}
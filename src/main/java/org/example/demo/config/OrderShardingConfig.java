@@ -0,0 +1,82 @@
+package org.example.demo.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.r2dbc.pool.ConnectionPool;
+
+import org.example.demo.repository.OrderItemRepository;
+import org.example.demo.repository.OrderItemRepositoryCustomImpl;
+import org.example.demo.repository.OrderRepository;
+import org.example.demo.repository.OrderRepositoryCustomImpl;
+import org.example.demo.repository.shard.OrderIdGenerator;
+import org.example.demo.repository.shard.OrderShard;
+import org.example.demo.repository.shard.OrderShardingProperties;
+import org.example.demo.repository.shard.OrderShards;
+
+import org.flywaydb.core.Flyway;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.dialect.DialectResolver;
+import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactory;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import reactor.core.Disposable;
+
+/**
+ * Order shards: the main database plus {@code order.sharding.additional-shards}. Each additional
+ * shard gets its own pool, is migrated with the orders-only scripts in {@value #SHARD_MIGRATIONS}
+ * at startup and gets its own order repositories and transaction manager.
+ */
+@Configuration
+public class OrderShardingConfig {
+
+  private static final String SHARD_MIGRATIONS = "classpath:db/shard";
+
+  @Bean(destroyMethod = "dispose")
+  public OrderShards orderShards(OrderShardingProperties properties,
+      R2dbcEntityTemplate r2dbcEntityTemplate, TransactionalOperator transactionalOperator) {
+    List<OrderShard> shards = new ArrayList<>();
+    List<Disposable> connectionPools = new ArrayList<>();
+    shards.add(shard(0, r2dbcEntityTemplate, transactionalOperator));
+    for (OrderShardingProperties.Shard shard : properties.getAdditionalShards()) {
+      Flyway.configure().dataSource(shard.getJdbcUrl(), shard.getUsername(), shard.getPassword())
+          .locations(SHARD_MIGRATIONS).load().migrate();
+      ConnectionPool pool = ConnectionPools.create(shard.getUrl(), shard.getUsername(),
+          shard.getPassword(), shard.getPool());
+      connectionPools.add(pool);
+      R2dbcEntityTemplate template = new R2dbcEntityTemplate(DatabaseClient.create(pool),
+          DialectResolver.getDialect(pool), r2dbcEntityTemplate.getConverter());
+      shards.add(shard(shards.size(), template,
+          TransactionalOperator.create(new R2dbcTransactionManager(pool))));
+    }
+    return new OrderShards(List.copyOf(shards), transactionalOperator, connectionPools);
+  }
+
+  @Bean
+  public OrderIdGenerator orderIdGenerator(OrderShardingProperties properties,
+      OrderShards orderShards) {
+    // Sin valor por defecto: dos instancias con el mismo nodo generarían los mismos ids
+    if (properties.getNodeId() == null) {
+      throw new IllegalStateException("order.sharding.node-id is not set: give every running "
+          + "instance its own value between 0 and " + (OrderIdGenerator.MAX_NODES - 1));
+    }
+    return new OrderIdGenerator(orderShards.count(), properties.getNodeId());
+  }
+
+  private static OrderShard shard(int index, R2dbcEntityTemplate template,
+      TransactionalOperator transactionalOperator) {
+    R2dbcRepositoryFactory factory = new R2dbcRepositoryFactory(template);
+    DatabaseClient databaseClient = template.getDatabaseClient();
+    return new OrderShard(index, template,
+        factory.getRepository(OrderRepository.class,
+            new OrderRepositoryCustomImpl(databaseClient)),
+        factory.getRepository(OrderItemRepository.class,
+            new OrderItemRepositoryCustomImpl(databaseClient)),
+        transactionalOperator);
+  }
+}
@@ -0,0 +1,28 @@
+package org.example.demo.config;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Marks a query as a read that tolerates replication lag:
+ * {@code .contextWrite(ReadReplica.ROUTE)}. With {@code persistence.read-replica.enabled} the
+ * connection for it then comes from the replica pool; otherwise the mark has no effect.
+ *
+ * <p>Only the connection a query opens is routed. A query that runs inside a transaction uses the
+ * transaction's connection on the primary whatever the mark says, so checks that decide a write
+ * (order state, stock) are never read from the replica. A caller that has just written may not
+ * see its own write on a marked read until the replica catches up.
+ */
+public final class ReadReplica {
+
+  public static final String CONTEXT_KEY = "readReplica";
+
+  public static final ContextView ROUTE = Context.of(CONTEXT_KEY, Boolean.TRUE);
+
+  private ReadReplica() {
+  }
+
+  static boolean isRouted(ContextView context) {
+    return context.getOrDefault(CONTEXT_KEY, Boolean.FALSE);
+  }
+}
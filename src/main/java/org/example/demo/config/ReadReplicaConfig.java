@@ -0,0 +1,55 @@
+package org.example.demo.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactory;
+
+import org.flywaydb.core.Flyway;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayProperties;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.StringUtils;
+
+/**
+ * Two R2DBC pools, enabled with {@code persistence.read-replica.enabled=true}: the primary one,
+ * configured as usual under {@code spring.r2dbc}, and one on the read replica. The routing
+ * {@code connectionFactory} in front of them is the one repositories and the transaction manager
+ * use, so only reads marked with {@link ReadReplica#ROUTE} leave the primary. Both pools are beans
+ * of their own: acquire time and pool gauges are published per pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "persistence.read-replica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+  @Bean(destroyMethod = "dispose")
+  public ConnectionPool primaryConnectionFactory(R2dbcProperties properties) {
+    return ConnectionPools.create(properties.getUrl(), properties.getUsername(),
+        properties.getPassword(), properties.getPool());
+  }
+
+  @Bean(destroyMethod = "dispose")
+  public ConnectionPool replicaConnectionFactory(ReadReplicaProperties properties,
+      FlywayProperties flywayProperties) {
+    if (StringUtils.hasText(properties.getMigrateJdbcUrl())) {
+      Flyway.configure()
+          .dataSource(properties.getMigrateJdbcUrl(), properties.getUsername(),
+              properties.getPassword())
+          .locations(flywayProperties.getLocations().toArray(String[]::new))
+          .load().migrate();
+    }
+    return ConnectionPools.create(properties.getUrl(), properties.getUsername(),
+        properties.getPassword(), properties.getPool());
+  }
+
+  @Bean
+  @Primary
+  public ConnectionFactory connectionFactory(
+      @Qualifier("primaryConnectionFactory") ConnectionFactory primary,
+      @Qualifier("replicaConnectionFactory") ConnectionFactory replica) {
+    return new ReadWriteRoutingConnectionFactory(primary, replica);
+  }
+}
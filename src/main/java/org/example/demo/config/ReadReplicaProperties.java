@@ -0,0 +1,30 @@
+package org.example.demo.config;
+
+import lombok.Data;
+
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "persistence.read-replica")
+public class ReadReplicaProperties {
+  /** Serves reads marked with {@link ReadReplica#ROUTE} from the replica pool. */
+  private boolean enabled = false;
+
+  private String url;
+
+  private String username;
+
+  private String password;
+
+  /** Sized apart from {@code spring.r2dbc.pool}, which keeps serving writes and transactions. */
+  private final R2dbcProperties.Pool pool = new R2dbcProperties.Pool();
+
+  /**
+   * JDBC URL to apply the Flyway migrations to at startup. Only for a local embedded replica: a
+   * real replica receives the schema through replication.
+   */
+  private String migrateJdbcUrl;
+}
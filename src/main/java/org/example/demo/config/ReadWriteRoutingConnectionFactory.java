@@ -0,0 +1,31 @@
+package org.example.demo.config;
+
+import java.util.Map;
+
+import io.r2dbc.spi.ConnectionFactory;
+
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Hands out replica connections to subscribers marked with {@link ReadReplica#ROUTE} and primary
+ * connections to everything else, so unmarked code (transactions, the ledger, the outbox relay,
+ * queue workers) keeps writing to the primary.
+ */
+class ReadWriteRoutingConnectionFactory extends AbstractRoutingConnectionFactory {
+
+  static final String PRIMARY = "primary";
+  static final String REPLICA = "replica";
+
+  ReadWriteRoutingConnectionFactory(ConnectionFactory primary, ConnectionFactory replica) {
+    setTargetConnectionFactories(Map.of(PRIMARY, primary, REPLICA, replica));
+    setDefaultTargetConnectionFactory(primary);
+  }
+
+  @Override
+  protected Mono<Object> determineCurrentLookupKey() {
+    return Mono.deferContextual(context ->
+        Mono.just(ReadReplica.isRouted(context) ? REPLICA : PRIMARY));
+  }
+}
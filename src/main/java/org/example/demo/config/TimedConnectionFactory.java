@@ -0,0 +1,61 @@
+package org.example.demo.config;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+
+import lombok.RequiredArgsConstructor;
+
+import org.reactivestreams.Publisher;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Records how long callers wait for {@link #create()}, i.e. the pool acquire time including the
+ * time spent queued behind other acquirers. Implements {@link Wrapped} so the pool gauges Spring
+ * Boot registers still find the underlying pool, and {@link Disposable} so the pool's
+ * {@code dispose} destroy method still reaches it on shutdown.
+ */
+@RequiredArgsConstructor
+class TimedConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, Disposable {
+
+  private final ConnectionFactory delegate;
+  private final Timer acquireTimer;
+
+  @Override
+  public Publisher<? extends Connection> create() {
+    return Mono.defer(() -> {
+      long start = System.nanoTime();
+      return Mono.from(delegate.create())
+          .doOnNext(connection -> acquireTimer.record(System.nanoTime() - start,
+              TimeUnit.NANOSECONDS));
+    });
+  }
+
+  @Override
+  public ConnectionFactoryMetadata getMetadata() {
+    return delegate.getMetadata();
+  }
+
+  @Override
+  public ConnectionFactory unwrap() {
+    return delegate;
+  }
+
+  @Override
+  public void dispose() {
+    if (delegate instanceof Disposable disposable) {
+      disposable.dispose();
+    }
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return delegate instanceof Disposable disposable && disposable.isDisposed();
+  }
+}
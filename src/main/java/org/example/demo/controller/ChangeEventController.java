@@ -0,0 +1,55 @@
+package org.example.demo.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.model.entity.OutboxEvent;
+import org.example.demo.service.outbox.OutboxRelay;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/api/v1/events")
+@RequiredArgsConstructor
+@Tag(name = "Change Event API", description = "Stream of order and stock changes")
+public class ChangeEventController {
+
+  private final OutboxRelay outboxRelay;
+
+  @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @Operation(summary = "Follow order and stock changes as server-sent events",
+          description = "Streams every change committed after the given offset and keeps the connection open for new ones. Each event id is its stream offset, so a reconnecting EventSource resumes through Last-Event-ID. Delivery is at-least-once; consumers deduplicate by offset.", responses = {
+      @ApiResponse(responseCode = "200", description = "Stream of change events",
+              content = @Content(mediaType = "text/event-stream", schema = @Schema(implementation = OutboxEvent.class))) })
+  public Flux<ServerSentEvent<OutboxEvent>> streamEvents(
+      @Parameter(description = "Return events with a stream offset greater than this") @RequestParam(defaultValue = "0") long after,
+      @Parameter(description = "Offset of the last event received; takes precedence over 'after'") @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+    return outboxRelay.events(lastEventId != null ? lastEventId : after)
+        .map(event -> ServerSentEvent.builder(event).id(String.valueOf(event.getStreamOffset()))
+            .event(event.getEventType()).build());
+  }
+
+  @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @Operation(summary = "Follow order and stock changes as newline-delimited JSON",
+          description = "Same stream as the server-sent events variant; resume by passing the streamOffset of the last event processed as 'after'.", responses = {
+      @ApiResponse(responseCode = "200", description = "Stream of change events",
+              content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = OutboxEvent.class))) })
+  public Flux<OutboxEvent> streamEventsNdjson(
+      @Parameter(description = "Return events with a stream offset greater than this") @RequestParam(defaultValue = "0") long after) {
+    return outboxRelay.events(after);
+  }
+}
@@ -0,0 +1,105 @@
+package org.example.demo.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.model.entity.Product;
+import org.example.demo.model.response.DailySales;
+import org.example.demo.model.response.ProductSales;
+import org.example.demo.model.response.StockBucket;
+import org.example.demo.service.aggregate.SalesAggregates;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/v1/dashboard")
+@RequiredArgsConstructor
+@Tag(name = "Dashboard API", description = "Sales and inventory summaries")
+public class DashboardController {
+
+  static final int MAX_RANGE_DAYS = 366;
+  static final int DEFAULT_LIMIT = 10;
+  static final int MAX_LIMIT = 1000;
+
+  private final SalesAggregates salesAggregates;
+
+  @GetMapping("/sales/daily")
+  @Operation(summary = "Confirmed sales per day",
+          description = "Orders confirmed and their gross and final totals for each day in [from, to], by order date. Days without sales are omitted. Read from summaries maintained at confirmation time.", responses = {
+      @ApiResponse(responseCode = "200", description = "Daily totals in date order",
+              content = @Content(mediaType = "application/json", schema = @Schema(implementation = DailySales.class))),
+      @ApiResponse(responseCode = "400", description = "Invalid date range",
+              content = @Content(mediaType = "application/problem+json",
+                      schema = @Schema(implementation = ProblemDetail.class))) })
+  public Flux<DailySales> getDailySales(
+      @Parameter(description = "First day, ISO date") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+      @Parameter(description = "Last day, ISO date (inclusive)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+    if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+      return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "'from' must not be after 'to' and the range must not exceed " + MAX_RANGE_DAYS + " days"));
+    }
+    return salesAggregates.getDailySales(from, to);
+  }
+
+  @GetMapping("/products/top")
+  @Operation(summary = "Best-selling products",
+          description = "Products with the most units sold in confirmed orders.", responses = {
+      @ApiResponse(responseCode = "200", description = "Products by units sold, descending",
+              content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductSales.class))) })
+  public Flux<ProductSales> getTopProducts(
+      @Parameter(description = "Maximum number of products to return (1-" + MAX_LIMIT + ")") @RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit) {
+    return salesAggregates.getTopProducts(clamp(limit));
+  }
+
+  @GetMapping("/products/{id}/sales")
+  @Operation(summary = "Sales of one product", responses = {
+      @ApiResponse(responseCode = "200", description = "Units sold and their value; zero if never sold",
+              content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductSales.class))) })
+  public Mono<ProductSales> getProductSales(@PathVariable Long id) {
+    return salesAggregates.getProductSales(id);
+  }
+
+  @GetMapping("/inventory/low-stock")
+  @Operation(summary = "Products running out of stock",
+          description = "Products with stock at or below the threshold, lowest stock first.", responses = {
+      @ApiResponse(responseCode = "200", description = "Products by stock, ascending",
+              content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))) })
+  public Flux<Product> getLowStock(
+      @Parameter(description = "Highest stock to include") @RequestParam(defaultValue = "" + DEFAULT_LIMIT) int threshold,
+      @Parameter(description = "Maximum number of products to return (1-" + MAX_LIMIT + ")") @RequestParam(defaultValue = "" + MAX_LIMIT) int limit) {
+    return salesAggregates.getLowStock(threshold, clamp(limit));
+  }
+
+  @GetMapping("/inventory/stock-buckets")
+  @Operation(summary = "Products per stock range",
+          description = "Number of products in each configured stock range (sales.aggregates.stock-bucket-bounds).", responses = {
+      @ApiResponse(responseCode = "200", description = "Stock ranges in ascending order",
+              content = @Content(mediaType = "application/json", schema = @Schema(implementation = StockBucket.class))) })
+  public Flux<StockBucket> getStockBuckets() {
+    return salesAggregates.getStockBuckets();
+  }
+
+  private static int clamp(int limit) {
+    return Math.max(1, Math.min(limit, MAX_LIMIT));
+  }
+}
@@ -7,21 +7,35 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
-import javax.validation.Valid;
+import java.net.URI;
+
+import jakarta.validation.Valid;
 
 import lombok.RequiredArgsConstructor;
 
 import org.example.demo.model.entity.Order;
+import org.example.demo.model.entity.OrderConfirmationTask;
+import org.example.demo.model.request.BulkConfirmOrdersRequest;
 import org.example.demo.model.request.CreateOrderRequest;
+import org.example.demo.model.response.OrderConfirmationResult;
+import org.example.demo.model.response.OrderWithItemsResponse;
 import org.example.demo.service.OrderService;
+import org.example.demo.service.idempotency.IdempotencyService;
+import org.example.demo.service.queue.OrderConfirmationQueue;
+import org.example.demo.service.pricing.PricingResult;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -34,57 +48,149 @@ import reactor.core.publisher.Mono;
 @Tag(name = "Order API", description = "API for order management")
 public class OrderController {
 
+  static final int DEFAULT_PAGE_SIZE = 100;
+  static final int MAX_PAGE_SIZE = 1000;
+
+  static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
   private final OrderService orderService;
+  private final IdempotencyService idempotencyService;
+  private final OrderConfirmationQueue orderConfirmationQueue;
 
   @PostMapping
   @ResponseStatus(HttpStatus.CREATED)
   @Operation(summary = "Create a new order in PENDING state",
-          description = "Creates a new order with a list of items. The order is initially in PENDING state.", responses = {
+          description = "Creates a new order with a list of items. The order is initially in PENDING state. With an Idempotency-Key, a retry returns the order created by the first request instead of creating another one.", responses = {
       @ApiResponse(responseCode = "201", description = "Order created successfully",
               content = @Content(mediaType = "application/json", schema = @Schema(implementation = Order.class))),
       @ApiResponse(responseCode = "400",
               description = "Invalid input data (e.g., product not found, insufficient stock, invalid request format)",
-              content = @Content(mediaType = "application/json",
-                      schema = @Schema(implementation = org.example.demo.exception.GlobalExceptionHandler.ErrorResponse.class))) })
-  public Mono<Order> createOrder(@Valid @RequestBody CreateOrderRequest request) {
-    return orderService.createOrder(request);
+              content = @Content(mediaType = "application/problem+json",
+                      schema = @Schema(implementation = ProblemDetail.class))),
+      @ApiResponse(responseCode = "409", description = "A request with the same Idempotency-Key is still being processed",
+              content = @Content(mediaType = "application/problem+json",
+                      schema = @Schema(implementation = ProblemDetail.class))),
+      @ApiResponse(responseCode = "422", description = "Idempotency-Key already used with a different request",
+              content = @Content(mediaType = "application/problem+json",
+                      schema = @Schema(implementation = ProblemDetail.class))) })
+  public Mono<Order> createOrder(
+      @Parameter(description = "Client-generated key; retries with the same key return the first response instead of creating another order") @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+      @Valid @RequestBody CreateOrderRequest request) {
+    return idempotencyService.execute("create-order", idempotencyKey, request, Order.class,
+        () -> orderService.createOrder(request));
+  }
+
+  @PostMapping("/preview")
+  @Operation(summary = "Preview the price of an order without creating it",
+          description = "Prices the given items with current product prices and the same discount rules used on confirmation. Nothing is persisted and no stock is reserved.", responses = {
+      @ApiResponse(responseCode = "200", description = "Price preview",
+              content = @Content(mediaType = "application/json", schema = @Schema(implementation = PricingResult.class))),
+      @ApiResponse(responseCode = "400",
+              description = "Invalid input data (e.g., product not found, insufficient stock)",
+              content = @Content(mediaType = "application/problem+json",
+                      schema = @Schema(implementation = ProblemDetail.class))) })
+  public Mono<PricingResult> previewOrder(@Valid @RequestBody CreateOrderRequest request) {
+    return orderService.previewOrder(request);
   }
 
   @PutMapping("/{id}/confirm")
   @Operation(summary = "Confirm an order, calculate total with discounts, and update stock",
-          description = "Confirms a PENDING order. This calculates the final total applying discounts and updates product stock. This operation is transactional.", responses = {
+          description = "Confirms a PENDING order. This calculates the final total applying discounts and updates product stock. This operation is transactional. With an Idempotency-Key, a retry returns the first successful response.", responses = {
       @ApiResponse(responseCode = "200", description = "Order confirmed successfully",
               content = @Content(mediaType = "application/json", schema = @Schema(implementation = Order.class))),
-      @ApiResponse(responseCode = "400", description = "Invalid operation (e.g., order not pending, order has no items, insufficient stock)", content = @Content(mediaType = "application/json", schema = @Schema(implementation = org.example.demo.exception.GlobalExceptionHandler.ErrorResponse.class))),
+      @ApiResponse(responseCode = "400", description = "Invalid operation (e.g., order not pending, order has no items, insufficient stock)", content = @Content(mediaType = "application/problem+json", schema = @Schema(implementation = ProblemDetail.class))),
       @ApiResponse(responseCode = "404", description = "Order not found",
-              content = @Content(mediaType = "application/json",
-                      schema = @Schema(implementation = org.example.demo.exception.GlobalExceptionHandler.ErrorResponse.class))),
-      @ApiResponse(responseCode = "409", description = "Concurrency conflict during stock update",
-              content = @Content(mediaType = "application/json",
-                      schema = @Schema(implementation = org.example.demo.exception.GlobalExceptionHandler.ErrorResponse.class))) })
+              content = @Content(mediaType = "application/problem+json",
+                      schema = @Schema(implementation = ProblemDetail.class))),
+      @ApiResponse(responseCode = "409", description = "Concurrency conflict during stock update, or a request with the same Idempotency-Key is still being processed",
+              content = @Content(mediaType = "application/problem+json",
+                      schema = @Schema(implementation = ProblemDetail.class))) })
   public Mono<Order> confirmarOrder(
+      @Parameter(description = "ID of the order to be confirmed") @PathVariable Long id,
+      @Parameter(description = "Client-generated key; retries with the same key return the first response") @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+    return idempotencyService.execute("confirm-order:" + id, idempotencyKey, null, Order.class,
+        () -> orderService.confirmOrder(id));
+  }
+
+  @PutMapping(value = "/{id}/confirm", params = "async=true")
+  @Operation(summary = "Queue an order for confirmation",
+          description = "Checks that the order is PENDING and queues its confirmation without pricing it or touching stock. Workers confirm queued orders in batches; poll the order (Location header) until its state is CONFIRMADO, or the confirmation endpoint for the task status and failure reason.", responses = {
+      @ApiResponse(responseCode = "202", description = "Confirmation queued",
+              content = @Content(mediaType = "application/json", schema = @Schema(implementation = OrderConfirmationTask.class))),
+      @ApiResponse(responseCode = "400", description = "Order not pending",
+              content = @Content(mediaType = "application/problem+json",
+                      schema = @Schema(implementation = ProblemDetail.class))),
+      @ApiResponse(responseCode = "404", description = "Order not found",
+              content = @Content(mediaType = "application/problem+json",
+                      schema = @Schema(implementation = ProblemDetail.class))) })
+  public Mono<ResponseEntity<OrderConfirmationTask>> confirmOrderAsync(
       @Parameter(description = "ID of the order to be confirmed") @PathVariable Long id) {
-    return orderService.confirmOrder(id);
+    return orderConfirmationQueue.enqueue(id).map(task -> ResponseEntity.accepted()
+        .location(URI.create("/api/v1/orders/" + id)).body(task));
+  }
+
+  @GetMapping("/{id}/confirmation")
+  @Operation(summary = "Get the status of an asynchronous confirmation",
+          description = "Latest queued confirmation of the order: QUEUED, PROCESSING, DONE or FAILED with the reason.", responses = {
+      @ApiResponse(responseCode = "200", description = "Confirmation task",
+              content = @Content(mediaType = "application/json", schema = @Schema(implementation = OrderConfirmationTask.class))),
+      @ApiResponse(responseCode = "404", description = "The order was never queued for confirmation",
+              content = @Content(mediaType = "application/problem+json",
+                      schema = @Schema(implementation = ProblemDetail.class))) })
+  public Mono<OrderConfirmationTask> getConfirmationStatus(
+      @Parameter(description = "ID of the order") @PathVariable Long id) {
+    return orderConfirmationQueue.getLatestTask(id);
+  }
+
+  @PostMapping("/confirm")
+  @Operation(summary = "Confirm a batch of orders",
+          description = "Confirms the given PENDING orders in chunks (one transaction per chunk). Stock is aggregated per product within a chunk. Returns one result per distinct order id; an order that cannot be confirmed does not abort the rest of its chunk.", responses = {
+      @ApiResponse(responseCode = "200", description = "Per-order confirmation results",
+              content = @Content(mediaType = "application/json", schema = @Schema(implementation = OrderConfirmationResult.class))) })
+  public Flux<OrderConfirmationResult> confirmOrders(@Valid @RequestBody BulkConfirmOrdersRequest request) {
+    return orderService.confirmOrders(request.getOrderIds());
   }
 
   @GetMapping("/{id}")
-  @Operation(summary = "Get an order by its ID", description = "Retrieves the details of a specific order.", responses = {
+  @Operation(summary = "Get an order by its ID", description = "Retrieves the details of a specific order, including its items.", responses = {
       @ApiResponse(responseCode = "200", description = "Order found",
-              content = @Content(mediaType = "application/json", schema = @Schema(implementation = Order.class))),
+              content = @Content(mediaType = "application/json", schema = @Schema(implementation = OrderWithItemsResponse.class))),
       @ApiResponse(responseCode = "404", description = "Order not found",
-              content = @Content(mediaType = "application/json",
-                      schema = @Schema(implementation = org.example.demo.exception.GlobalExceptionHandler.ErrorResponse.class))) })
-  public Mono<Order> getOrderById(
+              content = @Content(mediaType = "application/problem+json",
+                      schema = @Schema(implementation = ProblemDetail.class))) })
+  public Mono<OrderWithItemsResponse> getOrderById(
       @Parameter(description = "ID of the order to retrieve") @PathVariable Long id) {
-    return orderService.getOrderById(id);
+    return orderService.getOrderWithItems(id);
   }
 
   @GetMapping
-  @Operation(summary = "Get all orders",
-          description = "Retrieves a list of all orders. For detailed items per order, use the getOrderById endpoint or consider a dedicated DTO if performance for lists with details is critical.", responses = {
+  @Operation(summary = "Get a page of orders",
+          description = "Retrieves up to 'limit' orders with id greater than 'afterId', ordered by id. Pass the id of the last order received as 'afterId' to get the next page. For items per order, use the with-items endpoint.", responses = {
+      @ApiResponse(responseCode = "200",
+              description = "Successfully retrieved page of orders") })
+  public Flux<Order> getAllOrders(
+      @Parameter(description = "Return orders with id greater than this cursor") @RequestParam(defaultValue = "0") Long afterId,
+      @Parameter(description = "Maximum number of orders to return (1-" + MAX_PAGE_SIZE + ")") @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+    return orderService.getOrdersPage(afterId, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+  }
+
+  @GetMapping("/with-items")
+  @Operation(summary = "Get a page of orders with their items",
+          description = "Same paging as the list endpoint, but each order carries its items. Always two queries per page regardless of its size.", responses = {
+      @ApiResponse(responseCode = "200",
+              description = "Successfully retrieved page of orders with items") })
+  public Flux<OrderWithItemsResponse> getAllOrdersWithItems(
+      @Parameter(description = "Return orders with id greater than this cursor") @RequestParam(defaultValue = "0") Long afterId,
+      @Parameter(description = "Maximum number of orders to return (1-" + MAX_PAGE_SIZE + ")") @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+    return orderService.getOrdersWithItemsPage(afterId, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+  }
+
+  @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @Operation(summary = "Stream all orders",
+          description = "Streams every order as newline-delimited JSON as rows are read from the database, with backpressure from the client connection.", responses = {
       @ApiResponse(responseCode = "200",
-              description = "Successfully retrieved list of orders") })
-  public Flux<Order> getAllOrders() {
+              description = "Stream of orders") })
+  public Flux<Order> streamAllOrders() {
     return orderService.getAllOrders();
   }
 }
\ No newline at end of file
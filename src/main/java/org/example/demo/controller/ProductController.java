@@ -1,5 +1,7 @@
 package org.example.demo.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -7,16 +9,20 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
-import javax.validation.Valid;
+import jakarta.validation.Valid;
 
 import lombok.RequiredArgsConstructor;
 
 import org.example.demo.model.entity.Product;
 import org.example.demo.model.request.CreateProductRequest;
+import org.example.demo.model.request.ProductImportRow;
 import org.example.demo.model.request.UpdateProductRequest;
+import org.example.demo.model.response.ProductImportProgress;
 import org.example.demo.service.ProductService;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -24,6 +30,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -36,7 +43,11 @@ import reactor.core.publisher.Mono;
 @Tag(name = "Product API", description = "API for product management")
 public class ProductController {
 
+  static final int DEFAULT_PAGE_SIZE = 100;
+  static final int MAX_PAGE_SIZE = 1000;
+
   private final ProductService productService;
+  private final ObjectMapper objectMapper;
 
   @PostMapping
   @ResponseStatus(HttpStatus.CREATED)
@@ -45,11 +56,36 @@ public class ProductController {
       @ApiResponse(responseCode = "201", description = "Product created successfully",
               content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
       @ApiResponse(responseCode = "400", description = "Invalid input data",
-              content = @Content(mediaType = "application/json",
-                      schema = @Schema(implementation = org.example.demo.exception.GlobalExceptionHandler.ErrorResponse.class))) })
+              content = @Content(mediaType = "application/problem+json",
+                      schema = @Schema(implementation = ProblemDetail.class))) })
   public Mono<Product> createProduct(@Valid @RequestBody CreateProductRequest request) {
-    return productService.createProduct(request)
-            .flatMap(savedProduct -> productService.getProductById(savedProduct.getId()));
+    return productService.createProduct(request);
+  }
+
+  @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+          produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @Operation(summary = "Bulk import products from NDJSON",
+          description = "Upserts products streamed as newline-delimited JSON ({id?, name, price, stock} per line). Rows are parsed incrementally and written in batches; one progress object is streamed back per batch with the errors of its rows. A line that is not valid JSON is reported as an error of its row and does not stop the import.", responses = {
+      @ApiResponse(responseCode = "200", description = "Stream of import progress",
+              content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = ProductImportProgress.class))) })
+  public Flux<ProductImportProgress> importProductsNdjson(@RequestBody Flux<String> lines) {
+    // Línea a línea: un JSON mal formado es un error de su fila, no de toda la importación
+    return productService.importProducts(lines
+        .filter(line -> !line.isBlank())
+        .map(line -> ProductImportRow.fromJson(line, objectMapper)));
+  }
+
+  @PostMapping(value = "/import", consumes = "text/csv", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @Operation(summary = "Bulk import products from CSV",
+          description = "Same as the NDJSON import, for CSV lines in id,name,price,stock order (id may be empty, an optional header line is skipped, quoted fields are not supported).", responses = {
+      @ApiResponse(responseCode = "200", description = "Stream of import progress",
+              content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = ProductImportProgress.class))) })
+  public Flux<ProductImportProgress> importProductsCsv(@RequestBody Flux<String> lines) {
+    return productService.importProducts(lines
+        .filter(line -> !line.isBlank())
+        .index()
+        .filter(numbered -> !(numbered.getT1() == 0 && numbered.getT2().startsWith("id,")))
+        .map(numbered -> ProductImportRow.fromCsv(numbered.getT2())));
   }
 
   @GetMapping("/{id}")
@@ -57,18 +93,29 @@ public class ProductController {
       @ApiResponse(responseCode = "200", description = "Product found",
               content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
       @ApiResponse(responseCode = "404", description = "Product not found",
-              content = @Content(mediaType = "application/json",
-                      schema = @Schema(implementation = org.example.demo.exception.GlobalExceptionHandler.ErrorResponse.class))) })
+              content = @Content(mediaType = "application/problem+json",
+                      schema = @Schema(implementation = ProblemDetail.class))) })
   public Mono<Product> getProductById(
       @Parameter(description = "ID of the product to be retrieved") @PathVariable Long id) {
     return productService.getProductById(id);
   }
 
   @GetMapping
-  @Operation(summary = "Get all products", description = "Retrieves a list of all products.", responses = {
-      @ApiResponse(responseCode = "200", description = "Successfully retrieved list of products",
+  @Operation(summary = "Get a page of products",
+          description = "Retrieves up to 'limit' products with id greater than 'afterId', ordered by id. Pass the id of the last product received as 'afterId' to get the next page.", responses = {
+      @ApiResponse(responseCode = "200", description = "Successfully retrieved page of products",
               content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))) })
-  public Flux<Product> getAllProducts() {
+  public Flux<Product> getAllProducts(
+      @Parameter(description = "Return products with id greater than this cursor") @RequestParam(defaultValue = "0") Long afterId,
+      @Parameter(description = "Maximum number of products to return (1-" + MAX_PAGE_SIZE + ")") @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+    return productService.getProductsPage(afterId, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+  }
+
+  @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @Operation(summary = "Stream all products",
+          description = "Streams every product as newline-delimited JSON as rows are read from the database, with backpressure from the client connection.", responses = {
+      @ApiResponse(responseCode = "200", description = "Stream of products") })
+  public Flux<Product> streamAllProducts() {
     return productService.getAllProducts();
   }
 
@@ -0,0 +1,13 @@
+package org.example.demo.exception;
+
+/**
+ * Expected business error (missing entity, no stock, state conflict). These are raised on the
+ * normal request path, sometimes thousands of times per second during a sale, so they skip stack
+ * trace capture and suppression: the message and the type are all the handler needs.
+ */
+public abstract class BusinessException extends RuntimeException {
+
+  protected BusinessException(String message) {
+    super(message, null, false, false);
+  }
+}
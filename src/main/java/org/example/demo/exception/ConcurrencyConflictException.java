@@ -0,0 +1,9 @@
+package org.example.demo.exception;
+
+/** A concurrent writer took the stock or the order first; retrying may succeed. Mapped to 409. */
+public class ConcurrencyConflictException extends BusinessException {
+
+  public ConcurrencyConflictException(String message) {
+    super(message);
+  }
+}
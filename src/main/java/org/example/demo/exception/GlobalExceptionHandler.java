@@ -1,53 +1,81 @@
 package org.example.demo.exception;
 
+import java.net.URI;
 import java.util.stream.Collectors;
 
+import lombok.extern.slf4j.Slf4j;
+
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
 
 import reactor.core.publisher.Mono;
 
+/**
+ * Maps errors to RFC 7807 problem responses ({@code application/problem+json}) by exception type.
+ */
+@Slf4j
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
-  @ExceptionHandler(RuntimeException.class)
-  public Mono<ResponseEntity<ErrorResponse>> handleRuntimeException(RuntimeException ex) {
-    HttpStatus status = HttpStatus.INTERNAL_SERVER_ERROR;
-    String message = ex.getMessage();
-
-    if (message == null) {
-      message = "An unexpected error occurred";
-    }
-
-    if (message.toLowerCase().contains("not found")) {
-      status = HttpStatus.NOT_FOUND;
-    } else if (message.toLowerCase().contains("stock")
-        || message.toLowerCase().contains("no items")) {
-      status = HttpStatus.BAD_REQUEST;
-    } else if (message.toLowerCase().contains("concurrency conflict")
-        || message.toLowerCase().contains("conflicto de concurrencia")) {
-      status = HttpStatus.CONFLICT;
-    } else if (message.toLowerCase().contains("not in pending state")) {
-      status = HttpStatus.BAD_REQUEST;
-    }
-
-    ErrorResponse errorResponse = new ErrorResponse(status.value(), message);
-    return Mono.just(ResponseEntity.status(status).body(errorResponse));
+  @ExceptionHandler(ResourceNotFoundException.class)
+  public Mono<ResponseEntity<ProblemDetail>> handleNotFound(ResourceNotFoundException ex,
+      ServerWebExchange exchange) {
+    return problem(HttpStatus.NOT_FOUND, ex.getMessage(), exchange);
+  }
+
+  @ExceptionHandler({InsufficientStockException.class, InvalidOrderStateException.class,
+      InvalidIdempotencyKeyException.class})
+  public Mono<ResponseEntity<ProblemDetail>> handleBadRequest(BusinessException ex,
+      ServerWebExchange exchange) {
+    return problem(HttpStatus.BAD_REQUEST, ex.getMessage(), exchange);
+  }
+
+  @ExceptionHandler(ConcurrencyConflictException.class)
+  public Mono<ResponseEntity<ProblemDetail>> handleConflict(ConcurrencyConflictException ex,
+      ServerWebExchange exchange) {
+    return problem(HttpStatus.CONFLICT, ex.getMessage(), exchange);
+  }
+
+  @ExceptionHandler(IdempotencyKeyReuseException.class)
+  public Mono<ResponseEntity<ProblemDetail>> handleKeyReuse(IdempotencyKeyReuseException ex,
+      ServerWebExchange exchange) {
+    return problem(HttpStatus.UNPROCESSABLE_ENTITY, ex.getMessage(), exchange);
   }
 
   @ExceptionHandler(WebExchangeBindException.class)
-  public Mono<ResponseEntity<ErrorResponse>> handleValidationExceptions(
-      WebExchangeBindException ex) {
+  public Mono<ResponseEntity<ProblemDetail>> handleValidationExceptions(
+      WebExchangeBindException ex, ServerWebExchange exchange) {
     String message = ex.getBindingResult().getAllErrors().stream()
         .map(error -> error.getDefaultMessage()).collect(Collectors.joining(", "));
+    return problem(HttpStatus.BAD_REQUEST, message, exchange);
+  }
 
-    ErrorResponse errorResponse = new ErrorResponse(HttpStatus.BAD_REQUEST.value(), message);
-    return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse));
+  @ExceptionHandler(ResponseStatusException.class)
+  public Mono<ResponseEntity<ProblemDetail>> handleResponseStatus(ResponseStatusException ex,
+      ServerWebExchange exchange) {
+    // Errores del framework (cuerpo ausente, media type no soportado...) conservan su estado
+    return problem(ex.getStatusCode(), ex.getReason(), exchange);
+  }
+
+  @ExceptionHandler(RuntimeException.class)
+  public Mono<ResponseEntity<ProblemDetail>> handleRuntimeException(RuntimeException ex,
+      ServerWebExchange exchange) {
+    // Error no previsto: la traza va al log, no al cliente
+    log.error("Unhandled error on {}", exchange.getRequest().getPath(), ex);
+    return problem(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred", exchange);
   }
 
-  public record ErrorResponse(int status, String message) {
+  private static Mono<ResponseEntity<ProblemDetail>> problem(HttpStatusCode status, String detail,
+      ServerWebExchange exchange) {
+    ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(status, detail);
+    problemDetail.setInstance(URI.create(exchange.getRequest().getPath().value()));
+    return Mono.just(ResponseEntity.status(status).body(problemDetail));
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,9 @@
+package org.example.demo.exception;
+
+/** An Idempotency-Key was sent again with a different request. Mapped to 422. */
+public class IdempotencyKeyReuseException extends BusinessException {
+
+  public IdempotencyKeyReuseException(String message) {
+    super(message);
+  }
+}
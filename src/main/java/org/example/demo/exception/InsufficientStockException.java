@@ -0,0 +1,9 @@
+package org.example.demo.exception;
+
+/** Requested quantity exceeds the stock seen when validating the request. Mapped to 400. */
+public class InsufficientStockException extends BusinessException {
+
+  public InsufficientStockException(String message) {
+    super(message);
+  }
+}
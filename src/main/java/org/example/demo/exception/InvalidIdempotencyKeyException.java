@@ -0,0 +1,9 @@
+package org.example.demo.exception;
+
+/** The Idempotency-Key header is empty, too long or has unsupported characters. Mapped to 400. */
+public class InvalidIdempotencyKeyException extends BusinessException {
+
+  public InvalidIdempotencyKeyException(String message) {
+    super(message);
+  }
+}
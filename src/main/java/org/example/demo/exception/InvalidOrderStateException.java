@@ -0,0 +1,9 @@
+package org.example.demo.exception;
+
+/** The order cannot go through the operation in its current state. Mapped to 400. */
+public class InvalidOrderStateException extends BusinessException {
+
+  public InvalidOrderStateException(String message) {
+    super(message);
+  }
+}
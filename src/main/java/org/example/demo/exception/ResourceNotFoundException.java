@@ -0,0 +1,9 @@
+package org.example.demo.exception;
+
+/** The requested order or product does not exist. Mapped to 404. */
+public class ResourceNotFoundException extends BusinessException {
+
+  public ResourceNotFoundException(String message) {
+    super(message);
+  }
+}
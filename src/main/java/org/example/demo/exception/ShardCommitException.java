@@ -0,0 +1,13 @@
+package org.example.demo.exception;
+
+/**
+ * The main database committed and the order's shard did not. Retrying the same operation
+ * completes it on the shard without repeating the main database's part.
+ */
+public class ShardCommitException extends RuntimeException {
+
+  public ShardCommitException(Long orderId, Throwable cause) {
+    super("Shard commit failed for order " + orderId + " after the main database committed",
+        cause);
+  }
+}
@@ -0,0 +1,33 @@
+package org.example.demo.model.entity;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("idempotency_key")
+public class IdempotencyRecord {
+  public static final String IN_PROGRESS = "IN_PROGRESS";
+  public static final String COMPLETED = "COMPLETED";
+
+  /** Operation scope and client key, e.g. {@code create-order:3f2a...}. */
+  @Id
+  private String id;
+  /** SHA-256 of the request the key was first used with. */
+  private String fingerprint;
+  private String status;
+  /** Response body as JSON, once {@link #COMPLETED}. */
+  private String response;
+  @Column("created_at")
+  private LocalDateTime createdAt;
+}
@@ -1,5 +1,6 @@
 package org.example.demo.model.entity;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 import lombok.AllArgsConstructor;
@@ -23,10 +24,10 @@ public class Order {
   private LocalDateTime date;
 
   @Column("total_gross")
-  private Double totalGross;
+  private BigDecimal totalGross;
 
   @Column("total_final")
-  private Double totalFinal;
+  private BigDecimal totalFinal;
 
   private String state;
 }
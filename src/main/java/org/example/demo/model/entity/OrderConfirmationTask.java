@@ -0,0 +1,48 @@
+package org.example.demo.model.entity;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("order_confirmation_queue")
+public class OrderConfirmationTask {
+  public static final String QUEUED = "QUEUED";
+  public static final String PROCESSING = "PROCESSING";
+  public static final String DONE = "DONE";
+  public static final String FAILED = "FAILED";
+
+  @Id
+  private Long id;
+
+  @Column("orders_id")
+  private Long ordersId;
+
+  private String status;
+
+  /** Why the order could not be confirmed, when {@link #FAILED}. */
+  private String error;
+
+  /** Poll that claimed this task while {@link #PROCESSING}. */
+  @JsonIgnore
+  @Column("claim_token")
+  private String claimToken;
+
+  @Column("created_at")
+  private LocalDateTime createdAt;
+
+  @Column("updated_at")
+  private LocalDateTime updatedAt;
+}
@@ -1,10 +1,14 @@
 package org.example.demo.model.entity;
 
+import java.math.BigDecimal;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import org.example.demo.service.pricing.PricingLine;
+
 import org.springframework.data.annotation.Id;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
@@ -14,7 +18,7 @@ import org.springframework.data.relational.core.mapping.Table;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table("ORDERS_ITEM")
-public class OrderItem {
+public class OrderItem implements PricingLine {
   @Id
   private Long id;
   @Column("orders_id")
@@ -23,5 +27,5 @@ public class OrderItem {
   private Long productId;
   private Integer quantity;
   @Column("unit_price")
-  private Double unitPrice;
+  private BigDecimal unitPrice;
 }
@@ -0,0 +1,41 @@
+package org.example.demo.model.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Work on an order of another shard that the main database committed and the shard may not have:
+ * the order's creation, or its confirmation with the totals the main database recorded.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("order_shard_intent")
+public class OrderShardIntent {
+  public static final String CREATE = "CREATE";
+  public static final String CONFIRM = "CONFIRM";
+
+  @Column("orders_id")
+  private Long ordersId;
+
+  private String kind;
+
+  /** Totals of a confirmation; null on a creation. */
+  @Column("total_gross")
+  private BigDecimal totalGross;
+
+  @Column("total_final")
+  private BigDecimal totalFinal;
+
+  @Column("created_at")
+  private LocalDateTime createdAt;
+}
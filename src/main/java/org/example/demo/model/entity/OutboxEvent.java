@@ -0,0 +1,57 @@
+package org.example.demo.model.entity;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("outbox_event")
+public class OutboxEvent {
+  public static final String ORDER = "ORDER";
+  public static final String PRODUCT = "PRODUCT";
+
+  public static final String ORDER_CREATED = "ORDER_CREATED";
+  public static final String ORDER_CONFIRMED = "ORDER_CONFIRMED";
+  public static final String STOCK_RESERVED = "STOCK_RESERVED";
+  public static final String PRODUCT_CREATED = "PRODUCT_CREATED";
+  public static final String PRODUCT_UPDATED = "PRODUCT_UPDATED";
+  public static final String PRODUCT_UPSERTED = "PRODUCT_UPSERTED";
+  public static final String PRODUCT_DELETED = "PRODUCT_DELETED";
+
+  @JsonIgnore
+  @Id
+  private Long id;
+
+  /** Position in the change stream; assigned by the relay after commit. */
+  @Column("stream_offset")
+  private Long streamOffset;
+
+  @Column("aggregate_type")
+  private String aggregateType;
+
+  @Column("aggregate_id")
+  private Long aggregateId;
+
+  @Column("event_type")
+  private String eventType;
+
+  /** Event body as JSON. */
+  @JsonRawValue
+  private String payload;
+
+  @Column("created_at")
+  private LocalDateTime createdAt;
+}
@@ -1,5 +1,7 @@
 package org.example.demo.model.entity;
 
+import java.math.BigDecimal;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,7 +20,7 @@ public class Product {
   @Id
   private Long id;
   private String name;
-  private Double price;
+  private BigDecimal price;
   private Integer stock;
   @Version
   private Long version;
@@ -0,0 +1,32 @@
+package org.example.demo.model.entity;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/** Quantity of a ledger-owned product taken by a committed confirmation and not yet flushed. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("stock_ledger_journal")
+public class StockLedgerJournalEntry {
+  @Id
+  private Long id;
+
+  @Column("product_id")
+  private Long productId;
+
+  private Integer quantity;
+
+  /** Value of the quantity sold, added to PRODUCT_SALES by the flush. */
+  @Column("gross_amount")
+  private BigDecimal grossAmount;
+}
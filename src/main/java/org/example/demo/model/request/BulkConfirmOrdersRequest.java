@@ -0,0 +1,25 @@
+package org.example.demo.model.request;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkConfirmOrdersRequest {
+  /** Largest batch accepted in one request; the orders are still confirmed chunk by chunk. */
+  public static final int MAX_ORDER_IDS = 1_000;
+
+  @NotEmpty
+  @Size(max = MAX_ORDER_IDS)
+  private List<@NotNull Long> orderIds;
+}
@@ -2,19 +2,20 @@ package org.example.demo.model.request;
 
 import java.util.List;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import javax.validation.constraints.NotEmpty;
-
-
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class CreateOrderRequest {
   @NotEmpty
-  private List<OrderItemRequest> items;
+  private List<@NotNull @Valid OrderItemRequest> items;
 }
@@ -1,9 +1,11 @@
 package org.example.demo.model.request;
 
-import javax.validation.constraints.NotBlank;
-import javax.validation.constraints.NotNull;
-import javax.validation.constraints.Positive;
-import javax.validation.constraints.PositiveOrZero;
+import java.math.BigDecimal;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -20,7 +22,7 @@ public class CreateProductRequest {
 
   @NotNull(message = "Product price cannot be null")
   @Positive(message = "Product price must be positive")
-  private Double price;
+  private BigDecimal price;
 
   @NotNull(message = "Product stock cannot be null")
   @PositiveOrZero(message = "Product stock must be positive or zero")
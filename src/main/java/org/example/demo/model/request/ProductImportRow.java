@@ -0,0 +1,66 @@
+package org.example.demo.model.request;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of a bulk product import. Rows with an {@code id} update that product (or create it
+ * with that id); rows without one create a new product.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportRow {
+  private Long id;
+  private String name;
+  private BigDecimal price;
+  private Integer stock;
+
+  /** Set when the line could not be parsed; the row is then reported instead of imported. */
+  @JsonIgnore
+  private String parseError;
+
+  /**
+   * Parses one NDJSON line. A malformed line becomes a row with {@code parseError} set, so it is
+   * reported on its own and the lines around it are still imported.
+   */
+  public static ProductImportRow fromJson(String line, ObjectMapper objectMapper) {
+    try {
+      ProductImportRow row = objectMapper.readValue(line, ProductImportRow.class);
+      return row != null ? row : ProductImportRow.builder().parseError("Expected a JSON object")
+          .build();
+    } catch (JsonProcessingException ex) {
+      return ProductImportRow.builder().parseError("Invalid JSON: " + ex.getOriginalMessage())
+          .build();
+    }
+  }
+
+  /**
+   * Parses a CSV line in {@code id,name,price,stock} order. {@code id} may be empty. Quoted fields
+   * are not supported, so names must not contain commas.
+   */
+  public static ProductImportRow fromCsv(String line) {
+    String[] fields = line.split(",", -1);
+    if (fields.length != 4) {
+      return ProductImportRow.builder()
+          .parseError("Expected 4 columns (id,name,price,stock) but got " + fields.length).build();
+    }
+    try {
+      String id = fields[0].trim();
+      return ProductImportRow.builder().id(id.isEmpty() ? null : Long.valueOf(id))
+          .name(fields[1].trim()).price(new BigDecimal(fields[2].trim()))
+          .stock(Integer.valueOf(fields[3].trim())).build();
+    } catch (NumberFormatException ex) {
+      return ProductImportRow.builder().parseError("Invalid number: " + ex.getMessage()).build();
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package org.example.demo.model.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Confirmed orders of one day, by order date. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailySales {
+  private LocalDate date;
+  private long ordersCount;
+  private BigDecimal totalGross;
+  private BigDecimal totalFinal;
+}
@@ -0,0 +1,37 @@
+package org.example.demo.model.response;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import org.example.demo.model.entity.Order;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderConfirmationResult {
+  private Long orderId;
+  private boolean success;
+  private String state;
+  private BigDecimal totalFinal;
+  private String error;
+
+  public static OrderConfirmationResult confirmed(Order order) {
+    return OrderConfirmationResult.builder().orderId(order.getId()).success(true)
+        .state(order.getState()).totalFinal(order.getTotalFinal()).build();
+  }
+
+  public static OrderConfirmationResult failed(Long orderId, String error) {
+    return OrderConfirmationResult.builder().orderId(orderId).success(false).error(error).build();
+  }
+
+  /** The order had already left PENDIENTE; {@code state} says where it is now. */
+  public static OrderConfirmationResult notPending(Order order) {
+    return OrderConfirmationResult.builder().orderId(order.getId()).success(false)
+        .state(order.getState()).error("Order is not in PENDING state: " + order.getId()).build();
+  }
+}
@@ -0,0 +1,32 @@
+package org.example.demo.model.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import org.example.demo.model.entity.Order;
+import org.example.demo.model.entity.OrderItem;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderWithItemsResponse {
+  private Long id;
+  private LocalDateTime date;
+  private BigDecimal totalGross;
+  private BigDecimal totalFinal;
+  private String state;
+  private List<OrderItem> items;
+
+  public static OrderWithItemsResponse of(Order order, List<OrderItem> items) {
+    return OrderWithItemsResponse.builder().id(order.getId()).date(order.getDate())
+        .totalGross(order.getTotalGross()).totalFinal(order.getTotalFinal())
+        .state(order.getState()).items(items).build();
+  }
+}
@@ -0,0 +1,23 @@
+package org.example.demo.model.response;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Emitted once per imported batch; counters are cumulative for the whole request. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportProgress {
+  private long processed;
+  private long upserted;
+  private long failed;
+  private List<RowError> errors;
+
+  public record RowError(long row, String message) {
+  }
+}
@@ -0,0 +1,19 @@
+package org.example.demo.model.response;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Units of a product sold in confirmed orders, and their value at the order's unit price. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSales {
+  private Long productId;
+  private long quantitySold;
+  private BigDecimal grossAmount;
+}
@@ -0,0 +1,17 @@
+package org.example.demo.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Number of products whose stock is within [minStock, maxStock]; maxStock null is unbounded. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockBucket {
+  private int minStock;
+  private Integer maxStock;
+  private long products;
+}
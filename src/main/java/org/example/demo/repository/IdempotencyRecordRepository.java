@@ -0,0 +1,48 @@
+package org.example.demo.repository;
+
+import java.time.LocalDateTime;
+
+import org.example.demo.model.entity.IdempotencyRecord;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+import reactor.core.publisher.Mono;
+
+public interface IdempotencyRecordRepository extends R2dbcRepository<IdempotencyRecord, String> {
+
+  /** Fails with a duplicate key error if another request already claimed {@code id}. */
+  @Modifying
+  @Query("INSERT INTO IDEMPOTENCY_KEY (id, fingerprint, status, created_at) "
+      + "VALUES (:id, :fingerprint, 'IN_PROGRESS', :createdAt)")
+  Mono<Integer> claim(String id, String fingerprint, LocalDateTime createdAt);
+
+  /**
+   * Re-claims {@code id} for a retry of the same request when its claim is older than
+   * {@code cutoff} and never completed; 0 rows if it is completed, fresh or for another request.
+   */
+  @Modifying
+  @Query("UPDATE IDEMPOTENCY_KEY SET created_at = :createdAt WHERE id = :id "
+      + "AND status = 'IN_PROGRESS' AND fingerprint = :fingerprint AND created_at < :cutoff")
+  Mono<Integer> takeOver(String id, String fingerprint, LocalDateTime createdAt,
+      LocalDateTime cutoff);
+
+  /** {@code claimedAt} identifies the claim: a request whose key was taken over matches 0 rows. */
+  @Modifying
+  @Query("UPDATE IDEMPOTENCY_KEY SET status = 'COMPLETED', response = :response "
+      + "WHERE id = :id AND status = 'IN_PROGRESS' AND created_at = :claimedAt")
+  Mono<Integer> complete(String id, LocalDateTime claimedAt, String response);
+
+  /**
+   * Also a completed claim: the request completed it in a transaction that committed and then
+   * failed on another database, and its retry has to run.
+   */
+  @Modifying
+  @Query("DELETE FROM IDEMPOTENCY_KEY WHERE id = :id AND created_at = :claimedAt")
+  Mono<Integer> release(String id, LocalDateTime claimedAt);
+
+  @Modifying
+  @Query("DELETE FROM IDEMPOTENCY_KEY WHERE created_at < :cutoff")
+  Mono<Integer> deleteOlderThan(LocalDateTime cutoff);
+}
@@ -0,0 +1,28 @@
+package org.example.demo.repository;
+
+import java.time.LocalDateTime;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Completes IDEMPOTENCY_KEY rows over blocking JDBC, for {@code persistence.mode=jdbc}, within
+ * the transaction of the request's writes. Claims and replays stay on
+ * {@link IdempotencyRecordRepository}.
+ */
+@Repository
+@ConditionalOnProperty(name = "persistence.mode", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class JdbcIdempotencyRecordRepository {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /** As {@link IdempotencyRecordRepository#complete}: 0 rows if the key was taken over. */
+  public int complete(String id, LocalDateTime claimedAt, String response) {
+    return jdbcTemplate.update("UPDATE IDEMPOTENCY_KEY SET status = 'COMPLETED', response = ? "
+        + "WHERE id = ? AND status = 'IN_PROGRESS' AND created_at = ?", response, id, claimedAt);
+  }
+}
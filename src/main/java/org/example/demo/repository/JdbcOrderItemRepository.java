@@ -0,0 +1,50 @@
+package org.example.demo.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.model.entity.OrderItem;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/** ORDERS_ITEM over blocking JDBC, for {@code persistence.mode=jdbc}. */
+@Repository
+@ConditionalOnProperty(name = "persistence.mode", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class JdbcOrderItemRepository {
+
+  private static final RowMapper<OrderItem> ITEM_MAPPER = (rs, rowNum) -> OrderItem.builder()
+      .id(rs.getLong("id")).ordersId(rs.getLong("orders_id")).productId(rs.getLong("product_id"))
+      .quantity(rs.getInt("quantity")).unitPrice(rs.getBigDecimal("unit_price")).build();
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+
+  public List<OrderItem> findByOrdersId(Long orderId) {
+    return jdbcTemplate.query("SELECT * FROM ORDERS_ITEM WHERE orders_id = :orderId",
+        Map.of("orderId", orderId), ITEM_MAPPER);
+  }
+
+  public List<OrderItem> findByOrdersIdIn(Collection<Long> orderIds) {
+    return jdbcTemplate.query("SELECT * FROM ORDERS_ITEM WHERE orders_id IN (:orderIds)",
+        Map.of("orderIds", orderIds), ITEM_MAPPER);
+  }
+
+  /** One JDBC batch for all the rows; generated ids are not read back. */
+  public void insertAll(List<OrderItem> items) {
+    if (items.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.getJdbcTemplate().batchUpdate(OrderItemRepositoryCustomImpl.INSERT_PREFIX
+            + OrderItemRepositoryCustomImpl.ROW_PLACEHOLDERS,
+        items.stream()
+            .map(item -> new Object[] {item.getOrdersId(), item.getProductId(), item.getQuantity(),
+                item.getUnitPrice()})
+            .toList());
+  }
+}
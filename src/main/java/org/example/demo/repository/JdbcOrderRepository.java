@@ -0,0 +1,77 @@
+package org.example.demo.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.model.entity.Order;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/** ORDERS over blocking JDBC, for {@code persistence.mode=jdbc}. */
+@Repository
+@ConditionalOnProperty(name = "persistence.mode", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class JdbcOrderRepository {
+
+  private static final String INSERT_SQL = "INSERT INTO ORDERS (id, date, total_gross, "
+      + "total_final, state) VALUES (:id, :date, :totalGross, :totalFinal, :state)";
+
+  private static final RowMapper<Order> ORDER_MAPPER = (rs, rowNum) -> Order.builder()
+      .id(rs.getLong("id")).date(rs.getObject("date", LocalDateTime.class))
+      .totalGross(rs.getBigDecimal("total_gross")).totalFinal(rs.getBigDecimal("total_final"))
+      .state(rs.getString("state")).build();
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+
+  public Optional<Order> findById(Long id) {
+    return jdbcTemplate.query("SELECT * FROM ORDERS WHERE id = :id", Map.of("id", id), ORDER_MAPPER)
+        .stream().findFirst();
+  }
+
+  public List<Order> findAllById(Collection<Long> ids) {
+    return jdbcTemplate.query("SELECT * FROM ORDERS WHERE id IN (:ids)", Map.of("ids", ids),
+        ORDER_MAPPER);
+  }
+
+  public List<Order> findPage(Long afterId, int limit) {
+    return jdbcTemplate.query("SELECT * FROM ORDERS WHERE id > :afterId ORDER BY id LIMIT :limit",
+        Map.of("afterId", afterId, "limit", limit), ORDER_MAPPER);
+  }
+
+  /** Inserts a new order under the id it already carries. */
+  public Order insert(Order order) {
+    jdbcTemplate.update(INSERT_SQL, new MapSqlParameterSource("id", order.getId())
+        .addValue("date", order.getDate()).addValue("totalGross", order.getTotalGross())
+        .addValue("totalFinal", order.getTotalFinal()).addValue("state", order.getState()));
+    return order;
+  }
+
+  /** Same contract as {@link OrderRepositoryCustom#confirmAll}: returns the ids no longer pending. */
+  public List<Long> confirmAll(List<Order> orders) {
+    if (orders.isEmpty()) {
+      return List.of();
+    }
+    int[] counts = jdbcTemplate.getJdbcTemplate().batchUpdate(
+        OrderRepositoryCustomImpl.CONFIRM_SQL, orders.stream()
+            .map(order -> new Object[] {order.getTotalGross(), order.getTotalFinal(),
+                order.getState(), order.getId()})
+            .toList());
+    List<Long> notPendingIds = new ArrayList<>();
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] == 0) {
+        notPendingIds.add(orders.get(i).getId());
+      }
+    }
+    return notPendingIds;
+  }
+}
@@ -0,0 +1,35 @@
+package org.example.demo.repository;
+
+import java.util.List;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.model.entity.OutboxEvent;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Appends OUTBOX_EVENT rows over blocking JDBC, for {@code persistence.mode=jdbc}. The relay
+ * assigns stream offsets as for rows written through R2DBC.
+ */
+@Repository
+@ConditionalOnProperty(name = "persistence.mode", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class JdbcOutboxEventRepository {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public void appendAll(List<OutboxEvent> events) {
+    if (events.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.batchUpdate(OutboxEventRepositoryCustomImpl.INSERT_PREFIX
+            + OutboxEventRepositoryCustomImpl.ROW_PLACEHOLDERS,
+        events.stream()
+            .map(event -> new Object[] {event.getAggregateType(), event.getAggregateId(),
+                event.getEventType(), event.getPayload(), event.getCreatedAt()})
+            .toList());
+  }
+}
@@ -0,0 +1,129 @@
+package org.example.demo.repository;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.model.entity.Product;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+/** PRODUCT over blocking JDBC, for {@code persistence.mode=jdbc}. */
+@Repository
+@ConditionalOnProperty(name = "persistence.mode", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class JdbcProductRepository {
+
+  private static final String INSERT_SQL =
+      "INSERT INTO PRODUCT (name, price, stock, version) VALUES (?, ?, ?, 0)";
+
+  private static final RowMapper<Product> PRODUCT_MAPPER = (rs, rowNum) -> Product.builder()
+      .id(rs.getLong("id")).name(rs.getString("name")).price(rs.getBigDecimal("price"))
+      .stock(rs.getInt("stock")).version(rs.getLong("version")).build();
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+
+  public Optional<Product> findById(Long id) {
+    return jdbcTemplate.query("SELECT * FROM PRODUCT WHERE id = :id", Map.of("id", id),
+        PRODUCT_MAPPER).stream().findFirst();
+  }
+
+  public List<Product> findByIdIn(Collection<Long> ids) {
+    return jdbcTemplate.query("SELECT * FROM PRODUCT WHERE id IN (:ids)", Map.of("ids", ids),
+        PRODUCT_MAPPER);
+  }
+
+  /** Locks the rows in id order, like {@link ProductRepository#findByIdInForUpdate}. */
+  public List<Product> findByIdInForUpdate(Collection<Long> ids) {
+    return jdbcTemplate.query("SELECT * FROM PRODUCT WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+        Map.of("ids", ids), PRODUCT_MAPPER);
+  }
+
+  public List<Product> findPage(Long afterId, int limit) {
+    return jdbcTemplate.query("SELECT * FROM PRODUCT WHERE id > :afterId ORDER BY id LIMIT :limit",
+        Map.of("afterId", afterId, "limit", limit), PRODUCT_MAPPER);
+  }
+
+  /** Inserts the product with version 0 and sets its generated id. */
+  public Product insert(Product product) {
+    KeyHolder keyHolder = new GeneratedKeyHolder();
+    jdbcTemplate.getJdbcTemplate().update(connection -> {
+      PreparedStatement statement = connection.prepareStatement(INSERT_SQL, new String[] {"id"});
+      statement.setString(1, product.getName());
+      statement.setBigDecimal(2, product.getPrice());
+      statement.setInt(3, product.getStock());
+      return statement;
+    }, keyHolder);
+    product.setId(keyHolder.getKeyAs(Number.class).longValue());
+    product.setVersion(0L);
+    return product;
+  }
+
+  /** Writes name, price and stock if the version still matches; bumps the version on success. */
+  public boolean update(Product product) {
+    int updated = jdbcTemplate.update("UPDATE PRODUCT SET name = :name, price = :price, "
+            + "stock = :stock, version = version + 1 WHERE id = :id AND version = :version",
+        Map.of("name", product.getName(), "price", product.getPrice(), "stock", product.getStock(),
+            "id", product.getId(), "version", product.getVersion()));
+    if (updated == 1) {
+      product.setVersion(product.getVersion() + 1);
+    }
+    return updated == 1;
+  }
+
+  public boolean deleteById(Long id) {
+    return jdbcTemplate.update("DELETE FROM PRODUCT WHERE id = :id", Map.of("id", id)) == 1;
+  }
+
+  /**
+   * Same contract as {@link ProductRepositoryCustom#reserveStock}: one JDBC batch, returns the ids
+   * whose conditional decrement matched no row. Relies on per-statement update counts, so the
+   * MySQL URL must not set {@code rewriteBatchedStatements}.
+   */
+  public List<Long> reserveStock(Map<Long, Integer> quantityPerProduct) {
+    if (quantityPerProduct.isEmpty()) {
+      return List.of();
+    }
+    List<Long> productIds = new ArrayList<>(quantityPerProduct.keySet());
+    // Bloqueos de fila siempre en orden de id: dos reservas con varios productos en común no
+    // pueden esperarse en orden cruzado (deadlock en MySQL)
+    Collections.sort(productIds);
+    int[] counts = jdbcTemplate.getJdbcTemplate().batchUpdate(
+        ProductRepositoryCustomImpl.RESERVE_STOCK_SQL, productIds.stream()
+            .map(productId -> new Object[] {quantityPerProduct.get(productId), productId,
+                quantityPerProduct.get(productId)})
+            .toList());
+    List<Long> rejectedIds = new ArrayList<>();
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] == 0) {
+        rejectedIds.add(productIds.get(i));
+      }
+    }
+    return rejectedIds;
+  }
+
+  /** Same upsert as {@link ProductRepositoryCustom#upsertAll}, sent as one JDBC batch. */
+  public void upsertAll(List<Product> products) {
+    if (products.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.getJdbcTemplate().batchUpdate(ProductRepositoryCustomImpl.UPSERT_PREFIX
+            + ProductRepositoryCustomImpl.UPSERT_ROW_PLACEHOLDERS
+            + ProductRepositoryCustomImpl.UPSERT_SUFFIX,
+        products.stream()
+            .map(product -> new Object[] {product.getId(), product.getName(), product.getPrice(),
+                product.getStock()})
+            .toList());
+  }
+}
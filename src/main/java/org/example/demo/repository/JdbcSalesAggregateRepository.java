@@ -0,0 +1,61 @@
+package org.example.demo.repository;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.model.response.DailySales;
+import org.example.demo.model.response.ProductSales;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Additive writes to SALES_DAILY, PRODUCT_SALES and STOCK_BUCKET over blocking JDBC, behind the
+ * same SALES_AGGREGATE_GATE rows as the reactive writers.
+ */
+@Repository
+@ConditionalOnProperty(name = "persistence.mode", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class JdbcSalesAggregateRepository {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /** Same as {@link SalesAggregateRepository#lockGate}. */
+  public void lockGate(int slot) {
+    jdbcTemplate.queryForList(SalesAggregateRepository.LOCK_GATE_SQL, Integer.class, slot);
+  }
+
+  public void addDailySales(int slot, List<DailySales> deltas) {
+    if (deltas.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.batchUpdate(SalesAggregateRepository.ADD_DAILY_SQL, deltas.stream()
+        .map(delta -> new Object[] {delta.getDate(), slot, delta.getOrdersCount(),
+            delta.getTotalGross(), delta.getTotalFinal()})
+        .toList());
+  }
+
+  public void addProductSales(List<ProductSales> deltas) {
+    if (deltas.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.batchUpdate(SalesAggregateRepository.ADD_PRODUCT_SQL, deltas.stream()
+        .map(delta -> new Object[] {delta.getProductId(), delta.getQuantitySold(),
+            delta.getGrossAmount()})
+        .toList());
+  }
+
+  /** Same as {@link SalesAggregateRepository#addStockBuckets}, in ascending order of range. */
+  public void addStockBuckets(Map<Integer, Long> deltas) {
+    if (deltas.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.batchUpdate(SalesAggregateRepository.ADD_STOCK_BUCKET_SQL, deltas.entrySet()
+        .stream()
+        .map(delta -> new Object[] {delta.getKey(), delta.getValue()})
+        .toList());
+  }
+}
@@ -0,0 +1,33 @@
+package org.example.demo.repository;
+
+import java.util.List;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.model.response.ProductSales;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Appends STOCK_LEDGER_JOURNAL rows over blocking JDBC, for {@code persistence.mode=jdbc}. The
+ * ledger flushes them through R2DBC as for rows written by the reactive services.
+ */
+@Repository
+@ConditionalOnProperty(name = "persistence.mode", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class JdbcStockLedgerJournalRepository {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public void appendAll(List<ProductSales> sales) {
+    if (sales.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.batchUpdate(StockLedgerJournalRepository.APPEND_SQL, sales.stream()
+        .map(sold -> new Object[] {sold.getProductId(), (int) sold.getQuantitySold(),
+            sold.getGrossAmount()})
+        .toList());
+  }
+}
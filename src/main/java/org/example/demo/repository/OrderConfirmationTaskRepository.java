@@ -0,0 +1,34 @@
+package org.example.demo.repository;
+
+import java.time.LocalDateTime;
+
+import org.example.demo.model.entity.OrderConfirmationTask;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface OrderConfirmationTaskRepository
+    extends R2dbcRepository<OrderConfirmationTask, Long>, OrderConfirmationTaskRepositoryCustom {
+
+  /** Marks up to {@code limit} of the oldest queued tasks as taken by {@code claimToken}. */
+  @Modifying
+  @Query("UPDATE ORDER_CONFIRMATION_QUEUE SET status = 'PROCESSING', claim_token = :claimToken, "
+      + "updated_at = :now WHERE status = 'QUEUED' ORDER BY id LIMIT :limit")
+  Mono<Integer> claim(String claimToken, LocalDateTime now, int limit);
+
+  Flux<OrderConfirmationTask> findByClaimToken(String claimToken);
+
+  /** Puts back tasks whose worker died before completing them. */
+  @Modifying
+  @Query("UPDATE ORDER_CONFIRMATION_QUEUE SET status = 'QUEUED', claim_token = NULL, "
+      + "updated_at = :now WHERE status = 'PROCESSING' AND updated_at < :cutoff")
+  Mono<Integer> requeueStale(LocalDateTime cutoff, LocalDateTime now);
+
+  @Query("SELECT * FROM ORDER_CONFIRMATION_QUEUE WHERE orders_id = :ordersId ORDER BY id DESC "
+      + "LIMIT 1")
+  Mono<OrderConfirmationTask> findLatestByOrdersId(Long ordersId);
+}
@@ -0,0 +1,17 @@
+package org.example.demo.repository;
+
+import java.util.List;
+
+import org.example.demo.model.entity.OrderConfirmationTask;
+
+import reactor.core.publisher.Mono;
+
+public interface OrderConfirmationTaskRepositoryCustom {
+
+  /**
+   * Writes the final status and error of every task in one batched statement. Only tasks still
+   * held by their {@code claimToken} are updated: one requeued as stale and claimed again belongs
+   * to the new claim.
+   */
+  Mono<Long> completeAll(List<OrderConfirmationTask> tasks);
+}
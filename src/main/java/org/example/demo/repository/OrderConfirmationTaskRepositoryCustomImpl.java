@@ -0,0 +1,50 @@
+package org.example.demo.repository;
+
+import java.util.List;
+
+import io.r2dbc.spi.Statement;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.model.entity.OrderConfirmationTask;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class OrderConfirmationTaskRepositoryCustomImpl
+    implements OrderConfirmationTaskRepositoryCustom {
+
+  private static final String COMPLETE_SQL = "UPDATE ORDER_CONFIRMATION_QUEUE SET status = ?, "
+      + "error = ?, claim_token = NULL, updated_at = ? "
+      + "WHERE id = ? AND claim_token = ?";
+
+  private final DatabaseClient databaseClient;
+
+  @Override
+  public Mono<Long> completeAll(List<OrderConfirmationTask> tasks) {
+    if (tasks.isEmpty()) {
+      return Mono.just(0L);
+    }
+    return databaseClient.inConnectionMany(connection -> {
+      Statement statement = connection.createStatement(COMPLETE_SQL);
+      for (int i = 0; i < tasks.size(); i++) {
+        if (i > 0) {
+          statement.add();
+        }
+        OrderConfirmationTask task = tasks.get(i);
+        statement.bind(0, task.getStatus());
+        if (task.getError() == null) {
+          statement.bindNull(1, String.class);
+        } else {
+          statement.bind(1, task.getError());
+        }
+        statement.bind(2, task.getUpdatedAt()).bind(3, task.getId())
+            .bind(4, task.getClaimToken());
+      }
+      return Flux.from(statement.execute()).concatMap(result -> Mono.from(result.getRowsUpdated()));
+    }).reduce(0L, Long::sum);
+  }
+}
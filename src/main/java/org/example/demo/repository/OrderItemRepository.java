@@ -1,14 +1,19 @@
 package org.example.demo.repository;
 
+import java.util.Collection;
+
 import org.example.demo.model.entity.OrderItem;
 
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
-import org.springframework.stereotype.Repository;
+import org.springframework.data.repository.NoRepositoryBean;
 
 import reactor.core.publisher.Flux;
 
-@Repository
-public interface OrderItemRepository extends R2dbcRepository<OrderItem, Long> {
+/** ORDERS_ITEM on one shard, next to the orders; see {@link OrderRepository}. */
+@NoRepositoryBean
+public interface OrderItemRepository extends R2dbcRepository<OrderItem, Long>, OrderItemRepositoryCustom {
   Flux<OrderItem> findByOrdersId(Long orderId);
 
+  Flux<OrderItem> findByOrdersIdIn(Collection<Long> orderIds);
+
 }
@@ -0,0 +1,20 @@
+package org.example.demo.repository;
+
+import java.util.List;
+
+import org.example.demo.model.entity.OrderItem;
+import org.example.demo.model.response.ProductSales;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface OrderItemRepositoryCustom {
+  /**
+   * Inserts all items with multi-row INSERT statements instead of one statement per item.
+   * Generated IDs are not read back. Returns the number of inserted rows.
+   */
+  Mono<Long> insertAll(List<OrderItem> items);
+
+  /** Units and value sold per product over the CONFIRMADO orders. */
+  Flux<ProductSales> sumConfirmedByProduct();
+}
@@ -0,0 +1,77 @@
+package org.example.demo.repository;
+
+import java.util.List;
+
+import io.r2dbc.spi.Statement;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.model.entity.OrderItem;
+import org.example.demo.model.response.ProductSales;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class OrderItemRepositoryCustomImpl implements OrderItemRepositoryCustom {
+
+  static final String INSERT_PREFIX =
+      "INSERT INTO ORDERS_ITEM (orders_id, product_id, quantity, unit_price) VALUES ";
+  static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?)";
+  private static final int PARAMS_PER_ROW = 4;
+
+  /** Rows per statement; keeps each packet and the bind count well under the server limits. */
+  private static final int ROWS_PER_STATEMENT = 1000;
+
+  private final DatabaseClient databaseClient;
+
+  @Override
+  public Mono<Long> insertAll(List<OrderItem> items) {
+    if (items.isEmpty()) {
+      return Mono.just(0L);
+    }
+    return databaseClient.inConnectionMany(connection -> Flux
+        .range(0, (items.size() + ROWS_PER_STATEMENT - 1) / ROWS_PER_STATEMENT)
+        .concatMap(chunk -> {
+          List<OrderItem> rows = items.subList(chunk * ROWS_PER_STATEMENT,
+              Math.min(items.size(), (chunk + 1) * ROWS_PER_STATEMENT));
+          Statement statement = connection.createStatement(insertSql(rows.size()));
+          for (int i = 0; i < rows.size(); i++) {
+            OrderItem item = rows.get(i);
+            int offset = i * PARAMS_PER_ROW;
+            statement.bind(offset, item.getOrdersId())
+                .bind(offset + 1, item.getProductId())
+                .bind(offset + 2, item.getQuantity())
+                .bind(offset + 3, item.getUnitPrice());
+          }
+          return Flux.from(statement.execute())
+              .concatMap(result -> Mono.from(result.getRowsUpdated()));
+        }))
+        .reduce(0L, Long::sum);
+  }
+
+  @Override
+  public Flux<ProductSales> sumConfirmedByProduct() {
+    return databaseClient.sql("SELECT i.product_id, SUM(i.quantity) AS quantity_sold, "
+            + "SUM(i.quantity * i.unit_price) AS gross_amount FROM ORDERS_ITEM i "
+            + "JOIN ORDERS o ON o.id = i.orders_id WHERE o.state = 'CONFIRMADO' "
+            + "GROUP BY i.product_id")
+        .map((row, metadata) -> SalesAggregateRepository.toProductSales(row))
+        .all();
+  }
+
+  private static String insertSql(int rows) {
+    StringBuilder sql = new StringBuilder(
+        INSERT_PREFIX.length() + rows * (ROW_PLACEHOLDERS.length() + 2));
+    sql.append(INSERT_PREFIX);
+    for (int i = 0; i < rows; i++) {
+      if (i > 0) {
+        sql.append(", ");
+      }
+      sql.append(ROW_PLACEHOLDERS);
+    }
+    return sql.toString();
+  }
+}
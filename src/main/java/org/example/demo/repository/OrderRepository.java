@@ -2,9 +2,18 @@ package org.example.demo.repository;
 
 import org.example.demo.model.entity.Order;
 
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
-import org.springframework.stereotype.Repository;
+import org.springframework.data.repository.NoRepositoryBean;
 
-@Repository
-public interface OrderRepository extends R2dbcRepository<Order, Long> {
+import reactor.core.publisher.Flux;
+
+/**
+ * ORDERS on one shard. Not a bean: {@link org.example.demo.repository.shard.OrderShards} creates
+ * one per shard and services go through {@link ShardedOrderRepository}.
+ */
+@NoRepositoryBean
+public interface OrderRepository extends R2dbcRepository<Order, Long>, OrderRepositoryCustom {
+  @Query("SELECT * FROM ORDERS WHERE id > :afterId ORDER BY id LIMIT :limit")
+  Flux<Order> findPage(Long afterId, int limit);
 }
@@ -0,0 +1,20 @@
+package org.example.demo.repository;
+
+import java.util.List;
+
+import org.example.demo.model.entity.Order;
+import org.example.demo.model.response.DailySales;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface OrderRepositoryCustom {
+  /**
+   * Writes totals and state of already priced PENDIENTE orders in a single batched statement.
+   * Returns the IDs that were no longer pending and therefore not updated.
+   */
+  Mono<List<Long>> confirmAll(List<Order> orders);
+
+  /** Totals of the CONFIRMADO orders per order date. */
+  Flux<DailySales> sumConfirmedByDate();
+}
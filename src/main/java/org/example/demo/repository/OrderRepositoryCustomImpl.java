@@ -0,0 +1,60 @@
+package org.example.demo.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import io.r2dbc.spi.Statement;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.model.entity.Order;
+import org.example.demo.model.response.DailySales;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+  static final String CONFIRM_SQL = "UPDATE ORDERS SET total_gross = ?, total_final = ?, "
+      + "state = ? WHERE id = ? AND state = 'PENDIENTE'";
+
+  private final DatabaseClient databaseClient;
+
+  @Override
+  public Mono<List<Long>> confirmAll(List<Order> orders) {
+    if (orders.isEmpty()) {
+      return Mono.just(List.of());
+    }
+    return databaseClient.inConnectionMany(connection -> {
+      Statement statement = connection.createStatement(CONFIRM_SQL);
+      for (int i = 0; i < orders.size(); i++) {
+        if (i > 0) {
+          statement.add();
+        }
+        Order order = orders.get(i);
+        statement.bind(0, order.getTotalGross()).bind(1, order.getTotalFinal())
+            .bind(2, order.getState()).bind(3, order.getId());
+      }
+      return Flux.from(statement.execute()).concatMap(result -> Mono.from(result.getRowsUpdated()));
+    }).index().filter(indexed -> indexed.getT2() == 0L)
+        .map(indexed -> orders.get(indexed.getT1().intValue()).getId()).collectList();
+  }
+
+  @Override
+  public Flux<DailySales> sumConfirmedByDate() {
+    return databaseClient.sql("SELECT CAST(date AS DATE) AS sales_date, COUNT(*) AS orders_count, "
+            + "COALESCE(SUM(total_gross), 0) AS total_gross, "
+            + "COALESCE(SUM(total_final), 0) AS total_final FROM ORDERS "
+            + "WHERE state = 'CONFIRMADO' GROUP BY CAST(date AS DATE)")
+        .map((row, metadata) -> DailySales.builder()
+            .date(row.get("sales_date", LocalDate.class))
+            .ordersCount(SalesAggregateRepository.longValue(row, "orders_count"))
+            .totalGross(row.get("total_gross", BigDecimal.class))
+            .totalFinal(row.get("total_final", BigDecimal.class)).build())
+        .all();
+  }
+}
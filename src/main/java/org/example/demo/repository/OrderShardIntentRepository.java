@@ -0,0 +1,95 @@
+package org.example.demo.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Statement;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.model.entity.OrderShardIntent;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/** ORDER_SHARD_INTENT, on the main database: order work the order's shard may not have. */
+@Repository
+@RequiredArgsConstructor
+public class OrderShardIntentRepository {
+
+  static final String INSERT_SQL = "INSERT INTO ORDER_SHARD_INTENT "
+      + "(orders_id, kind, total_gross, total_final, created_at) VALUES (?, ?, ?, ?, ?)";
+
+  private static final String COLUMNS = "orders_id, kind, total_gross, total_final, created_at";
+
+  private final DatabaseClient databaseClient;
+
+  /** All rows in one batched statement, within the caller's transaction. */
+  public Mono<Long> insertAll(List<OrderShardIntent> intents) {
+    if (intents.isEmpty()) {
+      return Mono.just(0L);
+    }
+    return databaseClient.inConnectionMany(connection -> {
+      Statement statement = connection.createStatement(INSERT_SQL);
+      for (int i = 0; i < intents.size(); i++) {
+        if (i > 0) {
+          statement.add();
+        }
+        OrderShardIntent intent = intents.get(i);
+        statement.bind(0, intent.getOrdersId()).bind(1, intent.getKind());
+        if (intent.getTotalGross() == null) {
+          statement.bindNull(2, BigDecimal.class).bindNull(3, BigDecimal.class);
+        } else {
+          statement.bind(2, intent.getTotalGross()).bind(3, intent.getTotalFinal());
+        }
+        statement.bind(4, intent.getCreatedAt());
+      }
+      return Flux.from(statement.execute()).concatMap(result -> Mono.from(result.getRowsUpdated()));
+    }).reduce(0L, Long::sum);
+  }
+
+  public Flux<OrderShardIntent> findByKindAndOrdersIdIn(String kind, Collection<Long> orderIds) {
+    return databaseClient.sql("SELECT " + COLUMNS + " FROM ORDER_SHARD_INTENT "
+            + "WHERE kind = :kind AND orders_id IN (:orderIds)")
+        .bind("kind", kind).bind("orderIds", orderIds)
+        .map((row, metadata) -> intent(row)).all();
+  }
+
+  public Flux<OrderShardIntent> findByKind(String kind) {
+    return databaseClient.sql("SELECT " + COLUMNS + " FROM ORDER_SHARD_INTENT WHERE kind = :kind")
+        .bind("kind", kind)
+        .map((row, metadata) -> intent(row)).all();
+  }
+
+  /** Oldest first, of those created before {@code before}. */
+  public Flux<OrderShardIntent> findCreatedBefore(LocalDateTime before, int limit) {
+    return databaseClient.sql("SELECT " + COLUMNS + " FROM ORDER_SHARD_INTENT "
+            + "WHERE created_at < :before ORDER BY created_at LIMIT :limit")
+        .bind("before", before).bind("limit", limit)
+        .map((row, metadata) -> intent(row)).all();
+  }
+
+  public Mono<Long> deleteByKindAndOrdersIdIn(String kind, Collection<Long> orderIds) {
+    if (orderIds.isEmpty()) {
+      return Mono.just(0L);
+    }
+    return databaseClient.sql("DELETE FROM ORDER_SHARD_INTENT "
+            + "WHERE kind = :kind AND orders_id IN (:orderIds)")
+        .bind("kind", kind).bind("orderIds", orderIds).fetch().rowsUpdated();
+  }
+
+  private static OrderShardIntent intent(Row row) {
+    return OrderShardIntent.builder()
+        .ordersId(row.get("orders_id", Long.class))
+        .kind(row.get("kind", String.class))
+        .totalGross(row.get("total_gross", BigDecimal.class))
+        .totalFinal(row.get("total_final", BigDecimal.class))
+        .createdAt(row.get("created_at", LocalDateTime.class)).build();
+  }
+}
@@ -0,0 +1,47 @@
+package org.example.demo.repository;
+
+import java.time.LocalDateTime;
+
+import org.example.demo.model.entity.OutboxEvent;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface OutboxEventRepository
+    extends R2dbcRepository<OutboxEvent, Long>, OutboxEventRepositoryCustom {
+
+  /** Events without an offset, except those of orders an ORDER_SHARD_INTENT row holds back. */
+  @Query("SELECT * FROM OUTBOX_EVENT e WHERE e.stream_offset IS NULL AND NOT EXISTS ("
+      + "SELECT 1 FROM ORDER_SHARD_INTENT i "
+      + "WHERE e.aggregate_type = 'ORDER' AND i.orders_id = e.aggregate_id) "
+      + "ORDER BY e.id LIMIT :limit")
+  Flux<OutboxEvent> findUnrelayed(int limit);
+
+  /** Events of an order that was never created; only rows still waiting for the relay. */
+  @Modifying
+  @Query("DELETE FROM OUTBOX_EVENT WHERE stream_offset IS NULL "
+      + "AND aggregate_type = 'ORDER' AND aggregate_id = :orderId")
+  Mono<Integer> deleteUnrelayedOfOrder(Long orderId);
+
+  /** Last offset handed out; kept in its own row so purging old events never lowers it. */
+  @Query("SELECT last_offset FROM OUTBOX_STREAM_OFFSET WHERE id = 1")
+  Mono<Long> findLastOffset();
+
+  /** Moves the last offset from {@code previous} to {@code last}; 0 rows if another relay did. */
+  @Modifying
+  @Query("UPDATE OUTBOX_STREAM_OFFSET SET last_offset = :last "
+      + "WHERE id = 1 AND last_offset = :previous")
+  Mono<Integer> advanceLastOffset(long previous, long last);
+
+  @Query("SELECT * FROM OUTBOX_EVENT WHERE stream_offset > :afterOffset ORDER BY stream_offset "
+      + "LIMIT :limit")
+  Flux<OutboxEvent> findAfterOffset(long afterOffset, int limit);
+
+  @Modifying
+  @Query("DELETE FROM OUTBOX_EVENT WHERE stream_offset IS NOT NULL AND created_at < :cutoff")
+  Mono<Integer> deleteRelayedBefore(LocalDateTime cutoff);
+}
@@ -0,0 +1,19 @@
+package org.example.demo.repository;
+
+import java.util.List;
+
+import org.example.demo.model.entity.OutboxEvent;
+
+import reactor.core.publisher.Mono;
+
+public interface OutboxEventRepositoryCustom {
+
+  /** Inserts the events with multi-row INSERTs. Returns the number of rows inserted. */
+  Mono<Long> appendAll(List<OutboxEvent> events);
+
+  /**
+   * Stores the {@code streamOffset} of each event, only on rows that have none yet. Returns the
+   * number of rows updated; fewer than {@code events.size()} means another relay got there first.
+   */
+  Mono<Long> assignOffsets(List<OutboxEvent> events);
+}
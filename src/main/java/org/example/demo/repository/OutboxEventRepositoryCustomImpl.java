@@ -0,0 +1,92 @@
+package org.example.demo.repository;
+
+import java.util.List;
+
+import io.r2dbc.spi.Statement;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.model.entity.OutboxEvent;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class OutboxEventRepositoryCustomImpl implements OutboxEventRepositoryCustom {
+
+  static final String INSERT_PREFIX = "INSERT INTO OUTBOX_EVENT "
+      + "(aggregate_type, aggregate_id, event_type, payload, created_at) VALUES ";
+  static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?)";
+  private static final int PARAMS_PER_ROW = 5;
+
+  /** Rows per statement; payloads are larger than order items, so fewer rows per packet. */
+  private static final int ROWS_PER_STATEMENT = 200;
+
+  private static final String ASSIGN_OFFSET_SQL =
+      "UPDATE OUTBOX_EVENT SET stream_offset = ? WHERE id = ? AND stream_offset IS NULL";
+
+  private final DatabaseClient databaseClient;
+
+  @Override
+  public Mono<Long> appendAll(List<OutboxEvent> events) {
+    if (events.isEmpty()) {
+      return Mono.just(0L);
+    }
+    return databaseClient.inConnectionMany(connection -> Flux
+        .range(0, (events.size() + ROWS_PER_STATEMENT - 1) / ROWS_PER_STATEMENT)
+        .concatMap(chunk -> {
+          List<OutboxEvent> rows = events.subList(chunk * ROWS_PER_STATEMENT,
+              Math.min(events.size(), (chunk + 1) * ROWS_PER_STATEMENT));
+          Statement statement = connection.createStatement(insertSql(rows.size()));
+          for (int i = 0; i < rows.size(); i++) {
+            OutboxEvent event = rows.get(i);
+            int offset = i * PARAMS_PER_ROW;
+            statement.bind(offset, event.getAggregateType());
+            if (event.getAggregateId() == null) {
+              statement.bindNull(offset + 1, Long.class);
+            } else {
+              statement.bind(offset + 1, event.getAggregateId());
+            }
+            statement.bind(offset + 2, event.getEventType())
+                .bind(offset + 3, event.getPayload())
+                .bind(offset + 4, event.getCreatedAt());
+          }
+          return Flux.from(statement.execute())
+              .concatMap(result -> Mono.from(result.getRowsUpdated()));
+        }))
+        .reduce(0L, Long::sum);
+  }
+
+  @Override
+  public Mono<Long> assignOffsets(List<OutboxEvent> events) {
+    if (events.isEmpty()) {
+      return Mono.just(0L);
+    }
+    return databaseClient.inConnectionMany(connection -> {
+      Statement statement = connection.createStatement(ASSIGN_OFFSET_SQL);
+      for (int i = 0; i < events.size(); i++) {
+        if (i > 0) {
+          statement.add();
+        }
+        OutboxEvent event = events.get(i);
+        statement.bind(0, event.getStreamOffset()).bind(1, event.getId());
+      }
+      return Flux.from(statement.execute()).concatMap(result -> Mono.from(result.getRowsUpdated()));
+    }).reduce(0L, Long::sum);
+  }
+
+  private static String insertSql(int rows) {
+    StringBuilder sql = new StringBuilder(
+        INSERT_PREFIX.length() + rows * (ROW_PLACEHOLDERS.length() + 2));
+    sql.append(INSERT_PREFIX);
+    for (int i = 0; i < rows; i++) {
+      if (i > 0) {
+        sql.append(", ");
+      }
+      sql.append(ROW_PLACEHOLDERS);
+    }
+    return sql.toString();
+  }
+}
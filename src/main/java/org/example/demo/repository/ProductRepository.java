@@ -6,13 +6,18 @@ import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
 import java.util.Collection;
 
-public interface ProductRepository extends R2dbcRepository<Product, Long> {
-    @Query("UPDATE PRODUCT SET stock = :newStock, version = version + 1 WHERE id = :id AND version = :expectedVersion")
-    Mono<Integer> updateStockOptimistic(Long id, Integer newStock, Long expectedVersion);
-
+public interface ProductRepository extends R2dbcRepository<Product, Long>, ProductRepositoryCustom {
   Flux<Product> findByIdIn(Collection<Long> id);
+
+  @Query("SELECT * FROM PRODUCT WHERE id IN (:ids) ORDER BY id FOR UPDATE")
+  Flux<Product> findByIdInForUpdate(Collection<Long> ids);
+
+  @Query("SELECT * FROM PRODUCT WHERE id > :afterId ORDER BY id LIMIT :limit")
+  Flux<Product> findPage(Long afterId, int limit);
+
+  @Query("SELECT * FROM PRODUCT WHERE stock <= :threshold ORDER BY stock, id LIMIT :limit")
+  Flux<Product> findLowStock(int threshold, int limit);
 }
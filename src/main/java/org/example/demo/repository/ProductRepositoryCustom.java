@@ -0,0 +1,23 @@
+package org.example.demo.repository;
+
+import java.util.List;
+import java.util.Map;
+
+import org.example.demo.model.entity.Product;
+
+import reactor.core.publisher.Mono;
+
+public interface ProductRepositoryCustom {
+  /**
+   * Decrements the stock of every product in a single batched statement, only where enough stock
+   * is left. Returns the IDs whose row could not be updated (missing product or insufficient stock).
+   * Rows are updated in id order, the same order {@code findByIdInForUpdate} locks them in.
+   */
+  Mono<List<Long>> reserveStock(Map<Long, Integer> quantityPerProduct);
+
+  /**
+   * Inserts or updates all products with one multi-row INSERT ... ON DUPLICATE KEY UPDATE.
+   * Products without id are inserted. Returns the affected-row count reported by the server.
+   */
+  Mono<Long> upsertAll(List<Product> products);
+}
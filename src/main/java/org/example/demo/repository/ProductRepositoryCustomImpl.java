@@ -0,0 +1,90 @@
+package org.example.demo.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import io.r2dbc.spi.Statement;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.model.entity.Product;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+  static final String RESERVE_STOCK_SQL =
+      "UPDATE PRODUCT SET stock = stock - ?, version = version + 1 WHERE id = ? AND stock >= ?";
+
+  static final String UPSERT_PREFIX = "INSERT INTO PRODUCT (id, name, price, stock) VALUES ";
+  static final String UPSERT_ROW_PLACEHOLDERS = "(?, ?, ?, ?)";
+  static final String UPSERT_SUFFIX = " ON DUPLICATE KEY UPDATE name = VALUES(name), "
+      + "price = VALUES(price), stock = VALUES(stock), version = version + 1";
+
+  private final DatabaseClient databaseClient;
+
+  @Override
+  public Mono<List<Long>> reserveStock(Map<Long, Integer> quantityPerProduct) {
+    if (quantityPerProduct.isEmpty()) {
+      return Mono.just(List.of());
+    }
+    List<Long> productIds = new ArrayList<>(quantityPerProduct.keySet());
+    // Bloqueos de fila siempre en orden de id: dos reservas con varios productos en común no
+    // pueden esperarse en orden cruzado (deadlock en MySQL)
+    Collections.sort(productIds);
+
+    // Una sola sentencia con un binding por producto: el driver la envía en un único lote
+    // y devuelve un Result (con su conteo de filas) por cada binding, en el mismo orden.
+    return databaseClient.inConnectionMany(connection -> {
+      Statement statement = connection.createStatement(RESERVE_STOCK_SQL);
+      for (int i = 0; i < productIds.size(); i++) {
+        if (i > 0) {
+          statement.add();
+        }
+        Long productId = productIds.get(i);
+        Integer quantity = quantityPerProduct.get(productId);
+        statement.bind(0, quantity).bind(1, productId).bind(2, quantity);
+      }
+      return Flux.from(statement.execute()).concatMap(result -> Mono.from(result.getRowsUpdated()));
+    }).index().filter(indexed -> indexed.getT2() == 0L)
+        .map(indexed -> productIds.get(indexed.getT1().intValue())).collectList();
+  }
+
+  @Override
+  public Mono<Long> upsertAll(List<Product> products) {
+    if (products.isEmpty()) {
+      return Mono.just(0L);
+    }
+    StringBuilder sql = new StringBuilder(UPSERT_PREFIX);
+    for (int i = 0; i < products.size(); i++) {
+      if (i > 0) {
+        sql.append(", ");
+      }
+      sql.append(UPSERT_ROW_PLACEHOLDERS);
+    }
+    sql.append(UPSERT_SUFFIX);
+
+    return databaseClient.inConnection(connection -> {
+      Statement statement = connection.createStatement(sql.toString());
+      for (int i = 0; i < products.size(); i++) {
+        Product product = products.get(i);
+        int offset = i * 4;
+        if (product.getId() == null) {
+          statement.bindNull(offset, Long.class);
+        } else {
+          statement.bind(offset, product.getId());
+        }
+        statement.bind(offset + 1, product.getName()).bind(offset + 2, product.getPrice())
+            .bind(offset + 3, product.getStock());
+      }
+      return Flux.from(statement.execute()).concatMap(result -> Mono.from(result.getRowsUpdated()))
+          .reduce(0L, Long::sum);
+    });
+  }
+}
@@ -0,0 +1,224 @@
+package org.example.demo.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Statement;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.model.response.DailySales;
+import org.example.demo.model.response.ProductSales;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * SALES_DAILY and PRODUCT_SALES, additive summaries of confirmed orders, and STOCK_BUCKET, the
+ * number of products per stock range.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SalesAggregateRepository {
+
+  static final String ADD_DAILY_SQL = "INSERT INTO SALES_DAILY "
+      + "(sales_date, slot, orders_count, total_gross, total_final) VALUES (?, ?, ?, ?, ?) "
+      + "ON DUPLICATE KEY UPDATE orders_count = orders_count + VALUES(orders_count), "
+      + "total_gross = total_gross + VALUES(total_gross), "
+      + "total_final = total_final + VALUES(total_final)";
+
+  static final String ADD_PRODUCT_SQL = "INSERT INTO PRODUCT_SALES "
+      + "(product_id, quantity_sold, gross_amount) VALUES (?, ?, ?) "
+      + "ON DUPLICATE KEY UPDATE quantity_sold = quantity_sold + VALUES(quantity_sold), "
+      + "gross_amount = gross_amount + VALUES(gross_amount)";
+
+  static final String LOCK_GATE_SQL =
+      "SELECT slot FROM SALES_AGGREGATE_GATE WHERE slot = ? FOR UPDATE";
+
+  static final String ADD_GATE_SQL = "INSERT INTO SALES_AGGREGATE_GATE (slot) VALUES (?) "
+      + "ON DUPLICATE KEY UPDATE slot = slot";
+
+  static final String ADD_STOCK_BUCKET_SQL = "INSERT INTO STOCK_BUCKET (min_stock, products) "
+      + "VALUES (?, ?) ON DUPLICATE KEY UPDATE products = products + VALUES(products)";
+
+  private final DatabaseClient databaseClient;
+
+  /** Adds the per-date deltas to the given slot of each day. */
+  public Mono<Long> addDailySales(int slot, List<DailySales> deltas) {
+    if (deltas.isEmpty()) {
+      return Mono.just(0L);
+    }
+    return databaseClient.inConnectionMany(connection -> {
+      Statement statement = connection.createStatement(ADD_DAILY_SQL);
+      for (int i = 0; i < deltas.size(); i++) {
+        if (i > 0) {
+          statement.add();
+        }
+        DailySales delta = deltas.get(i);
+        statement.bind(0, delta.getDate()).bind(1, slot).bind(2, delta.getOrdersCount())
+            .bind(3, delta.getTotalGross()).bind(4, delta.getTotalFinal());
+      }
+      return Flux.from(statement.execute()).concatMap(result -> Mono.from(result.getRowsUpdated()));
+    }).reduce(0L, Long::sum);
+  }
+
+  public Mono<Long> addProductSales(List<ProductSales> deltas) {
+    if (deltas.isEmpty()) {
+      return Mono.just(0L);
+    }
+    return databaseClient.inConnectionMany(connection -> {
+      Statement statement = connection.createStatement(ADD_PRODUCT_SQL);
+      for (int i = 0; i < deltas.size(); i++) {
+        if (i > 0) {
+          statement.add();
+        }
+        ProductSales delta = deltas.get(i);
+        statement.bind(0, delta.getProductId()).bind(1, delta.getQuantitySold())
+            .bind(2, delta.getGrossAmount());
+      }
+      return Flux.from(statement.execute()).concatMap(result -> Mono.from(result.getRowsUpdated()));
+    }).reduce(0L, Long::sum);
+  }
+
+  public Flux<DailySales> findDailySales(LocalDate from, LocalDate to) {
+    return databaseClient.sql("SELECT sales_date, SUM(orders_count) AS orders_count, "
+            + "SUM(total_gross) AS total_gross, SUM(total_final) AS total_final FROM SALES_DAILY "
+            + "WHERE sales_date BETWEEN :from AND :to GROUP BY sales_date ORDER BY sales_date")
+        .bind("from", from).bind("to", to)
+        .map((row, metadata) -> DailySales.builder()
+            .date(row.get("sales_date", LocalDate.class))
+            .ordersCount(longValue(row, "orders_count"))
+            .totalGross(row.get("total_gross", BigDecimal.class))
+            .totalFinal(row.get("total_final", BigDecimal.class)).build())
+        .all();
+  }
+
+  public Flux<ProductSales> findTopProducts(int limit) {
+    return databaseClient.sql("SELECT product_id, quantity_sold, gross_amount FROM PRODUCT_SALES "
+            + "ORDER BY quantity_sold DESC, product_id DESC LIMIT :limit")
+        .bind("limit", limit)
+        .map((row, metadata) -> toProductSales(row))
+        .all();
+  }
+
+  public Mono<ProductSales> findProductSales(Long productId) {
+    return databaseClient.sql("SELECT product_id, quantity_sold, gross_amount FROM PRODUCT_SALES "
+            + "WHERE product_id = :productId")
+        .bind("productId", productId)
+        .map((row, metadata) -> toProductSales(row))
+        .one();
+  }
+
+  /**
+   * Adds the deltas to the count of each range, keyed by the range's minimum stock. Pass them in
+   * ascending order, so that concurrent writers lock the rows in the same order.
+   */
+  public Mono<Long> addStockBuckets(Map<Integer, Long> deltas) {
+    if (deltas.isEmpty()) {
+      return Mono.just(0L);
+    }
+    List<Map.Entry<Integer, Long>> rows = new ArrayList<>(deltas.entrySet());
+    return databaseClient.inConnectionMany(connection -> {
+      Statement statement = connection.createStatement(ADD_STOCK_BUCKET_SQL);
+      for (int i = 0; i < rows.size(); i++) {
+        if (i > 0) {
+          statement.add();
+        }
+        statement.bind(0, rows.get(i).getKey()).bind(1, rows.get(i).getValue());
+      }
+      return Flux.from(statement.execute()).concatMap(result -> Mono.from(result.getRowsUpdated()));
+    }).reduce(0L, Long::sum);
+  }
+
+  /** Product count per range, keyed by the range's minimum stock, in ascending order. */
+  public Mono<Map<Integer, Long>> findStockBuckets() {
+    return databaseClient.sql("SELECT min_stock, products FROM STOCK_BUCKET ORDER BY min_stock")
+        .map((row, metadata) -> Map.entry(row.get("min_stock", Integer.class),
+            longValue(row, "products")))
+        .all()
+        .collectMap(Map.Entry::getKey, Map.Entry::getValue, TreeMap::new);
+  }
+
+  /**
+   * Recounts STOCK_BUCKET from PRODUCT for ranges starting at {@code minStocks} (ascending, the
+   * first one 0). Locks every product row first, so stock writes wait for the recount instead of
+   * adjusting rows it is replacing. Must run in a transaction.
+   */
+  public Mono<Void> recountStockBuckets(List<Integer> minStocks) {
+    // CASE de mayor a menor: cada producto cae en el último rango cuyo mínimo alcanza
+    StringBuilder range = new StringBuilder("CASE");
+    for (int i = minStocks.size() - 1; i > 0; i--) {
+      range.append(" WHEN stock >= ").append(minStocks.get(i)).append(" THEN ")
+          .append(minStocks.get(i));
+    }
+    range.append(" ELSE ").append(minStocks.get(0)).append(" END");
+    Map<Integer, Long> counts = new TreeMap<>();
+    minStocks.forEach(minStock -> counts.put(minStock, 0L));
+    return databaseClient.sql("SELECT id FROM PRODUCT ORDER BY id FOR UPDATE")
+        .map((row, metadata) -> 1).all().then()
+        .then(databaseClient.sql("DELETE FROM STOCK_BUCKET").then())
+        .thenMany(databaseClient.sql("SELECT " + range + " AS min_stock, COUNT(*) AS products "
+                + "FROM PRODUCT GROUP BY " + range)
+            .map((row, metadata) -> Map.entry((int) longValue(row, "min_stock"),
+                longValue(row, "products")))
+            .all())
+        .doOnNext(count -> counts.put(count.getKey(), count.getValue()))
+        .then(Mono.defer(() -> addStockBuckets(counts)))
+        .then();
+  }
+
+  /** Creates the gate rows of slots 0 to {@code slots - 1} that are missing. */
+  public Mono<Long> addGates(int slots) {
+    return databaseClient.inConnectionMany(connection -> {
+      Statement statement = connection.createStatement(ADD_GATE_SQL);
+      for (int slot = 0; slot < slots; slot++) {
+        if (slot > 0) {
+          statement.add();
+        }
+        statement.bind(0, slot);
+      }
+      return Flux.from(statement.execute()).concatMap(result -> Mono.from(result.getRowsUpdated()));
+    }).reduce(0L, Long::sum);
+  }
+
+  /**
+   * Locks the gate of a slot until the transaction ends; writers of the summaries take one before
+   * adding to them.
+   */
+  public Mono<Void> lockGate(int slot) {
+    return databaseClient.sql(LOCK_GATE_SQL).bind(0, slot)
+        .fetch().all().then();
+  }
+
+  /** Locks every gate, in slot order, until the transaction ends: no writer adds meanwhile. */
+  public Mono<Void> lockAllGates() {
+    return databaseClient.sql("SELECT slot FROM SALES_AGGREGATE_GATE ORDER BY slot FOR UPDATE")
+        .fetch().all().then();
+  }
+
+  /** Empties both summaries, before adding totals recomputed from the orders. */
+  public Mono<Void> clear() {
+    return databaseClient.sql("DELETE FROM SALES_DAILY").then()
+        .then(databaseClient.sql("DELETE FROM PRODUCT_SALES").then());
+  }
+
+  static ProductSales toProductSales(Row row) {
+    return ProductSales.builder().productId(row.get("product_id", Long.class))
+        .quantitySold(longValue(row, "quantity_sold"))
+        .grossAmount(row.get("gross_amount", BigDecimal.class)).build();
+  }
+
+  // SUM/COUNT vuelven como BIGINT o DECIMAL según el motor
+  static long longValue(Row row, String column) {
+    Number value = row.get(column, Number.class);
+    return value == null ? 0L : value.longValue();
+  }
+}
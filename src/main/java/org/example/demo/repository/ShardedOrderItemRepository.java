@@ -0,0 +1,47 @@
+package org.example.demo.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.model.entity.OrderItem;
+import org.example.demo.model.response.ProductSales;
+import org.example.demo.repository.shard.OrderShard;
+import org.example.demo.repository.shard.OrderShards;
+
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/** ORDERS_ITEM across all shards; items are stored on the shard of their order. */
+@Repository
+@RequiredArgsConstructor
+public class ShardedOrderItemRepository {
+
+  private final OrderShards orderShards;
+
+  public Flux<OrderItem> findByOrdersId(Long orderId) {
+    OrderShard shard = orderShards.forOrder(orderId);
+    return shard == null ? Flux.empty() : shard.items().findByOrdersId(orderId);
+  }
+
+  public Flux<OrderItem> findByOrdersIdIn(Collection<Long> orderIds) {
+    return Flux.fromIterable(orderShards.groupByShard(orderIds, orderId -> orderId).entrySet())
+        .flatMap(entry -> entry.getKey().items().findByOrdersIdIn(entry.getValue()));
+  }
+
+  /** {@link OrderItemRepositoryCustom#insertAll} on each shard involved. */
+  public Mono<Long> insertAll(List<OrderItem> items) {
+    return Flux.fromIterable(orderShards.groupByShard(items, OrderItem::getOrdersId).entrySet())
+        .concatMap(entry -> entry.getKey().items().insertAll(entry.getValue()))
+        .reduce(0L, Long::sum);
+  }
+
+  /** Sales per product over confirmed orders, one row per product and shard. */
+  public Flux<ProductSales> sumConfirmedByProduct() {
+    return Flux.fromIterable(orderShards.all())
+        .concatMap(shard -> shard.items().sumConfirmedByProduct());
+  }
+}
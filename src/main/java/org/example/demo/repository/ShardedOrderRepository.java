@@ -0,0 +1,81 @@
+package org.example.demo.repository;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.model.entity.Order;
+import org.example.demo.model.response.DailySales;
+import org.example.demo.repository.shard.OrderShard;
+import org.example.demo.repository.shard.OrderShards;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * ORDERS across all shards. Lookups by id go to the order's shard only; listings query every shard
+ * and merge the id-ordered results as they stream in, so a page never holds more than one page per
+ * shard in memory.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ShardedOrderRepository {
+
+  private static final Comparator<Order> BY_ID = Comparator.comparing(Order::getId);
+
+  private final OrderShards orderShards;
+
+  public Mono<Order> findById(Long orderId) {
+    OrderShard shard = orderShards.forOrder(orderId);
+    return shard == null ? Mono.empty() : shard.orders().findById(orderId);
+  }
+
+  public Flux<Order> findAllById(Collection<Long> orderIds) {
+    return Flux.fromIterable(orderShards.groupByShard(orderIds, orderId -> orderId).entrySet())
+        .flatMap(entry -> entry.getKey().orders().findAllById(entry.getValue()));
+  }
+
+  /** Every order, in id order. */
+  public Flux<Order> findAll() {
+    return mergeById(shard -> shard.orders().findAll(Sort.by("id")));
+  }
+
+  public Flux<Order> findPage(Long afterId, int limit) {
+    return mergeById(shard -> shard.orders().findPage(afterId, limit)).take(limit, true);
+  }
+
+  /** Inserts a new order under the id it already carries. */
+  public Mono<Order> insert(Order order) {
+    return orderShards.forOrder(order.getId()).entityOperations().insert(order);
+  }
+
+  /** Updates an existing order. */
+  public Mono<Order> save(Order order) {
+    return orderShards.forOrder(order.getId()).orders().save(order);
+  }
+
+  /** {@link OrderRepositoryCustom#confirmAll} on each shard involved. */
+  public Mono<List<Long>> confirmAll(List<Order> orders) {
+    return Flux.fromIterable(orderShards.groupByShard(orders, Order::getId).entrySet())
+        .concatMap(entry -> entry.getKey().orders().confirmAll(entry.getValue()))
+        .flatMapIterable(notPendingIds -> notPendingIds).collectList();
+  }
+
+  /** Daily totals of confirmed orders, one row per date and shard. */
+  public Flux<DailySales> sumConfirmedByDate() {
+    return Flux.fromIterable(orderShards.all())
+        .concatMap(shard -> shard.orders().sumConfirmedByDate());
+  }
+
+  @SuppressWarnings("unchecked")
+  private Flux<Order> mergeById(Function<OrderShard, Flux<Order>> query) {
+    return Flux.mergeComparing(BY_ID,
+        orderShards.all().stream().map(query).toArray(Flux[]::new));
+  }
+}
@@ -0,0 +1,94 @@
+package org.example.demo.repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import io.r2dbc.spi.Statement;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.model.entity.StockLedgerJournalEntry;
+import org.example.demo.model.response.ProductSales;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/** STOCK_LEDGER_JOURNAL: ledger reservations committed but not yet written to PRODUCT.stock. */
+@Repository
+@RequiredArgsConstructor
+public class StockLedgerJournalRepository {
+
+  static final String APPEND_SQL =
+      "INSERT INTO STOCK_LEDGER_JOURNAL (product_id, quantity, gross_amount) VALUES (?, ?, ?)";
+
+  private final DatabaseClient databaseClient;
+
+  /**
+   * One row per product in one batched statement, within the confirmation's transaction. Rows
+   * carry the sales the flush adds to PRODUCT_SALES; {@code sales} must be sorted by product.
+   */
+  public Mono<Long> appendAll(List<ProductSales> sales) {
+    if (sales.isEmpty()) {
+      return Mono.just(0L);
+    }
+    return databaseClient.inConnectionMany(connection -> {
+      Statement statement = connection.createStatement(APPEND_SQL);
+      for (int i = 0; i < sales.size(); i++) {
+        if (i > 0) {
+          statement.add();
+        }
+        ProductSales sold = sales.get(i);
+        statement.bind(0, sold.getProductId()).bind(1, (int) sold.getQuantitySold())
+            .bind(2, sold.getGrossAmount());
+      }
+      return Flux.from(statement.execute()).concatMap(result -> Mono.from(result.getRowsUpdated()));
+    }).reduce(0L, Long::sum);
+  }
+
+  /** Oldest entries first, of every product or only of {@code productId} when not null. */
+  public Flux<StockLedgerJournalEntry> findOldest(Long productId, int limit) {
+    DatabaseClient.GenericExecuteSpec query = productId == null
+        ? databaseClient.sql("SELECT id, product_id, quantity, gross_amount "
+            + "FROM STOCK_LEDGER_JOURNAL ORDER BY id LIMIT :limit")
+        : databaseClient.sql("SELECT id, product_id, quantity, gross_amount "
+            + "FROM STOCK_LEDGER_JOURNAL "
+            + "WHERE product_id = :productId ORDER BY id LIMIT :limit")
+            .bind("productId", productId);
+    return query.bind("limit", limit)
+        .map((row, metadata) -> StockLedgerJournalEntry.builder()
+            .id(row.get("id", Long.class))
+            .productId(row.get("product_id", Long.class))
+            .quantity(row.get("quantity", Integer.class))
+            .grossAmount(row.get("gross_amount", BigDecimal.class)).build())
+        .all();
+  }
+
+  /** Sales in the journal that PRODUCT_SALES does not include yet, per product. */
+  public Flux<ProductSales> findUnflushedSales() {
+    return databaseClient.sql("SELECT product_id, SUM(quantity) AS quantity_sold, "
+            + "SUM(gross_amount) AS gross_amount FROM STOCK_LEDGER_JOURNAL "
+            + "GROUP BY product_id ORDER BY product_id")
+        .map((row, metadata) -> ProductSales.builder()
+            .productId(row.get("product_id", Long.class))
+            .quantitySold(row.get("quantity_sold", Number.class).longValue())
+            .grossAmount(row.get("gross_amount", BigDecimal.class)).build())
+        .all();
+  }
+
+  public Flux<Long> findProductIds() {
+    return databaseClient.sql("SELECT DISTINCT product_id FROM STOCK_LEDGER_JOURNAL")
+        .map((row, metadata) -> row.get("product_id", Long.class)).all();
+  }
+
+  /** Returns how many of the entries were still there to delete. */
+  public Mono<Long> deleteAllById(List<Long> ids) {
+    if (ids.isEmpty()) {
+      return Mono.just(0L);
+    }
+    return databaseClient.sql("DELETE FROM STOCK_LEDGER_JOURNAL WHERE id IN (:ids)")
+        .bind("ids", ids).fetch().rowsUpdated();
+  }
+}
@@ -0,0 +1,80 @@
+package org.example.demo.repository.shard;
+
+import java.time.Instant;
+
+/**
+ * Snowflake-style order ids, generated by the application instead of AUTO_INCREMENT so that any
+ * instance can create orders on any shard. From the most significant bit: milliseconds since
+ * {@link #EPOCH} (41 bits), shard (4), node (3) and a per-millisecond sequence (5). The total stays
+ * within 53 bits, so ids survive JSON clients that read numbers as doubles.
+ *
+ * <p>Ids grow with time, so ORDER BY id is still creation order within a node. When more than 32
+ * ids are requested in one millisecond the generator moves on to the next millisecond instead of
+ * waiting; the same happens if the clock goes backwards.
+ */
+public class OrderIdGenerator {
+
+  static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+  static final int SHARD_BITS = 4;
+  static final int NODE_BITS = 3;
+  static final int SEQUENCE_BITS = 5;
+
+  public static final int MAX_SHARDS = 1 << SHARD_BITS;
+  public static final int MAX_NODES = 1 << NODE_BITS;
+
+  private static final int SEQUENCE_LIMIT = 1 << SEQUENCE_BITS;
+
+  /**
+   * Ids below this value were assigned by AUTO_INCREMENT before sharding and live on shard 0.
+   * Generated ids are far above it: their timestamp alone exceeds it a few days after the epoch.
+   */
+  static final long LEGACY_ID_LIMIT = 1L << 40;
+
+  private final int shardCount;
+  private final int nodeId;
+
+  private long lastMillis = -1;
+  private int sequence;
+  private int nextShard;
+
+  public OrderIdGenerator(int shardCount, int nodeId) {
+    if (shardCount < 1 || shardCount > MAX_SHARDS) {
+      throw new IllegalArgumentException(
+          "Order shards must be between 1 and " + MAX_SHARDS + ": " + shardCount);
+    }
+    if (nodeId < 0 || nodeId >= MAX_NODES) {
+      throw new IllegalArgumentException(
+          "Order id node must be between 0 and " + (MAX_NODES - 1) + ": " + nodeId);
+    }
+    this.shardCount = shardCount;
+    this.nodeId = nodeId;
+  }
+
+  /** Next id; new orders are spread over the shards in turn. */
+  public synchronized long next() {
+    long now = System.currentTimeMillis() - EPOCH;
+    if (now > lastMillis) {
+      lastMillis = now;
+      sequence = 0;
+    } else if (++sequence == SEQUENCE_LIMIT) {
+      // Secuencia agotada o reloj hacia atrás: se toma el milisegundo siguiente sin esperar
+      lastMillis++;
+      sequence = 0;
+    }
+    int shard = nextShard;
+    nextShard = (nextShard + 1) % shardCount;
+    return (lastMillis << (SHARD_BITS + NODE_BITS + SEQUENCE_BITS))
+        | ((long) shard << (NODE_BITS + SEQUENCE_BITS))
+        | ((long) nodeId << SEQUENCE_BITS)
+        | sequence;
+  }
+
+  /** Shard an order id belongs to; may be beyond the configured shards for an unknown id. */
+  public static int shardOf(long orderId) {
+    if (orderId < LEGACY_ID_LIMIT) {
+      return 0;
+    }
+    return (int) (orderId >>> (NODE_BITS + SEQUENCE_BITS)) & (MAX_SHARDS - 1);
+  }
+}
@@ -0,0 +1,12 @@
+package org.example.demo.repository.shard;
+
+import org.example.demo.repository.OrderItemRepository;
+import org.example.demo.repository.OrderRepository;
+
+import org.springframework.data.r2dbc.core.R2dbcEntityOperations;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/** One database holding a share of ORDERS and ORDERS_ITEM, with the repositories bound to it. */
+public record OrderShard(int index, R2dbcEntityOperations entityOperations, OrderRepository orders,
+    OrderItemRepository items, TransactionalOperator transactionalOperator) {
+}
@@ -0,0 +1,54 @@
+package org.example.demo.repository.shard;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "order.sharding")
+public class OrderShardingProperties {
+  /**
+   * Distinguishes the order ids generated by each instance, 0-7. Required, with no default: two
+   * instances with the same value generate the same ids, so startup fails when it is not set.
+   */
+  private Integer nodeId;
+
+  /**
+   * Databases beyond the main one, which is always shard 0: the first entry is shard 1. Removing or
+   * reordering entries strands the orders already stored on them.
+   */
+  private List<Shard> additionalShards = new ArrayList<>();
+
+  /**
+   * ORDER_SHARD_INTENT rows older than this are settled. Must be longer than any transaction can
+   * last: a creation whose shard has not committed by then is taken as never created.
+   */
+  private Duration settleAfter = Duration.ofMinutes(1);
+
+  /** How often rows older than {@code settleAfter} are looked for. */
+  private Duration settleInterval = Duration.ofSeconds(30);
+
+  /** Rows settled per query. */
+  private int settleBatchSize = 100;
+
+  @Data
+  public static class Shard {
+    private String url;
+
+    /** JDBC URL the shard's migrations ({@code classpath:db/shard}) are applied through. */
+    private String jdbcUrl;
+
+    private String username;
+
+    private String password;
+
+    private final R2dbcProperties.Pool pool = new R2dbcProperties.Pool();
+  }
+}
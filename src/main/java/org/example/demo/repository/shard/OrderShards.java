@@ -0,0 +1,104 @@
+package org.example.demo.repository.shard;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.exception.ShardCommitException;
+
+import org.springframework.transaction.reactive.TransactionCallback;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The databases ORDERS and ORDERS_ITEM are split over. Shard 0 is the main database, which also
+ * holds products, the outbox, the summaries and the queues; the shard of an order is encoded in its
+ * id (see {@link OrderIdGenerator}), so an order and its items always live together.
+ *
+ * <p>Work on an order runs in a transaction on the order's shard with a transaction on the main
+ * database nested inside, so the main database commits first. If the shard commit then fails, the
+ * main database keeps its writes for an order the shard does not have, or that is still PENDIENTE,
+ * and the work fails with a {@link ShardCommitException}. Callers must not leave it at that: they
+ * record the work in ORDER_SHARD_INTENT within the main transaction, so that a retry, or
+ * {@code OrderShardIntents} later on, completes the shard's part instead of repeating the main
+ * one. On shard 0 there is a single transaction, as before sharding.
+ */
+@RequiredArgsConstructor
+public class OrderShards {
+
+  private final List<OrderShard> shards;
+  private final TransactionalOperator transactionalOperator;
+  private final List<Disposable> connectionPools;
+
+  public int count() {
+    return shards.size();
+  }
+
+  public List<OrderShard> all() {
+    return shards;
+  }
+
+  /** Shard holding the order, or null if its id points at a shard that is not configured. */
+  public OrderShard forOrder(Long orderId) {
+    int index = OrderIdGenerator.shardOf(orderId);
+    return index < shards.size() ? shards.get(index) : null;
+  }
+
+  /** Splits values by the shard of their order; values of unknown shards are left out. */
+  public <T> Map<OrderShard, List<T>> groupByShard(Collection<T> values,
+      Function<T, Long> orderIdOf) {
+    // Un id que apunta a un shard no configurado no existe, como cualquier id desconocido
+    return values.stream().filter(value -> forOrder(orderIdOf.apply(value)) != null)
+        .collect(Collectors.groupingBy(value -> forOrder(orderIdOf.apply(value))));
+  }
+
+  /** Whether work on the order spans two transactions, so that the main one may commit alone. */
+  public boolean spansTwoDatabases(Long orderId) {
+    OrderShard shard = forOrder(orderId);
+    return shard != null && shard.index() != 0;
+  }
+
+  /** Runs {@code work} in a transaction on the main database and on the order's shard. */
+  public <T> Mono<T> transactional(Long orderId, Mono<T> work) {
+    OrderShard shard = forOrder(orderId);
+    if (shard == null || shard.index() == 0) {
+      return transactionalOperator.transactional(work);
+    }
+    // La transacción principal, anidada, confirma antes que la del shard
+    return Mono.defer(() -> {
+      AtomicBoolean mainCommitted = new AtomicBoolean();
+      return shard.transactionalOperator().transactional(transactionalOperator.transactional(work)
+              .doOnSuccess(result -> mainCommitted.set(true)))
+          .onErrorMap(ex -> mainCommitted.get(), ex -> new ShardCommitException(orderId, ex));
+    });
+  }
+
+  /**
+   * As {@link #transactional(Long, Mono)}, with access to the main transaction's status. Marking it
+   * rollback-only does not reach the shard transaction: signal an error to roll back both.
+   */
+  public <T> Flux<T> execute(Long orderId, TransactionCallback<T> action) {
+    OrderShard shard = forOrder(orderId);
+    if (shard == null || shard.index() == 0) {
+      return transactionalOperator.execute(action);
+    }
+    return Flux.defer(() -> {
+      AtomicBoolean mainCommitted = new AtomicBoolean();
+      return shard.transactionalOperator().execute(shardStatus ->
+              transactionalOperator.execute(action).doOnComplete(() -> mainCommitted.set(true)))
+          .onErrorMap(ex -> mainCommitted.get(), ex -> new ShardCommitException(orderId, ex));
+    });
+  }
+
+  public void dispose() {
+    connectionPools.forEach(Disposable::dispose);
+  }
+}
@@ -1,7 +1,12 @@
 package org.example.demo.service;
 
+import java.util.List;
+
 import org.example.demo.model.entity.Order;
 import org.example.demo.model.request.CreateOrderRequest;
+import org.example.demo.model.response.OrderConfirmationResult;
+import org.example.demo.model.response.OrderWithItemsResponse;
+import org.example.demo.service.pricing.PricingResult;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -9,9 +14,19 @@ import reactor.core.publisher.Mono;
 public interface OrderService {
   Mono<Order> createOrder(CreateOrderRequest request);
 
+  Mono<PricingResult> previewOrder(CreateOrderRequest request);
+
   Mono<Order> confirmOrder(Long orderId);
 
+  Flux<OrderConfirmationResult> confirmOrders(List<Long> orderIds);
+
   Mono<Order> getOrderById(Long orderId);
 
+  Mono<OrderWithItemsResponse> getOrderWithItems(Long orderId);
+
   Flux<Order> getAllOrders();
+
+  Flux<Order> getOrdersPage(Long afterId, int limit);
+
+  Flux<OrderWithItemsResponse> getOrdersWithItemsPage(Long afterId, int limit);
 }
@@ -2,7 +2,9 @@ package org.example.demo.service;
 
 import org.example.demo.model.entity.Product;
 import org.example.demo.model.request.CreateProductRequest;
+import org.example.demo.model.request.ProductImportRow;
 import org.example.demo.model.request.UpdateProductRequest;
+import org.example.demo.model.response.ProductImportProgress;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -14,7 +16,11 @@ public interface ProductService {
 
   Flux<Product> getAllProducts();
 
+  Flux<Product> getProductsPage(Long afterId, int limit);
+
   Mono<Product> updateProduct(Long productId, UpdateProductRequest request);
 
   Mono<Void> deleteProduct(Long productId);
+
+  Flux<ProductImportProgress> importProducts(Flux<ProductImportRow> rows);
 }
\ No newline at end of file
@@ -0,0 +1,182 @@
+package org.example.demo.service.aggregate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.config.ReadReplica;
+import org.example.demo.model.entity.Order;
+import org.example.demo.model.entity.OrderItem;
+import org.example.demo.model.entity.Product;
+import org.example.demo.model.response.DailySales;
+import org.example.demo.model.response.ProductSales;
+import org.example.demo.model.response.StockBucket;
+import org.example.demo.repository.ProductRepository;
+import org.example.demo.repository.SalesAggregateRepository;
+import org.example.demo.repository.ShardedOrderItemRepository;
+import org.example.demo.repository.ShardedOrderRepository;
+import org.example.demo.repository.StockLedgerJournalRepository;
+import org.example.demo.service.ledger.StockLedger;
+import org.example.demo.service.shard.OrderShardIntents;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Dashboard figures kept up to date as orders are confirmed, so that reading them costs the size
+ * of the answer rather than the order history.
+ *
+ * <p>{@link #recordConfirmed} must run inside the confirmation transaction: the summaries then move
+ * exactly when an order becomes CONFIRMADO. It first locks the SALES_AGGREGATE_GATE row of its
+ * slot, as the ledger flush does, so that {@link #rebuild} can hold every writer off by locking
+ * them all. Daily totals are by order date. Sales of products owned
+ * by the in-memory stock ledger reach PRODUCT_SALES with the ledger's flush instead, so that hot
+ * products do not serialize confirmations on their PRODUCT_SALES row; like their stock, they lag
+ * by up to one flush. Stock ranges come from {@link StockBuckets}; the low-stock list reads PRODUCT
+ * in full, which has no stock index so that sales do not have to maintain one. The read methods
+ * are served from the read replica when one is configured, adding its replication lag.
+ */
+@Component
+@RequiredArgsConstructor
+public class SalesAggregates {
+
+  private final SalesAggregatesProperties properties;
+  private final SalesAggregateRepository salesAggregateRepository;
+  private final ProductRepository productRepository;
+  private final ShardedOrderRepository orderRepository;
+  private final ShardedOrderItemRepository orderItemRepository;
+  private final StockLedgerJournalRepository journalRepository;
+  private final StockLedger stockLedger;
+  private final StockBuckets stockBuckets;
+  private final OrderShardIntents orderShardIntents;
+  private final TransactionalOperator transactionalOperator;
+
+  /** Creates the gate rows of the configured slots before requests are served. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    salesAggregateRepository.addGates(properties.getDailySlots()).block(Duration.ofSeconds(60));
+  }
+
+  /** Adds the confirmed orders and their items to the summaries. */
+  public Mono<Void> recordConfirmed(Collection<Order> orders, Collection<OrderItem> items) {
+    if (orders.isEmpty()) {
+      return Mono.empty();
+    }
+    int slot = slotFor(orders);
+    return salesAggregateRepository.lockGate(slot)
+        .then(salesAggregateRepository.addDailySales(slot, dailyTotals(orders)))
+        .then(salesAggregateRepository.addProductSales(productTotalsToRecord(items)))
+        .then();
+  }
+
+  /** Per-product totals the confirmation adds itself: all but the ledger's products. */
+  public List<ProductSales> productTotalsToRecord(Collection<OrderItem> items) {
+    return productTotals(items.stream()
+        .filter(item -> !stockLedger.owns(item.getProductId())).toList());
+  }
+
+  /** Slot of SALES_DAILY the given orders are added to. */
+  public int slotFor(Collection<Order> orders) {
+    return slotOf(orders.iterator().next().getId(), properties.getDailySlots());
+  }
+
+  /** One of {@code slots} slots for an id, spread evenly. */
+  public static int slotOf(long id, int slots) {
+    // Los ids generados acaban en la secuencia del milisegundo, casi siempre 0: se mezclan los bits
+    // para que el módulo reparta igual que con ids consecutivos
+    long mixed = id * 0x9E3779B97F4A7C15L;
+    return Math.floorMod((int) (mixed >>> 32), slots);
+  }
+
+  /** Totals per order date, in date order. */
+  public static List<DailySales> dailyTotals(Collection<Order> orders) {
+    // TreeMap: filas siempre en el mismo orden entre transacciones, sin interbloqueos
+    Map<LocalDate, DailySales> daily = new TreeMap<>();
+    for (Order order : orders) {
+      daily.merge(order.getDate().toLocalDate(),
+          new DailySales(order.getDate().toLocalDate(), 1, order.getTotalGross(),
+              order.getTotalFinal()),
+          (total, delta) -> new DailySales(total.getDate(),
+              total.getOrdersCount() + delta.getOrdersCount(),
+              total.getTotalGross().add(delta.getTotalGross()),
+              total.getTotalFinal().add(delta.getTotalFinal())));
+    }
+    return new ArrayList<>(daily.values());
+  }
+
+  /** Units and value per product, in product id order. */
+  public static List<ProductSales> productTotals(Collection<OrderItem> items) {
+    Map<Long, ProductSales> perProduct = new TreeMap<>();
+    for (OrderItem item : items) {
+      BigDecimal gross = item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
+      perProduct.merge(item.getProductId(),
+          new ProductSales(item.getProductId(), item.getQuantity(), gross),
+          (total, delta) -> new ProductSales(total.getProductId(),
+              total.getQuantitySold() + delta.getQuantitySold(),
+              total.getGrossAmount().add(delta.getGrossAmount())));
+    }
+    return new ArrayList<>(perProduct.values());
+  }
+
+  public Flux<DailySales> getDailySales(LocalDate from, LocalDate to) {
+    return salesAggregateRepository.findDailySales(from, to).contextWrite(ReadReplica.ROUTE);
+  }
+
+  public Flux<ProductSales> getTopProducts(int limit) {
+    return salesAggregateRepository.findTopProducts(limit).contextWrite(ReadReplica.ROUTE);
+  }
+
+  /** Sales of one product; zero if it was never sold. */
+  public Mono<ProductSales> getProductSales(Long productId) {
+    return salesAggregateRepository.findProductSales(productId)
+        .defaultIfEmpty(new ProductSales(productId, 0, BigDecimal.ZERO))
+        .contextWrite(ReadReplica.ROUTE);
+  }
+
+  public Flux<Product> getLowStock(int threshold, int limit) {
+    return productRepository.findLowStock(threshold, limit).contextWrite(ReadReplica.ROUTE);
+  }
+
+  public Flux<StockBucket> getStockBuckets() {
+    return stockBuckets.getStockBuckets();
+  }
+
+  /**
+   * Recomputes the summaries from ORDERS of every shard, e.g. to backfill existing orders, then
+   * recounts the stock ranges in a transaction of its own. The summaries are replaced in one
+   * transaction that holds every SALES_AGGREGATE_GATE row, so confirmations and ledger flushes
+   * wait until it commits and add to the new totals; confirmations the main database committed
+   * and a shard not yet are settled first, so the shards already show them as CONFIRMADO.
+   * Scans the whole history while confirmations wait, and the recount locks every product row:
+   * run it off-peak.
+   */
+  public Mono<Void> rebuild() {
+    // Cada shard aporta sus propias filas por fecha y producto; las altas se suman al insertar.
+    // Lo vendido del ledger aún en el diario lo sumará su volcado: se descuenta aquí
+    return transactionalOperator.transactional(salesAggregateRepository.lockAllGates()
+        .then(orderShardIntents.settleConfirmations())
+        .then(salesAggregateRepository.clear())
+        .then(orderRepository.sumConfirmedByDate().collectList())
+        .flatMap(daily -> salesAggregateRepository.addDailySales(0, daily))
+        .then(orderItemRepository.sumConfirmedByProduct().collectList())
+        .flatMap(salesAggregateRepository::addProductSales)
+        .then(journalRepository.findUnflushedSales()
+            .map(pending -> new ProductSales(pending.getProductId(), -pending.getQuantitySold(),
+                pending.getGrossAmount().negate()))
+            .collectList())
+        .flatMap(salesAggregateRepository::addProductSales))
+        .then(stockBuckets.recount());
+  }
+}
@@ -0,0 +1,28 @@
+package org.example.demo.service.aggregate;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Operator endpoint for {@link SalesAggregates#rebuild()}: a full scan of the order history, so it
+ * is kept off the public API. Actuator does not expose it over HTTP unless
+ * {@code management.endpoints.web.exposure.include} lists {@code salesaggregates}, which should
+ * only be done on a management port that is not reachable by clients.
+ */
+@Component
+@Endpoint(id = "salesaggregates")
+@RequiredArgsConstructor
+public class SalesAggregatesEndpoint {
+
+  private final SalesAggregates salesAggregates;
+
+  @WriteOperation
+  public Mono<Void> rebuild() {
+    return salesAggregates.rebuild();
+  }
+}
@@ -0,0 +1,20 @@
+package org.example.demo.service.aggregate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "sales.aggregates")
+public class SalesAggregatesProperties {
+  /** Rows each day's totals are spread over, so concurrent confirmations rarely share one. */
+  private int dailySlots = 16;
+
+  /** Upper bounds of the inventory buckets; stock above the last one falls in an open bucket. */
+  private List<Integer> stockBucketBounds = new ArrayList<>(List.of(0, 10, 100));
+}
@@ -0,0 +1,180 @@
+package org.example.demo.service.aggregate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.example.demo.config.ReadReplica;
+import org.example.demo.model.entity.Product;
+import org.example.demo.model.response.StockBucket;
+import org.example.demo.repository.ProductRepository;
+import org.example.demo.repository.SalesAggregateRepository;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Number of products per stock range ({@code sales.aggregates.stock-bucket-bounds}), kept in
+ * STOCK_BUCKET so that reading it costs one row per range instead of a count over PRODUCT.
+ *
+ * <p>Every write to PRODUCT.stock reports the stock it replaced and the one it wrote, in its own
+ * transaction and after the product row is locked; only a change that crosses a range boundary
+ * touches the table. Ranges are keyed by their minimum stock. At startup the table is recounted
+ * from PRODUCT when its ranges are not the configured ones: on first start and after the bounds
+ * change.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockBuckets {
+
+  private final SalesAggregatesProperties properties;
+  private final SalesAggregateRepository salesAggregateRepository;
+  private final ProductRepository productRepository;
+  private final TransactionalOperator transactionalOperator;
+
+  /** Stock of one product before and after a write; null before an insert, after a delete. */
+  public record StockChange(Integer before, Integer after) {
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    List<Integer> minStocks = minStocks();
+    salesAggregateRepository.findStockBuckets()
+        .filter(stored -> !minStocks.equals(new ArrayList<>(stored.keySet())))
+        .flatMap(stored -> {
+          log.info("Recounting stock buckets {} from PRODUCT", minStocks);
+          return recount();
+        })
+        .block(Duration.ofSeconds(60));
+  }
+
+  /** Products per range, in ascending order of stock. */
+  public Flux<StockBucket> getStockBuckets() {
+    List<Integer> minStocks = minStocks();
+    return salesAggregateRepository.findStockBuckets()
+        .flatMapIterable(counts -> {
+          List<StockBucket> buckets = new ArrayList<>(minStocks.size());
+          for (int i = 0; i < minStocks.size(); i++) {
+            Integer maxStock = i + 1 < minStocks.size() ? minStocks.get(i + 1) - 1 : null;
+            buckets.add(new StockBucket(minStocks.get(i), maxStock,
+                counts.getOrDefault(minStocks.get(i), 0L)));
+          }
+          return buckets;
+        })
+        .contextWrite(ReadReplica.ROUTE);
+  }
+
+  /** Adds the changes to the counts. Must run in the transaction that wrote the stock. */
+  public Mono<Void> changed(Collection<StockChange> changes) {
+    Map<Integer, Long> deltas = deltas(changes);
+    if (deltas.isEmpty()) {
+      return Mono.empty();
+    }
+    return salesAggregateRepository.addStockBuckets(deltas).then();
+  }
+
+  /**
+   * For conditional decrements that did not read the stock first: reads the stock they left, in
+   * the same transaction, and counts the change from what it was before.
+   */
+  public Mono<Void> decremented(Map<Long, Integer> quantityPerProduct) {
+    if (quantityPerProduct.isEmpty()) {
+      return Mono.empty();
+    }
+    return productRepository.findByIdIn(quantityPerProduct.keySet())
+        .collectMap(Product::getId, Product::getStock)
+        .flatMap(stockAfter -> changed(decrements(quantityPerProduct, stockAfter)));
+  }
+
+  /** Recounts every range from PRODUCT, with all product rows locked. */
+  public Mono<Void> recount() {
+    return transactionalOperator.transactional(
+        salesAggregateRepository.recountStockBuckets(minStocks()));
+  }
+
+  /** Count delta per range, in ascending order; ranges left unchanged are omitted. */
+  public Map<Integer, Long> deltas(Collection<StockChange> changes) {
+    List<Integer> minStocks = minStocks();
+    Map<Integer, Long> deltas = new TreeMap<>();
+    for (StockChange change : changes) {
+      Integer from = change.before() == null ? null : rangeOf(minStocks, change.before());
+      Integer to = change.after() == null ? null : rangeOf(minStocks, change.after());
+      if (!Objects.equals(from, to)) {
+        if (from != null) {
+          deltas.merge(from, -1L, Long::sum);
+        }
+        if (to != null) {
+          deltas.merge(to, 1L, Long::sum);
+        }
+      }
+    }
+    deltas.values().removeIf(delta -> delta == 0);
+    return deltas;
+  }
+
+  /** Changes of products whose stock went down by {@code quantityPerProduct} to {@code stockAfter}.
+   */
+  public static List<StockChange> decrements(Map<Long, Integer> quantityPerProduct,
+      Map<Long, Integer> stockAfter) {
+    List<StockChange> changes = new ArrayList<>(quantityPerProduct.size());
+    quantityPerProduct.forEach((productId, quantity) -> {
+      Integer after = stockAfter.get(productId);
+      if (after != null) {
+        changes.add(new StockChange(after + quantity, after));
+      }
+    });
+    return changes;
+  }
+
+  /**
+   * Changes made by an upsert of {@code products} over rows whose stock was {@code stockBefore}:
+   * rows without id are inserts, and the last row of a repeated id is the one that stays.
+   */
+  public static List<StockChange> upserts(List<Product> products, Map<Long, Integer> stockBefore) {
+    List<StockChange> changes = new ArrayList<>(products.size());
+    Map<Long, Integer> stockWritten = new LinkedHashMap<>();
+    for (Product product : products) {
+      if (product.getId() == null) {
+        changes.add(new StockChange(null, product.getStock()));
+      } else {
+        stockWritten.put(product.getId(), product.getStock());
+      }
+    }
+    stockWritten.forEach((productId, stock) ->
+        changes.add(new StockChange(stockBefore.get(productId), stock)));
+    return changes;
+  }
+
+  /** Minimum stock of each range, ascending: 0, then one past each configured bound. */
+  List<Integer> minStocks() {
+    List<Integer> minStocks = new ArrayList<>();
+    minStocks.add(0);
+    properties.getStockBucketBounds().forEach(bound -> minStocks.add(bound + 1));
+    return minStocks;
+  }
+
+  private static int rangeOf(List<Integer> minStocks, int stock) {
+    int range = minStocks.get(0);
+    for (Integer minStock : minStocks) {
+      if (stock < minStock) {
+        break;
+      }
+      range = minStock;
+    }
+    return range;
+  }
+}
@@ -0,0 +1,140 @@
+package org.example.demo.service.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.example.demo.model.entity.Product;
+import org.example.demo.repository.ProductRepository;
+
+import org.springframework.stereotype.Component;
+
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Merges product lookups that arrive within {@link ProductBatchLoaderProperties#getWindow()} of
+ * each other, across concurrent requests, into one {@code findByIdIn}. Each caller gets back only
+ * the ids it asked for. A batch is dispatched when the window closes or as soon as it holds
+ * {@code maxBatchSize} distinct ids.
+ *
+ * <p>Meters: {@code product.loader.batch.size} (distinct ids per query) and
+ * {@code product.loader.wait} (time a lookup spent waiting for its batch to be dispatched).
+ */
+@Component
+public class ProductBatchLoader {
+
+  private final ProductBatchLoaderProperties properties;
+  private final ProductRepository productRepository;
+  private final DistributionSummary batchSize;
+  private final Timer batchWait;
+
+  private List<Waiter> pending = new ArrayList<>();
+  private Set<Long> pendingIds = new HashSet<>();
+  private Disposable flushTimer;
+
+  public ProductBatchLoader(ProductBatchLoaderProperties properties,
+      ProductRepository productRepository, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.productRepository = productRepository;
+    this.batchSize = DistributionSummary.builder("product.loader.batch.size")
+        .description("Distinct product ids per batched lookup").register(meterRegistry);
+    this.batchWait = Timer.builder("product.loader.wait")
+        .description("Time a product lookup waited for its batch").register(meterRegistry);
+  }
+
+  /** Products found among {@code ids}; missing ids are simply absent from the map. */
+  public CompletableFuture<Map<Long, Product>> loadAll(Collection<Long> ids) {
+    if (!properties.isEnabled()) {
+      return query(Set.copyOf(ids));
+    }
+    Waiter waiter = new Waiter(Set.copyOf(ids), new CompletableFuture<>(), System.nanoTime());
+    List<Waiter> full = null;
+    synchronized (this) {
+      pending.add(waiter);
+      pendingIds.addAll(waiter.ids());
+      if (pendingIds.size() >= properties.getMaxBatchSize()) {
+        full = takePending();
+      } else if (flushTimer == null) {
+        // Elastic y no parallel: la continuación de los llamadores corre en el hilo que despacha
+        // y no debe retrasar el temporizador del siguiente lote
+        flushTimer = Schedulers.boundedElastic().schedule(this::flush,
+            properties.getWindow().toNanos(), TimeUnit.NANOSECONDS);
+      }
+    }
+    if (full != null) {
+      dispatch(full);
+    }
+    return waiter.result();
+  }
+
+  public CompletableFuture<Product> load(Long id) {
+    return loadAll(List.of(id)).thenApply(products -> products.get(id));
+  }
+
+  private void flush() {
+    List<Waiter> batch;
+    synchronized (this) {
+      batch = takePending();
+    }
+    if (!batch.isEmpty()) {
+      dispatch(batch);
+    }
+  }
+
+  // Llamar con el monitor tomado
+  private List<Waiter> takePending() {
+    List<Waiter> batch = pending;
+    pending = new ArrayList<>();
+    pendingIds = new HashSet<>();
+    if (flushTimer != null) {
+      flushTimer.dispose();
+      flushTimer = null;
+    }
+    return batch;
+  }
+
+  private void dispatch(List<Waiter> batch) {
+    long now = System.nanoTime();
+    Set<Long> ids = new HashSet<>();
+    for (Waiter waiter : batch) {
+      ids.addAll(waiter.ids());
+      batchWait.record(now - waiter.enqueuedAt(), TimeUnit.NANOSECONDS);
+    }
+    batchSize.record(ids.size());
+    query(ids).whenComplete((products, ex) -> {
+      for (Waiter waiter : batch) {
+        if (ex != null) {
+          waiter.result().completeExceptionally(ex);
+          continue;
+        }
+        Map<Long, Product> found = new HashMap<>();
+        for (Long id : waiter.ids()) {
+          Product product = products.get(id);
+          if (product != null) {
+            found.put(id, product);
+          }
+        }
+        waiter.result().complete(found);
+      }
+    });
+  }
+
+  private CompletableFuture<Map<Long, Product>> query(Set<Long> ids) {
+    return productRepository.findByIdIn(ids).collectMap(Product::getId).toFuture();
+  }
+
+  private record Waiter(Set<Long> ids, CompletableFuture<Map<Long, Product>> result,
+      long enqueuedAt) {
+  }
+}
@@ -0,0 +1,22 @@
+package org.example.demo.service.cache;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "product.batch-loader")
+public class ProductBatchLoaderProperties {
+  /** When false every cache miss issues its own query. */
+  private boolean enabled = true;
+
+  /** Longest a lookup waits for others to join its batch; this is the latency it can add. */
+  private Duration window = Duration.ofMillis(2);
+
+  /** Distinct ids that dispatch a batch immediately, without waiting for the window. */
+  private int maxBatchSize = 500;
+}
@@ -0,0 +1,83 @@
+package org.example.demo.service.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.example.demo.model.entity.Product;
+
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Read-through cache of products by id. Entries are replaced only by a product with an equal or
+ * newer {@code version}, so a slow reader can never overwrite a fresher write. Stock read from
+ * here is only good for preliminary checks; reservations always go to the database.
+ *
+ * <p>A miss is loaded once: concurrent callers for the same id wait on the same in-flight query.
+ * Cancelling one of them (e.g. a client disconnect) does not cancel the shared load. Misses from
+ * concurrent requests are merged into one query by {@link ProductBatchLoader}.
+ */
+@Component
+public class ProductCache {
+
+  private final AsyncLoadingCache<Long, Product> cache;
+
+  public ProductCache(ProductCacheProperties properties, ProductBatchLoader batchLoader,
+      MeterRegistry meterRegistry) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(properties.getMaximumSize())
+        .expireAfterWrite(properties.getExpireAfterWrite())
+        .recordStats()
+        .buildAsync(new AsyncCacheLoader<>() {
+          @Override
+          public CompletableFuture<? extends Product> asyncLoad(Long id, Executor executor) {
+            return batchLoader.load(id);
+          }
+
+          @Override
+          public CompletableFuture<? extends Map<? extends Long, ? extends Product>> asyncLoadAll(
+              Set<? extends Long> ids, Executor executor) {
+            return batchLoader.loadAll(Set.copyOf(ids));
+          }
+        });
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "product");
+  }
+
+  public Mono<Product> get(Long id) {
+    return Mono.fromFuture(() -> cache.get(id), true);
+  }
+
+  /** Products found among {@code ids}; missing ids are simply absent from the map. */
+  public Mono<Map<Long, Product>> getAll(Collection<Long> ids) {
+    return Mono.fromFuture(() -> cache.getAll(ids), true);
+  }
+
+  public void put(Product product) {
+    cache.synchronous().asMap().merge(product.getId(), product,
+        (cached, fresh) -> isNewer(fresh, cached) ? fresh : cached);
+  }
+
+  public void invalidate(Long id) {
+    cache.synchronous().invalidate(id);
+  }
+
+  public void invalidateAll(Collection<Long> ids) {
+    cache.synchronous().invalidateAll(ids);
+  }
+
+  private static boolean isNewer(Product fresh, Product cached) {
+    return fresh.getVersion() == null || cached.getVersion() == null
+        || fresh.getVersion() >= cached.getVersion();
+  }
+}
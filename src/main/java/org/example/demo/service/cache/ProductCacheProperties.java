@@ -0,0 +1,19 @@
+package org.example.demo.service.cache;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "product.cache")
+public class ProductCacheProperties {
+  /** Maximum number of products kept in memory. */
+  private long maximumSize = 10_000;
+
+  /** Upper bound on how stale a cached product can get if an invalidation is missed. */
+  private Duration expireAfterWrite = Duration.ofMinutes(5);
+}
@@ -0,0 +1,44 @@
+package org.example.demo.service.cache;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Coalesces concurrent loads of the same key: while a load is in flight, every other caller for
+ * that key waits on it instead of issuing its own query. Nothing is cached; the key is released
+ * as soon as the load completes, so a later call always sees fresh data.
+ *
+ * <p>Do not use it for reads that must run inside the caller's transaction: the shared load runs
+ * on whichever connection the first caller got.
+ */
+public class SingleFlight<K, V> {
+
+  private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+  public Mono<V> execute(K key, Function<K, Mono<V>> loader) {
+    // suppressCancel: si el primer llamador cancela, los demás siguen esperando el resultado
+    return Mono.fromFuture(() -> join(key, loader), true);
+  }
+
+  private CompletableFuture<V> join(K key, Function<K, Mono<V>> loader) {
+    CompletableFuture<V> created = new CompletableFuture<>();
+    CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+    if (existing != null) {
+      return existing;
+    }
+    loader.apply(key).toFuture().whenComplete((value, ex) -> {
+      // Liberar la clave antes de completar: quien llegue después lanza una carga nueva
+      inFlight.remove(key, created);
+      if (ex != null) {
+        created.completeExceptionally(ex);
+      } else {
+        created.complete(value);
+      }
+    });
+    return created;
+  }
+}
@@ -0,0 +1,31 @@
+package org.example.demo.service.idempotency;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "idempotency")
+public class IdempotencyProperties {
+  /** Maximum number of completed responses kept in memory. */
+  private long maximumSize = 100_000;
+
+  /** How long a completed response is answered from memory before falling back to the table. */
+  private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+  /** How long keys are kept in IDEMPOTENCY_KEY; a retry after this runs the request again. */
+  private Duration retention = Duration.ofHours(24);
+
+  /**
+   * How long a key may stay in progress before a retry of the same request takes it over, e.g.
+   * after the instance running it died. Keep it well above the slowest request.
+   */
+  private Duration claimTimeout = Duration.ofMinutes(5);
+
+  /** How often expired keys are deleted from IDEMPOTENCY_KEY. */
+  private Duration purgeInterval = Duration.ofMinutes(10);
+}
@@ -0,0 +1,253 @@
+package org.example.demo.service.idempotency;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PreDestroy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.example.demo.exception.ConcurrencyConflictException;
+import org.example.demo.exception.IdempotencyKeyReuseException;
+import org.example.demo.exception.InvalidIdempotencyKeyException;
+import org.example.demo.model.entity.IdempotencyRecord;
+import org.example.demo.repository.IdempotencyRecordRepository;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Runs a request at most once per {@code Idempotency-Key} and replays its response to retries.
+ *
+ * <p>Completed responses are answered from a bounded in-memory cache with TTL; concurrent
+ * duplicates on this instance share the one in-flight execution. Behind it, IDEMPOTENCY_KEY
+ * holds a row per key: it is claimed (primary key insert) before the request runs, so a
+ * duplicate arriving on another instance, or after the memory entry expired, either replays
+ * the stored response or gets a conflict while the first one is still running; a different
+ * request with the same key gets the key-reuse error either way. A request that fails releases
+ * its key, so the client may retry it.
+ *
+ * <p>The action stores its response with {@link #completeWithin} in the transaction of its own
+ * writes, so the key is COMPLETED exactly when they commit. A claim left in progress for longer
+ * than {@code idempotency.claim-timeout} therefore belongs to a request whose writes never
+ * committed (its instance died mid-request), and is taken over by the next retry of the same
+ * request. The claim time identifies the owner: the request that lost the key can no longer
+ * complete it, which rolls its writes back, nor release it.
+ */
+@Slf4j
+@Component
+public class IdempotencyService {
+
+  private static final Pattern VALID_KEY = Pattern.compile("[A-Za-z0-9._:-]{1,128}");
+
+  /** Fails the transaction of a request whose key was taken over by a retry. */
+  public static final String KEY_TAKEN_OVER =
+      "The Idempotency-Key of this request was taken over by a retry";
+
+  private final IdempotencyProperties properties;
+  private final IdempotencyRecordRepository records;
+  private final ObjectMapper objectMapper;
+  private final AsyncCache<String, Completed> cache;
+  private Disposable purgeTask;
+
+  public IdempotencyService(IdempotencyProperties properties, IdempotencyRecordRepository records,
+      ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.records = records;
+    this.objectMapper = objectMapper;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(properties.getMaximumSize())
+        .expireAfterWrite(properties.getExpireAfterWrite())
+        .recordStats()
+        .buildAsync();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "idempotency");
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    purgeTask = Flux.interval(properties.getPurgeInterval())
+        .onBackpressureDrop()
+        .concatMap(tick -> records.deleteOlderThan(LocalDateTime.now().minus(properties.getRetention()))
+            .onErrorResume(ex -> {
+              log.warn("Idempotency key purge failed, will retry: {}", ex.getMessage());
+              return Mono.empty();
+            }))
+        .subscribe();
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (purgeTask != null) {
+      purgeTask.dispose();
+    }
+  }
+
+  /**
+   * Runs {@code action} unless {@code key} was already used in {@code scope}, in which case the
+   * first response is returned. Without a key the action simply runs. An action with writes calls
+   * {@link #completeWithin} in their transaction; otherwise a retry that takes the key over after
+   * {@code idempotency.claim-timeout} may run them again.
+   *
+   * @param request what the key is bound to; reusing the key with a different request fails
+   */
+  public <T> Mono<T> execute(String scope, String key, Object request, Class<T> responseType,
+      Supplier<Mono<T>> action) {
+    if (key == null) {
+      return action.get();
+    }
+    if (!VALID_KEY.matcher(key).matches()) {
+      return Mono.error(new InvalidIdempotencyKeyException(
+          "Idempotency-Key must be 1-128 characters of letters, digits, '.', '_', ':' or '-'"));
+    }
+    return Mono.defer(() -> {
+      String id = scope + ":" + key;
+      String fingerprint = fingerprint(request);
+      // La primera llamada ejecuta; las concurrentes con la misma clave esperan ese mismo futuro.
+      // suppressCancel: si el cliente original se desconecta, el resto sigue esperando
+      return Mono.fromFuture(() -> cache.get(id,
+              (ignored, executor) -> load(id, key, fingerprint, responseType, action)), true)
+          .map(completed -> {
+            if (!completed.fingerprint().equals(fingerprint)) {
+              throw keyReuse(key);
+            }
+            return responseType.cast(completed.response());
+          });
+    });
+  }
+
+  /**
+   * Completes the key of the request being run with {@code response}, within the caller's
+   * transaction, so that the key is COMPLETED if and only if the request's writes commit. Fails if
+   * a retry took the key over meanwhile, which rolls the writes back. Does nothing for a request
+   * without a key.
+   */
+  public Mono<Void> completeWithin(Object response) {
+    return Mono.deferContextual(context -> claimOf(context)
+        .map(claim -> records.complete(claim.id(), claim.claimedAt(), toJson(response))
+            .flatMap(rows -> rows > 0 ? Mono.<Void>empty()
+                : Mono.error(new ConcurrencyConflictException(KEY_TAKEN_OVER))))
+        .orElse(Mono.empty()));
+  }
+
+  /**
+   * Claim of the request running in {@code context}, empty for a request without a key. For
+   * actions that complete the key over blocking JDBC instead of {@link #completeWithin}.
+   */
+  public static Optional<Claim> claimOf(ContextView context) {
+    return context.getOrEmpty(Claim.class);
+  }
+
+  /** The response as stored in the key, for actions that complete it themselves. */
+  public String toJson(Object response) {
+    try {
+      return objectMapper.writeValueAsString(response);
+    } catch (JsonProcessingException ex) {
+      throw new IllegalStateException("Could not serialize response", ex);
+    }
+  }
+
+  static Context contextOf(Claim claim) {
+    return Context.of(Claim.class, claim);
+  }
+
+  private <T> CompletableFuture<Completed> load(String id, String key, String fingerprint,
+      Class<T> responseType, Supplier<Mono<T>> action) {
+    // En segundos: es el valor que TIMESTAMP guarda tal cual y el que identifica la reclamación
+    LocalDateTime claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    return records.claim(id, fingerprint, claimedAt).map(rows -> true)
+        .onErrorResume(DataIntegrityViolationException.class, ex -> records.takeOver(id,
+                fingerprint, claimedAt, claimedAt.minus(properties.getClaimTimeout()))
+            .map(rows -> rows > 0))
+        .flatMap(claimed -> claimed
+            ? run(id, fingerprint, claimedAt, action)
+            : replay(id, key, fingerprint, responseType))
+        .toFuture();
+  }
+
+  private <T> Mono<Completed> run(String id, String fingerprint, LocalDateTime claimedAt,
+      Supplier<Mono<T>> action) {
+    return Mono.defer(action)
+        .contextWrite(contextOf(new Claim(id, claimedAt)))
+        // También una clave ya COMPLETED: el fallo llegó después de confirmar la base principal
+        // (ShardCommitException) y el reintento solo completa lo que falta, sin repetirlo
+        .onErrorResume(ex -> records.release(id, claimedAt)
+            .onErrorResume(releaseError -> Mono.empty())
+            .then(Mono.error(ex)))
+        // Para acciones sin escrituras: si la acción ya la completó, no actualiza nada
+        .flatMap(response -> records.complete(id, claimedAt, toJson(response))
+            .onErrorResume(ex -> {
+              log.warn("Could not store response for idempotency key {}: {}", id, ex.getMessage());
+              return Mono.empty();
+            })
+            .thenReturn(new Completed(fingerprint, response)));
+  }
+
+  private <T> Mono<Completed> replay(String id, String key, String fingerprint,
+      Class<T> responseType) {
+    return records.findById(id)
+        .flatMap(record -> {
+          // Otra petición con la misma clave es un error del cliente, esté o no terminada
+          if (!record.getFingerprint().equals(fingerprint)) {
+            return Mono.error(keyReuse(key));
+          }
+          return IdempotencyRecord.COMPLETED.equals(record.getStatus())
+              ? Mono.just(new Completed(fingerprint, fromJson(record.getResponse(), responseType)))
+              : Mono.empty();
+        })
+        .switchIfEmpty(Mono.error(new ConcurrencyConflictException(
+            "A request with this Idempotency-Key is still being processed")));
+  }
+
+  private static IdempotencyKeyReuseException keyReuse(String key) {
+    return new IdempotencyKeyReuseException(
+        "Idempotency-Key was already used with a different request: " + key);
+  }
+
+  private String fingerprint(Object request) {
+    try {
+      byte[] json = request == null ? new byte[0] : objectMapper.writeValueAsBytes(request);
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+    } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("Could not fingerprint request", ex);
+    }
+  }
+
+  private <T> T fromJson(String json, Class<T> type) {
+    try {
+      return objectMapper.readValue(json, type);
+    } catch (JsonProcessingException ex) {
+      throw new IllegalStateException("Could not read stored response", ex);
+    }
+  }
+
+  /** The key a request runs under; the claim time tells its owner from a retry that took over. */
+  public record Claim(String id, LocalDateTime claimedAt) {
+  }
+
+  private record Completed(String fingerprint, Object response) {
+  }
+}
@@ -0,0 +1,14 @@
+package org.example.demo.service.impl;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "order.bulk-confirm")
+public class BulkConfirmProperties {
+  /** Orders confirmed per transaction; stock is aggregated per product within a chunk. */
+  private int chunkSize = 500;
+}
@@ -0,0 +1,38 @@
+package org.example.demo.service.impl;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/** Runs blocking JDBC code off the event loop, on the scheduler sized to the Hikari pool. */
+@Component
+@ConditionalOnProperty(name = "persistence.mode", havingValue = "jdbc")
+@RequiredArgsConstructor
+class JdbcCalls {
+
+  /** Rows per query when streaming a whole table. */
+  static final int STREAM_PAGE_SIZE = 500;
+
+  private final Scheduler jdbcScheduler;
+
+  <T> Mono<T> call(Callable<T> call) {
+    return Mono.fromCallable(call).subscribeOn(jdbcScheduler);
+  }
+
+  /** Whole table in keyset pages by id: no ResultSet stays open between pages. */
+  <T> Flux<T> allPages(Function<Long, List<T>> page, Function<T, Long> idOf) {
+    return call(() -> page.apply(0L))
+        .expand(rows -> rows.size() < STREAM_PAGE_SIZE ? Mono.empty()
+            : call(() -> page.apply(idOf.apply(rows.get(rows.size() - 1)))))
+        .flatMapIterable(rows -> rows);
+  }
+}
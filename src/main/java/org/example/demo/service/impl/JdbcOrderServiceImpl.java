@@ -0,0 +1,389 @@
+package org.example.demo.service.impl;
+
+import java.time.LocalDateTime;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import lombok.RequiredArgsConstructor;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.example.demo.exception.BusinessException;
+import org.example.demo.exception.ConcurrencyConflictException;
+import org.example.demo.exception.InvalidOrderStateException;
+import org.example.demo.exception.ResourceNotFoundException;
+import org.example.demo.model.entity.Order;
+import org.example.demo.model.entity.OrderItem;
+import org.example.demo.model.entity.Product;
+import org.example.demo.model.request.CreateOrderRequest;
+import org.example.demo.model.request.OrderItemRequest;
+import org.example.demo.model.response.OrderConfirmationResult;
+import org.example.demo.model.response.OrderWithItemsResponse;
+import org.example.demo.repository.JdbcIdempotencyRecordRepository;
+import org.example.demo.repository.JdbcOrderItemRepository;
+import org.example.demo.repository.JdbcOrderRepository;
+import org.example.demo.repository.JdbcOutboxEventRepository;
+import org.example.demo.repository.JdbcProductRepository;
+import org.example.demo.repository.JdbcSalesAggregateRepository;
+import org.example.demo.repository.JdbcStockLedgerJournalRepository;
+import org.example.demo.repository.shard.OrderIdGenerator;
+import org.example.demo.service.OrderService;
+import org.example.demo.service.aggregate.SalesAggregates;
+import org.example.demo.service.aggregate.StockBuckets;
+import org.example.demo.service.cache.SingleFlight;
+import org.example.demo.service.idempotency.IdempotencyService;
+import org.example.demo.service.ledger.StockLedger;
+import org.example.demo.service.metrics.OrderMetrics;
+import org.example.demo.service.outbox.OutboxEvents;
+import org.example.demo.service.pricing.PricingEngine;
+import org.example.demo.service.pricing.PricingResult;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+/**
+ * {@link OrderService} over blocking JDBC ({@code persistence.mode=jdbc}). Each operation is plain
+ * sequential code run on the JDBC scheduler, with the same stock rules, pricing, outbox events and
+ * sales summaries as {@link OrderServiceImpl}. Products are read straight from PRODUCT, without
+ * the product cache.
+ */
+@Service
+@ConditionalOnProperty(name = "persistence.mode", havingValue = "jdbc")
+@Slf4j
+@RequiredArgsConstructor
+public class JdbcOrderServiceImpl implements OrderService {
+
+  private static final String CREATE = "create";
+  private static final String CONFIRM = "confirm";
+  private static final String BULK_CONFIRM = "bulk-confirm";
+
+  private final JdbcOrderRepository orderRepository;
+  private final JdbcOrderItemRepository orderItemRepository;
+  private final JdbcProductRepository productRepository;
+  private final JdbcOutboxEventRepository outboxEventRepository;
+  private final JdbcSalesAggregateRepository salesAggregateRepository;
+  private final JdbcStockLedgerJournalRepository journalRepository;
+  private final JdbcIdempotencyRecordRepository idempotencyRecordRepository;
+  private final IdempotencyService idempotencyService;
+  private final TransactionTemplate transactionTemplate;
+  private final JdbcCalls jdbcCalls;
+  private final StockLedger stockLedger;
+  private final BulkConfirmProperties bulkConfirmProperties;
+  private final PricingEngine pricingEngine;
+  private final OrderMetrics orderMetrics;
+  private final OutboxEvents outboxEvents;
+  private final SalesAggregates salesAggregates;
+  private final StockBuckets stockBuckets;
+  private final OrderIdGenerator orderIdGenerator;
+  private final SingleFlight<Long, Order> orderReads = new SingleFlight<>();
+
+  @Override
+  public Mono<Order> getOrderById(Long orderId) {
+    return orderReads.execute(orderId,
+            id -> jdbcCalls.call(() -> orderRepository.findById(id).orElse(null)))
+        .switchIfEmpty(Mono.error(new ResourceNotFoundException("Order not found with id: " + orderId)));
+  }
+
+  @Override
+  public Mono<OrderWithItemsResponse> getOrderWithItems(Long orderId) {
+    // Cabecera y líneas en la misma llamada: dos consultas sobre una conexión
+    return jdbcCalls.call(() -> orderRepository.findById(orderId)
+            .map(order -> OrderWithItemsResponse.of(order,
+                orderItemRepository.findByOrdersId(orderId)))
+            .orElse(null))
+        .switchIfEmpty(Mono.error(new ResourceNotFoundException("Order not found with id: " + orderId)));
+  }
+
+  @Override
+  public Flux<Order> getAllOrders() {
+    return jdbcCalls.allPages(
+        afterId -> orderRepository.findPage(afterId, JdbcCalls.STREAM_PAGE_SIZE), Order::getId);
+  }
+
+  @Override
+  public Flux<Order> getOrdersPage(Long afterId, int limit) {
+    return jdbcCalls.call(() -> orderRepository.findPage(afterId, limit))
+        .flatMapIterable(page -> page);
+  }
+
+  @Override
+  public Flux<OrderWithItemsResponse> getOrdersWithItemsPage(Long afterId, int limit) {
+    return jdbcCalls.call(() -> {
+      List<Order> orders = orderRepository.findPage(afterId, limit);
+      if (orders.isEmpty()) {
+        return List.<OrderWithItemsResponse>of();
+      }
+      Map<Long, List<OrderItem>> itemsByOrder = orderItemRepository
+          .findByOrdersIdIn(orders.stream().map(Order::getId).toList()).stream()
+          .collect(Collectors.groupingBy(OrderItem::getOrdersId));
+      return orders.stream().map(order -> OrderWithItemsResponse.of(order,
+          itemsByOrder.getOrDefault(order.getId(), List.of()))).toList();
+    }).flatMapIterable(page -> page);
+  }
+
+  @Override
+  public Mono<Order> createOrder(CreateOrderRequest request) {
+    List<Long> productIds = request.getItems().stream().map(OrderItemRequest::getProductId)
+        .distinct().collect(Collectors.toList());
+    return Mono.deferContextual(context -> orderMetrics.time(CREATE, "jdbc", jdbcCalls.call(() -> {
+          // Productos leídos fuera de la transacción, como en el camino R2DBC
+          Map<Long, Product> foundProducts = productsById(productIds);
+          BusinessException validationError =
+              OrderServiceImpl.validateAgainstProducts(request, productIds, foundProducts);
+          if (validationError != null) {
+            throw validationError;
+          }
+          return transactionTemplate.execute(status -> {
+            Order order = orderRepository.insert(Order.builder().id(orderIdGenerator.next())
+                .date(LocalDateTime.now()).state("PENDIENTE").build());
+            List<OrderItem> items = request.getItems().stream()
+                .map(itemReq -> OrderItem.builder().ordersId(order.getId())
+                    .productId(itemReq.getProductId()).quantity(itemReq.getQuantity())
+                    .unitPrice(foundProducts.get(itemReq.getProductId()).getPrice()).build())
+                .collect(Collectors.toList());
+            orderItemRepository.insertAll(items);
+            outboxEventRepository.appendAll(outboxEvents.orderCreated(order, items));
+            completeKey(context, order);
+            return order;
+          });
+        })))
+        .doOnError(ex -> orderMetrics.rolledBack(CREATE));
+  }
+
+  @Override
+  public Mono<PricingResult> previewOrder(CreateOrderRequest request) {
+    List<Long> productIds = request.getItems().stream().map(OrderItemRequest::getProductId)
+        .distinct().collect(Collectors.toList());
+    return jdbcCalls.call(() -> {
+      Map<Long, Product> foundProducts = productsById(productIds);
+      BusinessException validationError =
+          OrderServiceImpl.validateAgainstProducts(request, productIds, foundProducts);
+      if (validationError != null) {
+        throw validationError;
+      }
+      return pricingEngine.price(request.getItems().stream()
+          .map(itemReq -> OrderItem.builder().productId(itemReq.getProductId())
+              .quantity(itemReq.getQuantity())
+              .unitPrice(foundProducts.get(itemReq.getProductId()).getPrice()).build())
+          .collect(Collectors.toList()));
+    });
+  }
+
+  @Override
+  public Mono<Order> confirmOrder(Long orderId) {
+    return Mono.deferContextual(context -> orderMetrics.time(CONFIRM, "jdbc", jdbcCalls.call(() -> {
+          // Cantidades tomadas del ledger en memoria: se devuelven si la transacción no confirma
+          Map<Long, Integer> heldInLedger = new HashMap<>();
+          return inTransaction(heldInLedger, () -> {
+            Order order = doConfirmOrder(orderId, heldInLedger);
+            completeKey(context, order);
+            return order;
+          });
+        })))
+        .doOnError(ex -> {
+          orderMetrics.rolledBack(CONFIRM);
+          log.warn("Error confirming order {}, transaction rolled back: {}", orderId,
+              ex.getMessage());
+        });
+  }
+
+  private Order doConfirmOrder(Long orderId, Map<Long, Integer> heldInLedger) {
+    Order order = orderRepository.findById(orderId)
+        .orElseThrow(() -> new ResourceNotFoundException("Order not found: " + orderId));
+    if (!"PENDIENTE".equals(order.getState())) {
+      throw new InvalidOrderStateException("Order is not in PENDING state: " + orderId);
+    }
+    List<OrderItem> items = orderItemRepository.findByOrdersId(orderId);
+    if (items.isEmpty()) {
+      throw new InvalidOrderStateException("Order has no items: " + orderId);
+    }
+
+    pricingEngine.confirm(order, items);
+    // Actualización condicionada al estado, antes que el stock: bloquea la fila del pedido y una
+    // confirmación simultánea falla aquí sin haber reservado nada
+    if (!orderRepository.confirmAll(List.of(order)).isEmpty()) {
+      throw new ConcurrencyConflictException(
+          "Concurrency conflict: order confirmed concurrently: " + orderId);
+    }
+    Map<Long, Integer> totalQuantityPerProduct = OrderServiceImpl.quantityPerProduct(items);
+    Map<Long, Integer> dbQuantities = new HashMap<>();
+    Map<Long, Integer> ledgerQuantities = new HashMap<>();
+    totalQuantityPerProduct.forEach((productId, quantity) -> (stockLedger.owns(productId)
+        ? ledgerQuantities : dbQuantities).put(productId, quantity));
+
+    List<Long> rejectedIds = productRepository.reserveStock(dbQuantities);
+    if (rejectedIds.isEmpty() && !ledgerQuantities.isEmpty()) {
+      rejectedIds = stockLedger.reserve(ledgerQuantities);
+      if (rejectedIds.isEmpty()) {
+        heldInLedger.putAll(ledgerQuantities);
+        journalRepository.appendAll(StockLedger.ledgerSales(ledgerQuantities, items));
+      }
+    }
+    if (rejectedIds.isEmpty() && !dbQuantities.isEmpty()) {
+      // La reserva no leyó el stock: se lee el que dejó, con las filas ya bloqueadas
+      Map<Long, Integer> stockAfter = new HashMap<>();
+      productRepository.findByIdIn(dbQuantities.keySet())
+          .forEach(product -> stockAfter.put(product.getId(), product.getStock()));
+      salesAggregateRepository.addStockBuckets(
+          stockBuckets.deltas(StockBuckets.decrements(dbQuantities, stockAfter)));
+    }
+    if (!rejectedIds.isEmpty()) {
+      orderMetrics.stockRejected(CONFIRM);
+      throw new ConcurrencyConflictException(
+          "Concurrency conflict: could not reserve requested quantity for product IDs: "
+              + rejectedIds.stream().map(String::valueOf).collect(Collectors.joining(", ")));
+    }
+    outboxEventRepository.appendAll(
+        outboxEvents.ordersConfirmed(List.of(order), totalQuantityPerProduct));
+    recordSales(List.of(order), items);
+    return order;
+  }
+
+  @Override
+  public Flux<OrderConfirmationResult> confirmOrders(List<Long> orderIds) {
+    return Flux.fromIterable(orderIds).distinct().buffer(bulkConfirmProperties.getChunkSize())
+        .concatMap(this::confirmChunk);
+  }
+
+  /** Same algorithm as {@link OrderServiceImpl}: one transaction and one row lock per chunk. */
+  private Flux<OrderConfirmationResult> confirmChunk(List<Long> chunk) {
+    return orderMetrics.time(BULK_CONFIRM, "chunk", jdbcCalls.call(() -> {
+          Map<Long, Integer> heldInLedger = new HashMap<>();
+          return inTransaction(heldInLedger, () -> doConfirmChunk(chunk, heldInLedger));
+        }))
+        .onErrorResume(ex -> {
+          orderMetrics.rolledBack(BULK_CONFIRM);
+          log.warn("Bulk confirmation of chunk {} rolled back: {}", chunk, ex.getMessage());
+          return Mono.just(chunk.stream()
+              .map(orderId -> OrderConfirmationResult.failed(orderId, ex.getMessage())).toList());
+        })
+        .flatMapMany(Flux::fromIterable);
+  }
+
+  /** As {@link IdempotencyService#completeWithin}, in the current JDBC transaction. */
+  private void completeKey(ContextView context, Order response) {
+    IdempotencyService.claimOf(context).ifPresent(claim -> {
+      if (idempotencyRecordRepository.complete(claim.id(), claim.claimedAt(),
+          idempotencyService.toJson(response)) == 0) {
+        throw new ConcurrencyConflictException(IdempotencyService.KEY_TAKEN_OVER);
+      }
+    });
+  }
+
+  /**
+   * Runs {@code work} in a transaction and gives back what it took from the ledger if the
+   * transaction rolls back. This happens here rather than on the error signal: a subscriber that
+   * cancels (client gone, timeout) does not stop the blocking call, which may still commit.
+   */
+  private <T> T inTransaction(Map<Long, Integer> heldInLedger, Supplier<T> work) {
+    try {
+      return transactionTemplate.execute(status -> work.get());
+    } catch (RuntimeException ex) {
+      stockLedger.release(heldInLedger);
+      throw ex;
+    }
+  }
+
+  private List<OrderConfirmationResult> doConfirmChunk(List<Long> chunk,
+      Map<Long, Integer> heldInLedger) {
+    Map<Long, Order> orders = orderRepository.findAllById(chunk).stream()
+        .collect(Collectors.toMap(Order::getId, Function.identity()));
+    Map<Long, List<OrderItem>> itemsByOrder = orderItemRepository.findByOrdersIdIn(chunk).stream()
+        .collect(Collectors.groupingBy(OrderItem::getOrdersId));
+    Map<Long, OrderConfirmationResult> failures = new HashMap<>();
+    Set<Long> dbProductIds = new HashSet<>();
+    for (Long orderId : chunk) {
+      Order order = orders.get(orderId);
+      if (order == null) {
+        failures.put(orderId, OrderConfirmationResult.failed(orderId, "Order not found: " + orderId));
+      } else if (!"PENDIENTE".equals(order.getState())) {
+        failures.put(orderId, OrderConfirmationResult.notPending(order));
+      } else if (!itemsByOrder.containsKey(orderId)) {
+        failures.put(orderId, OrderConfirmationResult.failed(orderId,
+            "Order has no items: " + orderId));
+      } else {
+        itemsByOrder.get(orderId).stream().map(OrderItem::getProductId)
+            .filter(productId -> !stockLedger.owns(productId)).forEach(dbProductIds::add);
+      }
+    }
+
+    Map<Long, Integer> remainingStock = new HashMap<>();
+    if (!dbProductIds.isEmpty()) {
+      productRepository.findByIdInForUpdate(dbProductIds)
+          .forEach(product -> remainingStock.put(product.getId(), product.getStock()));
+    }
+    List<OrderConfirmationResult> results = new ArrayList<>(chunk.size());
+    List<Order> accepted = new ArrayList<>();
+    List<OrderItem> acceptedItems = new ArrayList<>();
+    Map<Long, Integer> dbQuantities = new HashMap<>();
+    for (Long orderId : chunk) {
+      if (failures.containsKey(orderId)) {
+        results.add(failures.get(orderId));
+        continue;
+      }
+      Order order = orders.get(orderId);
+      List<OrderItem> items = itemsByOrder.get(orderId);
+      String error = OrderServiceImpl.allocateStock(stockLedger,
+          OrderServiceImpl.quantityPerProduct(items), remainingStock, dbQuantities, heldInLedger);
+      if (error != null) {
+        orderMetrics.stockRejected(BULK_CONFIRM);
+        results.add(OrderConfirmationResult.failed(orderId, error));
+        continue;
+      }
+      pricingEngine.confirm(order, items);
+      accepted.add(order);
+      acceptedItems.addAll(items);
+      results.add(OrderConfirmationResult.confirmed(order));
+    }
+    Map<Long, Integer> reservedQuantities = new HashMap<>(dbQuantities);
+    heldInLedger.forEach((productId, quantity) ->
+        reservedQuantities.merge(productId, quantity, Integer::sum));
+
+    // Con las filas bloqueadas, la reserva agregada no puede fallar por stock
+    List<Long> rejectedIds = productRepository.reserveStock(dbQuantities);
+    if (!rejectedIds.isEmpty()) {
+      throw new ConcurrencyConflictException(
+          "Concurrency conflict: could not reserve requested quantity for product IDs: "
+              + rejectedIds);
+    }
+    journalRepository.appendAll(StockLedger.ledgerSales(heldInLedger, acceptedItems));
+    salesAggregateRepository.addStockBuckets(
+        stockBuckets.deltas(StockBuckets.decrements(dbQuantities, remainingStock)));
+    List<Long> notPendingIds = orderRepository.confirmAll(accepted);
+    if (!notPendingIds.isEmpty()) {
+      throw new ConcurrencyConflictException(
+          "Concurrency conflict: orders confirmed concurrently: " + notPendingIds);
+    }
+    outboxEventRepository.appendAll(outboxEvents.ordersConfirmed(accepted, reservedQuantities));
+    if (!accepted.isEmpty()) {
+      recordSales(accepted, acceptedItems);
+    }
+    return results;
+  }
+
+  private void recordSales(List<Order> orders, List<OrderItem> items) {
+    int slot = salesAggregates.slotFor(orders);
+    salesAggregateRepository.lockGate(slot);
+    salesAggregateRepository.addDailySales(slot, SalesAggregates.dailyTotals(orders));
+    salesAggregateRepository.addProductSales(salesAggregates.productTotalsToRecord(items));
+  }
+
+  private Map<Long, Product> productsById(List<Long> productIds) {
+    return productRepository.findByIdIn(productIds).stream()
+        .collect(Collectors.toMap(Product::getId, Function.identity()));
+  }
+
+}
@@ -0,0 +1,186 @@
+package org.example.demo.service.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.exception.ConcurrencyConflictException;
+import org.example.demo.exception.ResourceNotFoundException;
+import org.example.demo.model.entity.OutboxEvent;
+import org.example.demo.model.entity.Product;
+import org.example.demo.model.request.CreateProductRequest;
+import org.example.demo.model.request.ProductImportRow;
+import org.example.demo.model.request.UpdateProductRequest;
+import org.example.demo.model.response.ProductImportProgress;
+import org.example.demo.repository.JdbcOutboxEventRepository;
+import org.example.demo.repository.JdbcProductRepository;
+import org.example.demo.repository.JdbcSalesAggregateRepository;
+import org.example.demo.service.ProductService;
+import org.example.demo.service.aggregate.StockBuckets;
+import org.example.demo.service.aggregate.StockBuckets.StockChange;
+import org.example.demo.service.ledger.StockLedger;
+import org.example.demo.service.outbox.OutboxEvents;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+/** {@link ProductService} over blocking JDBC ({@code persistence.mode=jdbc}), without the cache. */
+@Service
+@ConditionalOnProperty(name = "persistence.mode", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class JdbcProductServiceImpl implements ProductService {
+
+  private final JdbcProductRepository productRepository;
+  private final JdbcOutboxEventRepository outboxEventRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final JdbcCalls jdbcCalls;
+  private final StockLedger stockLedger;
+  private final ProductImportProperties productImportProperties;
+  private final OutboxEvents outboxEvents;
+  private final JdbcSalesAggregateRepository salesAggregateRepository;
+  private final StockBuckets stockBuckets;
+
+  @Override
+  public Mono<Product> createProduct(CreateProductRequest request) {
+    Product product = Product.builder().name(request.getName()).price(request.getPrice())
+        .stock(request.getStock()).build();
+    return jdbcCalls.call(() -> transactionTemplate.execute(status -> {
+      Product saved = productRepository.insert(product);
+      salesAggregateRepository.addStockBuckets(
+          stockBuckets.deltas(List.of(new StockChange(null, saved.getStock()))));
+      outboxEventRepository.appendAll(
+          outboxEvents.productsChanged(OutboxEvent.PRODUCT_CREATED, List.of(saved)));
+      return saved;
+    }));
+  }
+
+  @Override
+  public Mono<Product> getProductById(Long productId) {
+    return jdbcCalls.call(() -> productRepository.findById(productId).orElse(null))
+        .switchIfEmpty(Mono.error(
+            new ResourceNotFoundException("Product not found with id: " + productId)));
+  }
+
+  @Override
+  public Flux<Product> getAllProducts() {
+    return jdbcCalls.allPages(
+        afterId -> productRepository.findPage(afterId, JdbcCalls.STREAM_PAGE_SIZE), Product::getId);
+  }
+
+  @Override
+  public Flux<Product> getProductsPage(Long afterId, int limit) {
+    return jdbcCalls.call(() -> productRepository.findPage(afterId, limit))
+        .flatMapIterable(page -> page);
+  }
+
+  @Override
+  public Mono<Product> updateProduct(Long productId, UpdateProductRequest request) {
+    // Si el ledger es dueño del stock, volcar sus deltas antes de leer la versión vigente
+    return stockLedger.flush(productId)
+        .then(jdbcCalls.call(() -> transactionTemplate.execute(status -> {
+          // Con la fila bloqueada: las reservas de stock no cambian la versión
+          Product product = productRepository.findByIdInForUpdate(List.of(productId)).stream()
+              .findFirst().orElseThrow(
+                  () -> new ResourceNotFoundException("Product not found with id: " + productId));
+          Integer stockBefore = product.getStock();
+          product.setName(request.getName());
+          product.setPrice(request.getPrice());
+          product.setStock(request.getStock());
+          if (!productRepository.update(product)) {
+            throw new ConcurrencyConflictException(
+                "Concurrency conflict: product modified concurrently: " + productId);
+          }
+          salesAggregateRepository.addStockBuckets(
+              stockBuckets.deltas(List.of(new StockChange(stockBefore, product.getStock()))));
+          outboxEventRepository.appendAll(
+              outboxEvents.productsChanged(OutboxEvent.PRODUCT_UPDATED, List.of(product)));
+          return product;
+        })))
+        .doOnNext(stockLedger::refresh);
+  }
+
+  @Override
+  public Flux<ProductImportProgress> importProducts(Flux<ProductImportRow> rows) {
+    return Flux.defer(() -> {
+      // Totales acumulados de esta importación; cada lote se procesa tras el anterior
+      long[] totals = new long[3];
+      return rows.index((index, row) -> Tuples.of(index + 1, row))
+          .buffer(productImportProperties.getBatchSize())
+          .concatMap(batch -> importBatch(batch).map(errors -> {
+            totals[0] += batch.size();
+            totals[1] += batch.size() - errors.size();
+            totals[2] += errors.size();
+            return ProductImportProgress.builder().processed(totals[0]).upserted(totals[1])
+                .failed(totals[2]).errors(errors).build();
+          }));
+    });
+  }
+
+  private Mono<List<ProductImportProgress.RowError>> importBatch(
+      List<Tuple2<Long, ProductImportRow>> batch) {
+    List<ProductImportProgress.RowError> errors = new ArrayList<>();
+    List<Product> products = new ArrayList<>(batch.size());
+    List<Long> rowNumbers = new ArrayList<>(batch.size());
+    for (Tuple2<Long, ProductImportRow> numbered : batch) {
+      String error = ProductServiceImpl.validate(numbered.getT2());
+      if (error != null) {
+        errors.add(new ProductImportProgress.RowError(numbered.getT1(), error));
+        continue;
+      }
+      ProductImportRow row = numbered.getT2();
+      products.add(Product.builder().id(row.getId()).name(row.getName()).price(row.getPrice())
+          .stock(row.getStock()).build());
+      rowNumbers.add(numbered.getT1());
+    }
+
+    List<Product> ownedByLedger = products.stream()
+        .filter(product -> product.getId() != null && stockLedger.owns(product.getId())).toList();
+    return Flux.fromIterable(ownedByLedger).concatMap(product -> stockLedger.flush(product.getId()))
+        .then(jdbcCalls.call(() -> transactionTemplate.execute(status -> {
+          // Filas existentes bloqueadas antes del upsert: su stock anterior es el que se reemplaza
+          List<Long> existingIds = products.stream().map(Product::getId).filter(Objects::nonNull)
+              .distinct().toList();
+          Map<Long, Integer> stockBefore = new HashMap<>();
+          if (!existingIds.isEmpty()) {
+            productRepository.findByIdInForUpdate(existingIds)
+                .forEach(product -> stockBefore.put(product.getId(), product.getStock()));
+          }
+          productRepository.upsertAll(products);
+          salesAggregateRepository.addStockBuckets(
+              stockBuckets.deltas(StockBuckets.upserts(products, stockBefore)));
+          outboxEventRepository.appendAll(
+              outboxEvents.productsChanged(OutboxEvent.PRODUCT_UPSERTED, products));
+          return errors;
+        })))
+        .doOnNext(unused -> ownedByLedger.forEach(stockLedger::refresh))
+        .onErrorResume(ex -> {
+          rowNumbers.forEach(
+              row -> errors.add(new ProductImportProgress.RowError(row, ex.getMessage())));
+          return Mono.just(errors);
+        });
+  }
+
+  @Override
+  public Mono<Void> deleteProduct(Long productId) {
+    return jdbcCalls.call(() -> transactionTemplate.execute(status -> {
+      Product product = productRepository.findByIdInForUpdate(List.of(productId)).stream()
+          .findFirst().orElseThrow(
+              () -> new ResourceNotFoundException("Product not found with id: " + productId));
+      productRepository.deleteById(productId);
+      salesAggregateRepository.addStockBuckets(
+          stockBuckets.deltas(List.of(new StockChange(product.getStock(), null))));
+      outboxEventRepository.appendAll(outboxEvents.productDeleted(productId));
+      return productId;
+    })).then();
+  }
+}
@@ -2,185 +2,520 @@ package org.example.demo.service.impl;
 
 import java.time.LocalDateTime;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import lombok.RequiredArgsConstructor;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.example.demo.config.ReadReplica;
+import org.example.demo.exception.BusinessException;
+import org.example.demo.exception.ConcurrencyConflictException;
+import org.example.demo.exception.InsufficientStockException;
+import org.example.demo.exception.InvalidOrderStateException;
+import org.example.demo.exception.ResourceNotFoundException;
+import org.example.demo.exception.ShardCommitException;
 import org.example.demo.model.entity.Order;
 import org.example.demo.model.entity.OrderItem;
+import org.example.demo.model.entity.OrderShardIntent;
 import org.example.demo.model.entity.Product;
 import org.example.demo.model.request.CreateOrderRequest;
 import org.example.demo.model.request.OrderItemRequest;
-import org.example.demo.repository.OrderItemRepository;
-import org.example.demo.repository.OrderRepository;
+import org.example.demo.model.response.OrderConfirmationResult;
+import org.example.demo.model.response.OrderWithItemsResponse;
 import org.example.demo.repository.ProductRepository;
+import org.example.demo.repository.ShardedOrderItemRepository;
+import org.example.demo.repository.ShardedOrderRepository;
+import org.example.demo.repository.shard.OrderIdGenerator;
+import org.example.demo.repository.shard.OrderShards;
 import org.example.demo.service.OrderService;
+import org.example.demo.service.cache.ProductCache;
+import org.example.demo.service.cache.SingleFlight;
+import org.example.demo.service.idempotency.IdempotencyService;
+import org.example.demo.service.ledger.StockLedger;
+import org.example.demo.service.metrics.OrderMetrics;
+import org.example.demo.service.aggregate.SalesAggregates;
+import org.example.demo.service.aggregate.StockBuckets;
+import org.example.demo.service.outbox.ChangeEventOutbox;
+import org.example.demo.service.pricing.PricingEngine;
+import org.example.demo.service.pricing.PricingResult;
+import org.example.demo.service.shard.OrderShardIntents;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.ReactiveTransaction;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Service
+@ConditionalOnProperty(name = "persistence.mode", havingValue = "r2dbc", matchIfMissing = true)
 @Slf4j
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
 
-  private final OrderRepository orderRepository;
-  private final OrderItemRepository orderItemRepository;
+  private static final String CREATE = "create";
+  private static final String CONFIRM = "confirm";
+  private static final String BULK_CONFIRM = "bulk-confirm";
+
+  /** Only one in this many stock reservations is logged at DEBUG. */
+  private static final int STOCK_DEBUG_SAMPLE_RATE = 100;
+
+  private final ShardedOrderRepository orderRepository;
+  private final ShardedOrderItemRepository orderItemRepository;
   private final ProductRepository productRepository;
-  private final TransactionalOperator transactionalOperator;
+  private final OrderShards orderShards;
+  private final OrderIdGenerator orderIdGenerator;
+  private final StockLedger stockLedger;
+  private final ProductCache productCache;
+  private final BulkConfirmProperties bulkConfirmProperties;
+  private final PricingEngine pricingEngine;
+  private final OrderMetrics orderMetrics;
+  private final ChangeEventOutbox changeEventOutbox;
+  private final SalesAggregates salesAggregates;
+  private final StockBuckets stockBuckets;
+  private final OrderShardIntents orderShardIntents;
+  private final IdempotencyService idempotencyService;
+  private final AtomicLong stockDebugSampler = new AtomicLong();
+  private final SingleFlight<Long, Order> orderReads = new SingleFlight<>();
 
   @Override
   public Mono<Order> getOrderById(Long orderId) {
-    return orderRepository.findById(orderId)
-        .switchIfEmpty(Mono.error(new RuntimeException("Order not found with id: " + orderId)))
-        .flatMap(
-            order -> orderItemRepository.findByOrdersId(order.getId()).collectList().map(items -> order));
+    // Lecturas concurrentes del mismo pedido comparten una sola consulta. La marca de réplica va
+    // en la carga: SingleFlight la suscribe fuera del Context del llamador
+    return orderReads.execute(orderId,
+        id -> orderRepository.findById(id).contextWrite(ReadReplica.ROUTE))
+        .switchIfEmpty(Mono.error(new ResourceNotFoundException("Order not found with id: " + orderId)));
+  }
+
+  @Override
+  public Mono<OrderWithItemsResponse> getOrderWithItems(Long orderId) {
+    // Cabecera y líneas en paralelo: dos consultas, sin depender una de otra
+    return Mono.zip(getOrderById(orderId), orderItemRepository.findByOrdersId(orderId).collectList())
+        .map(tuple -> OrderWithItemsResponse.of(tuple.getT1(), tuple.getT2()))
+        .contextWrite(ReadReplica.ROUTE);
   }
 
   @Override
   public Flux<Order> getAllOrders() {
-    return orderRepository.findAll();
+    return orderRepository.findAll().contextWrite(ReadReplica.ROUTE);
+  }
+
+  @Override
+  public Flux<Order> getOrdersPage(Long afterId, int limit) {
+    return orderRepository.findPage(afterId, limit).contextWrite(ReadReplica.ROUTE);
+  }
+
+  @Override
+  public Flux<OrderWithItemsResponse> getOrdersWithItemsPage(Long afterId, int limit) {
+    // Una consulta para la página y otra (orders_id IN ...) para todas sus líneas
+    return orderRepository.findPage(afterId, limit).collectList().flatMapMany(orders -> {
+      if (orders.isEmpty()) {
+        return Flux.empty();
+      }
+      List<Long> orderIds = orders.stream().map(Order::getId).collect(Collectors.toList());
+      return orderItemRepository.findByOrdersIdIn(orderIds)
+          .collectMultimap(OrderItem::getOrdersId)
+          .flatMapMany(itemsByOrder -> Flux.fromIterable(orders)
+              .map(order -> OrderWithItemsResponse.of(order, List.copyOf(
+                  itemsByOrder.getOrDefault(order.getId(), List.of())))));
+    }).contextWrite(ReadReplica.ROUTE);
   }
 
   public Mono<Order> createOrder(CreateOrderRequest request) {
     List<Long> productIds = request.getItems().stream().map(OrderItemRequest::getProductId)
-        .collect(Collectors.toList());
-    return productRepository.findByIdIn(productIds).collectMap(Product::getId)
+        .distinct().collect(Collectors.toList());
+    // Crear Order en estado PENDIENTE
+    // El id lo genera la aplicación y decide el shard del pedido
+    Order nuevoOrder = Order.builder().id(orderIdGenerator.next()).date(LocalDateTime.now())
+        .state("PENDIENTE").build();
+
+    // Precio y nombre salen de la caché antes de abrir la transacción: una carga que espera
+    // conexión mientras la transacción retiene otra agotaría el pool bajo carga
+    return orderMetrics.time(CREATE, "product-fetch", productCache.getAll(productIds))
         .flatMap(foundProducts -> {
-          // Validar si todos los IDs existen
-          if (foundProducts.size() != productIds.size()) {
-            List<Long> foundProductIds = foundProducts.keySet().stream().toList();
-            String missingIds = productIds.stream().filter(id -> !foundProductIds.contains(id))
-                .map(String::valueOf).collect(Collectors.joining(", "));
-            return Mono.error(
-                new RuntimeException("One or more products not found. Missing IDs: " + missingIds));
-          }
-          // Validar stock preliminar
-          for (OrderItemRequest itemReq : request.getItems()) {
-            Product p = foundProducts.get(itemReq.getProductId());
-            if (p.getStock() < itemReq.getQuantity()) {
-              return Mono.error(new RuntimeException(
-                  "Preliminary insufficient stock for product ID: " + p.getId()));
-            }
+          BusinessException validationError =
+              validateAgainstProducts(request, productIds, foundProducts);
+          if (validationError != null) {
+            return Mono.error(validationError);
           }
+          return orderShards.transactional(nuevoOrder.getId(),
+              orderMetrics.time(CREATE, "header-save", orderRepository.insert(nuevoOrder))
+                  .flatMap(savedOrder -> {
+                    // Crear OrderItems asociados
+                    List<OrderItem> items = request.getItems().stream()
+                        .map(itemReq -> OrderItem.builder().ordersId(savedOrder.getId())
+                            .productId(itemReq.getProductId()).quantity(itemReq.getQuantity())
+                            .unitPrice(foundProducts.get(itemReq.getProductId()).getPrice())
+                            .build())
+                        .collect(Collectors.toList());
 
-          // Crear Order en estado PENDIENTE
-          Order nuevoOrder = Order.builder().date(LocalDateTime.now()).state("PENDIENTE").build();
+                    return orderMetrics.time(CREATE, "items-insert",
+                            orderItemRepository.insertAll(items))
+                        .then(orderMetrics.time(CREATE, "outbox",
+                            changeEventOutbox.orderCreated(savedOrder, items)))
+                        .then(orderShardIntents.recordCreated(savedOrder))
+                        .then(idempotencyService.completeWithin(savedOrder))
+                        .thenReturn(savedOrder);
+                  }))
+              .flatMap(savedOrder -> orderShardIntents
+                  .release(OrderShardIntent.CREATE, List.of(savedOrder.getId()))
+                  .thenReturn(savedOrder));
+        })
+        .doOnError(ex -> orderMetrics.rolledBack(CREATE));
+  }
 
-          return orderRepository.save(nuevoOrder).flatMap(savedOrder -> {
-            // Crear OrderItems asociados
-            List<OrderItem> items = request.getItems().stream()
-                .map(itemReq -> OrderItem.builder().ordersId(savedOrder.getId())
-                    .productId(itemReq.getProductId()).quantity(itemReq.getQuantity())
-                    .unitPrice(foundProducts.get(itemReq.getProductId()).getPrice()).build())
-                .collect(Collectors.toList());
+  @Override
+  public Mono<PricingResult> previewOrder(CreateOrderRequest request) {
+    List<Long> productIds = request.getItems().stream().map(OrderItemRequest::getProductId)
+        .distinct().collect(Collectors.toList());
+    // Solo lectura desde la caché: no toca ORDERS ni reserva stock
+    return productCache.getAll(productIds).flatMap(foundProducts -> {
+      BusinessException validationError =
+          validateAgainstProducts(request, productIds, foundProducts);
+      if (validationError != null) {
+        return Mono.error(validationError);
+      }
+      List<OrderItem> items = request.getItems().stream()
+          .map(itemReq -> OrderItem.builder().productId(itemReq.getProductId())
+              .quantity(itemReq.getQuantity())
+              .unitPrice(foundProducts.get(itemReq.getProductId()).getPrice()).build())
+          .collect(Collectors.toList());
+      return Mono.just(pricingEngine.price(items));
+    });
+  }
 
-            return orderItemRepository.saveAll(items).then(Mono.just(savedOrder));
-          });
-        });
+  /**
+   * Checks that every requested product exists and has enough stock for a preliminary
+   * reservation. Returns the error to signal, or null when the request is valid.
+   */
+  static BusinessException validateAgainstProducts(CreateOrderRequest request, List<Long> productIds,
+      Map<Long, Product> foundProducts) {
+    // Validar si todos los IDs existen
+    if (foundProducts.size() != productIds.size()) {
+      String missingIds = productIds.stream().filter(id -> !foundProducts.containsKey(id))
+          .map(String::valueOf).collect(Collectors.joining(", "));
+      return new ResourceNotFoundException(
+          "One or more products not found. Missing IDs: " + missingIds);
+    }
+    // Validar stock preliminar
+    for (OrderItemRequest itemReq : request.getItems()) {
+      Product p = foundProducts.get(itemReq.getProductId());
+      if (p.getStock() < itemReq.getQuantity()) {
+        return new InsufficientStockException(
+            "Preliminary insufficient stock for product ID: " + p.getId());
+      }
+    }
+    return null;
   }
 
   public Mono<Order> confirmOrder(Long orderId) {
-    return transactionalOperator.execute(status ->
-    orderRepository.findById(orderId)
-        .switchIfEmpty(Mono.error(new RuntimeException("Order not found: " + orderId)))
+    return Mono.defer(() -> {
+      // Cantidades tomadas del ledger en memoria: se devuelven si la transacción no confirma
+      Map<Long, Integer> heldInLedger = new HashMap<>();
+      Set<Long> reservedProductIds = new HashSet<>();
+      return runToCompletion(doConfirmOrder(orderId, heldInLedger, reservedProductIds)
+          .doOnSuccess(order -> productCache.invalidateAll(reservedProductIds))
+          // La base principal confirmó: lo tomado del ledger ya está en su diario
+          .doOnError(ShardCommitException.class,
+              ex -> productCache.invalidateAll(reservedProductIds))
+          .doOnError(ex -> !(ex instanceof ShardCommitException), ex -> {
+            // La transacción se deshizo: lo tomado del ledger vuelve a estar disponible
+            orderMetrics.rolledBack(CONFIRM);
+            stockLedger.release(heldInLedger);
+          }));
+    });
+  }
+
+  private Mono<Order> doConfirmOrder(Long orderId, Map<Long, Integer> heldInLedger,
+      Set<Long> reservedProductIds) {
+    return orderShards.execute(orderId, status ->
+    orderMetrics.time(CONFIRM, "order-fetch", orderRepository.findById(orderId))
+        .switchIfEmpty(Mono.error(new ResourceNotFoundException("Order not found: " + orderId)))
         .filter(p -> "PENDIENTE".equals(p.getState()))
         .switchIfEmpty(
-            Mono.error(new RuntimeException("Order is not in PENDING state: " + orderId)))
-        .flatMap(
-            order -> orderItemRepository.findByOrdersId(orderId).collectList().flatMap(items -> {
-              if (items.isEmpty()) {
-                status.setRollbackOnly();
-                return Mono.error(new RuntimeException("Order has no items: " + orderId));
+            Mono.error(new InvalidOrderStateException("Order is not in PENDING state: " + orderId)))
+        .flatMap(order -> orderShardIntents.findConfirmations(List.of(orderId))
+            .flatMap(committed -> committed.containsKey(orderId)
+                ? completeOnShard(order, committed.get(orderId))
+                : confirmPending(order, status, heldInLedger, reservedProductIds))))
+        .single()
+        .flatMap(order -> orderShardIntents.release(OrderShardIntent.CONFIRM, List.of(orderId))
+            .thenReturn(order))
+        .doOnError(ex -> log.warn("Error confirming order {}: {}", orderId, ex.getMessage()));
+  }
+
+  /** Confirms a PENDIENTE order: state, stock, events, summaries and its key in one transaction. */
+  private Mono<Order> confirmPending(Order order, ReactiveTransaction status,
+      Map<Long, Integer> heldInLedger, Set<Long> reservedProductIds) {
+    Long orderId = order.getId();
+    return orderMetrics.time(CONFIRM, "items-fetch",
+        orderItemRepository.findByOrdersId(orderId).collectList()).flatMap(items -> {
+          if (items.isEmpty()) {
+            status.setRollbackOnly();
+            return Mono.error(new InvalidOrderStateException("Order has no items: " + orderId));
+          }
+
+          pricingEngine.confirm(order, items);
+          Map<Long, Integer> totalQuantityPerProduct = quantityPerProduct(items);
+          reservedProductIds.addAll(totalQuantityPerProduct.keySet());
+
+          // El estado cambia antes que el stock con UPDATE ... AND state = 'PENDIENTE': la
+          // fila del pedido queda bloqueada y una confirmación simultánea no reserva dos veces
+          return orderMetrics.time(CONFIRM, "save", orderRepository.confirmAll(List.of(order)))
+              .flatMap(notPendingIds -> notPendingIds.isEmpty()
+                  ? orderMetrics.time(CONFIRM, "stock-update",
+                      reserveStock(totalQuantityPerProduct, items, heldInLedger))
+                  : Mono.error(new ConcurrencyConflictException(
+                      "Concurrency conflict: order confirmed concurrently: " + orderId)))
+              .flatMap(rejectedIds -> {
+                if (!rejectedIds.isEmpty()) {
+                  status.setRollbackOnly();
+                  orderMetrics.stockRejected(CONFIRM);
+                  return Mono.error(new ConcurrencyConflictException(
+                      "Concurrency conflict: could not reserve requested quantity for product IDs: "
+                          + rejectedIds.stream().map(String::valueOf)
+                              .collect(Collectors.joining(", "))));
+                }
+                if (log.isDebugEnabled()
+                    && stockDebugSampler.getAndIncrement() % STOCK_DEBUG_SAMPLE_RATE == 0) {
+                  log.debug("Reserved stock for order {} (sampled 1/{}): {}", orderId,
+                      STOCK_DEBUG_SAMPLE_RATE, totalQuantityPerProduct);
+                }
+                return orderMetrics.time(CONFIRM, "outbox",
+                        changeEventOutbox.ordersConfirmed(List.of(order), totalQuantityPerProduct))
+                    .then(orderMetrics.time(CONFIRM, "aggregates",
+                        salesAggregates.recordConfirmed(List.of(order), items)))
+                    .then(orderShardIntents.recordConfirmed(List.of(order)))
+                    .then(idempotencyService.completeWithin(order))
+                    .thenReturn(order);
+              });
+        });
+  }
+
+  /**
+   * Retry of a confirmation whose main transaction committed and whose shard did not: the order is
+   * only confirmed on its shard, with the totals the main database recorded.
+   */
+  private Mono<Order> completeOnShard(Order order, OrderShardIntent confirmation) {
+    OrderShardIntents.rollForward(order, confirmation);
+    return orderRepository.confirmAll(List.of(order))
+        .flatMap(notPendingIds -> notPendingIds.isEmpty()
+            ? idempotencyService.completeWithin(order).thenReturn(order)
+            : Mono.error(new ConcurrencyConflictException(
+                "Concurrency conflict: order confirmed concurrently: " + order.getId())));
+  }
+
+  @Override
+  public Flux<OrderConfirmationResult> confirmOrders(List<Long> orderIds) {
+    // Cada lote es de un solo shard: su transacción abarca la base principal y ese shard
+    Map<Integer, List<Long>> idsByShard = orderIds.stream().distinct()
+        .collect(Collectors.groupingBy(OrderIdGenerator::shardOf, LinkedHashMap::new,
+            Collectors.toList()));
+    return Flux.fromIterable(idsByShard.values())
+        .concatMap(shardIds -> Flux.fromIterable(shardIds)
+            .buffer(bulkConfirmProperties.getChunkSize()))
+        .concatMap(this::confirmChunk);
+  }
+
+  /**
+   * Confirms one chunk, all on the same shard, in a single transaction. Product rows are locked
+   * once for the whole chunk, stock is allocated to the orders in request order and the accepted
+   * quantities are decremented in one batched statement. Orders that cannot be confirmed are
+   * reported without aborting the rest of the chunk. Orders whose confirmation the main database
+   * already committed, and their shard did not, are only confirmed on the shard.
+   */
+  private Flux<OrderConfirmationResult> confirmChunk(List<Long> chunk) {
+    Map<Long, Integer> heldInLedger = new HashMap<>();
+    Set<Long> reservedProductIds = new HashSet<>();
+    Mono<List<OrderConfirmationResult>> confirmation = Mono.zip(
+            orderRepository.findAllById(chunk).collectMap(Order::getId),
+            orderItemRepository.findByOrdersIdIn(chunk).collectMultimap(OrderItem::getOrdersId),
+            orderShardIntents.findConfirmations(chunk))
+        .flatMap(tuple -> {
+          Map<Long, Order> orders = tuple.getT1();
+          Map<Long, Collection<OrderItem>> itemsByOrder = tuple.getT2();
+          Map<Long, OrderShardIntent> committed = tuple.getT3();
+          Map<Long, OrderConfirmationResult> failures = new HashMap<>();
+          Set<Long> dbProductIds = new HashSet<>();
+          for (Long orderId : chunk) {
+            Order order = orders.get(orderId);
+            if (order == null) {
+              failures.put(orderId,
+                  OrderConfirmationResult.failed(orderId, "Order not found: " + orderId));
+            } else if (!"PENDIENTE".equals(order.getState())) {
+              failures.put(orderId, OrderConfirmationResult.notPending(order));
+            } else if (committed.containsKey(orderId)) {
+              // La base principal ya confirmó este pedido y su shard no: solo falta el shard
+              OrderShardIntents.rollForward(order, committed.get(orderId));
+            } else if (!itemsByOrder.containsKey(orderId)) {
+              failures.put(orderId, OrderConfirmationResult.failed(orderId,
+                  "Order has no items: " + orderId));
+            } else {
+              itemsByOrder.get(orderId).stream().map(OrderItem::getProductId)
+                  .filter(productId -> !stockLedger.owns(productId)).forEach(dbProductIds::add);
+            }
+          }
+
+          Mono<Map<Long, Integer>> lockedStock = dbProductIds.isEmpty()
+              ? Mono.just(new HashMap<>())
+              : productRepository.findByIdInForUpdate(dbProductIds)
+                  .collectMap(Product::getId, Product::getStock, HashMap::new);
+          return lockedStock.flatMap(remainingStock -> {
+            List<OrderConfirmationResult> results = new ArrayList<>(chunk.size());
+            List<Order> accepted = new ArrayList<>();
+            List<Order> toConfirm = new ArrayList<>();
+            List<OrderItem> acceptedItems = new ArrayList<>();
+            Map<Long, Integer> dbQuantities = new HashMap<>();
+            for (Long orderId : chunk) {
+              if (failures.containsKey(orderId)) {
+                results.add(failures.get(orderId));
+                continue;
+              }
+              Order order = orders.get(orderId);
+              if (committed.containsKey(orderId)) {
+                toConfirm.add(order);
+                results.add(OrderConfirmationResult.confirmed(order));
+                continue;
+              }
+              Collection<OrderItem> items = itemsByOrder.get(orderId);
+              String error = allocateStock(stockLedger, quantityPerProduct(items), remainingStock,
+                  dbQuantities, heldInLedger);
+              if (error != null) {
+                orderMetrics.stockRejected(BULK_CONFIRM);
+                results.add(OrderConfirmationResult.failed(orderId, error));
+                continue;
               }
-              List<Long> productIds = items.stream().map(OrderItem::getProductId)
-                  .collect(Collectors.toList());
-
-              return productRepository.findByIdIn(productIds).collectMap(Product::getId)
-                  .flatMap(productsMap -> {
-                    for (OrderItem item : items) {
-                      if (!productsMap.containsKey(item.getProductId())) {
-                        status.setRollbackOnly();
-                        return Mono.error(
-                            new RuntimeException("Product from order item not found in database: "
-                                + item.getProductId()));
-                      }
-                    }
-
-                    double totalGross = 0.0;
-                    for (OrderItem item : items) {
-                      Product product = productsMap.get(item.getProductId());
-                      // product null check ya no es necesario por la validación anterior
-                      if (product.getStock() < item.getQuantity()) {
-                        status.setRollbackOnly(); // Marcar para rollback
-                        return Mono.error(new RuntimeException(
-                            "Final insufficient stock for product ID: " + product.getId()));
-                      }
-                      totalGross += item.getUnitPrice() * item.getQuantity();
-                    }
-
-                    double discountRate = 0.0;
-                    if (totalGross > 1000.0) {
-                      discountRate += 0.10;
-                    }
-                    long uniqueProducts = items.stream().map(OrderItem::getProductId).distinct()
-                        .count();
-                    if (uniqueProducts > 5) {
-                      discountRate += 0.05;
-                    }
-                    double totalFinal = totalGross * (1.0 - discountRate);
-
-                    Map<Long, Integer> totalQuantityPerProduct = items.stream()
-                        .collect(Collectors.groupingBy(OrderItem::getProductId,
-                            Collectors.summingInt(OrderItem::getQuantity)));
-
-                    Flux<Integer> updateStockFlux = Flux
-                        .fromIterable(totalQuantityPerProduct.entrySet()).concatMap(entry -> {
-                          Long productId = entry.getKey();
-                          Integer totalQuantityToDecrement = entry.getValue();
-                          Product p = productsMap.get(productId);
-
-                          if (p == null) {
-                            status.setRollbackOnly();
-                            return Mono.error(new RuntimeException(
-                                "Product not found in map during stock update: " + productId));
-                          }
-                          if (p.getStock() < totalQuantityToDecrement) {
-                            status.setRollbackOnly();
-                            return Mono.error(new RuntimeException(
-                                "Final insufficient stock (grouped) for product ID: " + p.getId()));
-                          }
-
-                          int newStock = p.getStock() - totalQuantityToDecrement;
-                          System.out.println("Attempting to update stock for product ID: "
-                              + p.getId() + ", currentStock: " + p.getStock()
-                              + ", totalQuantityToDecrement: " + totalQuantityToDecrement
-                              + ", newStockCalculated: " + newStock + ", expectedVersion: "
-                              + p.getVersion());
-
-                          return productRepository.updateStockOptimistic(p.getId(), newStock,
-                              p.getVersion());
-                        });
-
-                    order.setTotalGross(totalGross);
-                    order.setTotalFinal(totalFinal);
-                    order.setState("CONFIRMADO");
-
-                    return updateStockFlux.collectList().then(orderRepository.save(order));
-                  });
-            })))
-        .single().onErrorMap(ex -> {
-          System.err.println(
-              "Error confirming order, transaction will be rolled back: " + ex.getMessage());
-          return ex;
+              pricingEngine.confirm(order, items);
+              accepted.add(order);
+              toConfirm.add(order);
+              acceptedItems.addAll(items);
+              results.add(OrderConfirmationResult.confirmed(order));
+            }
+            reservedProductIds.addAll(dbQuantities.keySet());
+            reservedProductIds.addAll(heldInLedger.keySet());
+            Map<Long, Integer> reservedQuantities = new HashMap<>(dbQuantities);
+            heldInLedger.forEach((productId, quantity) ->
+                reservedQuantities.merge(productId, quantity, Integer::sum));
+
+            // Con las filas bloqueadas, la reserva agregada no puede fallar por stock
+            return productRepository.reserveStock(dbQuantities)
+                .flatMap(rejectedIds -> rejectedIds.isEmpty()
+                    ? stockLedger.journal(heldInLedger, acceptedItems)
+                        .then(stockBuckets.changed(StockBuckets.decrements(dbQuantities,
+                            remainingStock)))
+                        .then(orderRepository.confirmAll(toConfirm))
+                    : Mono.error(new ConcurrencyConflictException(
+                        "Concurrency conflict: could not reserve requested quantity for product IDs: "
+                            + rejectedIds)))
+                .flatMap(notPendingIds -> notPendingIds.isEmpty()
+                    ? changeEventOutbox.ordersConfirmed(accepted, reservedQuantities)
+                        .then(salesAggregates.recordConfirmed(accepted, acceptedItems))
+                        .then(orderShardIntents.recordConfirmed(accepted))
+                        .thenReturn(results)
+                    : Mono.error(new ConcurrencyConflictException(
+                        "Concurrency conflict: orders confirmed concurrently: " + notPendingIds)));
+          });
         });
+
+    return runToCompletion(orderMetrics.time(BULK_CONFIRM, "chunk",
+                orderShards.transactional(chunk.get(0), confirmation))
+            .flatMap(results -> orderShardIntents.release(OrderShardIntent.CONFIRM, chunk)
+                .thenReturn(results))
+            .doOnSuccess(results -> productCache.invalidateAll(reservedProductIds))
+            .doOnError(ShardCommitException.class,
+                ex -> productCache.invalidateAll(reservedProductIds))
+            .doOnError(ex -> !(ex instanceof ShardCommitException),
+                ex -> stockLedger.release(heldInLedger)))
+        .onErrorResume(ex -> {
+          orderMetrics.rolledBack(BULK_CONFIRM);
+          log.warn("Bulk confirmation of chunk {} rolled back: {}", chunk, ex.getMessage());
+          return Mono.just(chunk.stream()
+              .map(orderId -> OrderConfirmationResult.failed(orderId, ex.getMessage())).toList());
+        })
+        .flatMapMany(Flux::fromIterable);
+  }
+
+  /**
+   * Runs a confirmation to its end even if the caller cancels (client gone, timeout), as a blocking
+   * call does in JDBC mode. Cancelling a transaction that is committing does not tell whether the
+   * commit went through; letting it finish does, so quantities taken from the ledger are released
+   * exactly when the transaction rolled back.
+   */
+  private static <T> Mono<T> runToCompletion(Mono<T> confirmation) {
+    return Mono.deferContextual(context ->
+        Mono.fromFuture(confirmation.contextWrite(context).toFuture(), true));
+  }
+
+  /**
+   * Takes the order's quantities out of {@code remainingStock} (locked DB rows) and the ledger, all
+   * or nothing. Returns an error message, or null when the order got its stock.
+   */
+  static String allocateStock(StockLedger stockLedger, Map<Long, Integer> quantities,
+      Map<Long, Integer> remainingStock, Map<Long, Integer> dbQuantities,
+      Map<Long, Integer> heldInLedger) {
+    Map<Long, Integer> ledgerQuantities = new HashMap<>();
+    for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+      Long productId = entry.getKey();
+      if (stockLedger.owns(productId)) {
+        ledgerQuantities.put(productId, entry.getValue());
+      } else if (!remainingStock.containsKey(productId)) {
+        return "Product from order item not found in database: " + productId;
+      } else if (remainingStock.get(productId) < entry.getValue()) {
+        return "Insufficient stock for product ID: " + productId;
+      }
+    }
+    List<Long> ledgerRejectedIds = stockLedger.reserve(ledgerQuantities);
+    if (!ledgerRejectedIds.isEmpty()) {
+      return "Insufficient stock for product ID: " + ledgerRejectedIds.get(0);
+    }
+    ledgerQuantities.forEach((productId, quantity) -> heldInLedger.merge(productId, quantity, Integer::sum));
+    quantities.forEach((productId, quantity) -> {
+      if (!ledgerQuantities.containsKey(productId)) {
+        remainingStock.merge(productId, -quantity, Integer::sum);
+        dbQuantities.merge(productId, quantity, Integer::sum);
+      }
+    });
+    return null;
+  }
+
+  static Map<Long, Integer> quantityPerProduct(Collection<OrderItem> items) {
+    return items.stream().collect(Collectors.groupingBy(OrderItem::getProductId,
+        Collectors.summingInt(OrderItem::getQuantity)));
+  }
+
+  private Mono<List<Long>> reserveStock(Map<Long, Integer> quantityPerProduct,
+      List<OrderItem> items, Map<Long, Integer> heldInLedger) {
+    Map<Long, Integer> dbQuantities = new HashMap<>();
+    Map<Long, Integer> ledgerQuantities = new HashMap<>();
+    quantityPerProduct.forEach((productId, quantity) -> (stockLedger.owns(productId)
+        ? ledgerQuantities : dbQuantities).put(productId, quantity));
+
+    // Reserva atómica en BD (stock = stock - qty WHERE stock >= qty), sin lectura previa;
+    // los productos calientes se reservan en memoria solo si la parte en BD tuvo éxito
+    return productRepository.reserveStock(dbQuantities).flatMap(rejectedIds -> {
+      if (!rejectedIds.isEmpty()) {
+        return Mono.just(rejectedIds);
+      }
+      List<Long> ledgerRejectedIds = stockLedger.reserve(ledgerQuantities);
+      if (!ledgerRejectedIds.isEmpty()) {
+        return Mono.just(ledgerRejectedIds);
+      }
+      heldInLedger.putAll(ledgerQuantities);
+      return stockBuckets.decremented(dbQuantities)
+          .then(ledgerQuantities.isEmpty() ? Mono.empty()
+              : stockLedger.journal(ledgerQuantities, items))
+          .thenReturn(ledgerRejectedIds);
+    });
   }
 
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package org.example.demo.service.impl;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "product.import")
+public class ProductImportProperties {
+  /** Rows written per multi-row upsert statement; also the progress reporting granularity. */
+  private int batchSize = 1000;
+}
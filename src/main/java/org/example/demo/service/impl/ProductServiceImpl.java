@@ -1,66 +1,199 @@
 package org.example.demo.service.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
 import lombok.RequiredArgsConstructor;
 
+import org.example.demo.config.ReadReplica;
+import org.example.demo.exception.ConcurrencyConflictException;
+import org.example.demo.exception.ResourceNotFoundException;
+import org.example.demo.model.entity.OutboxEvent;
 import org.example.demo.model.entity.Product;
 import org.example.demo.model.request.CreateProductRequest;
+import org.example.demo.model.request.ProductImportRow;
 import org.example.demo.model.request.UpdateProductRequest;
+import org.example.demo.model.response.ProductImportProgress;
 import org.example.demo.repository.ProductRepository;
 import org.example.demo.service.ProductService;
+import org.example.demo.service.aggregate.StockBuckets;
+import org.example.demo.service.aggregate.StockBuckets.StockChange;
+import org.example.demo.service.cache.ProductCache;
+import org.example.demo.service.ledger.StockLedger;
+import org.example.demo.service.outbox.ChangeEventOutbox;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
 @Service
+@ConditionalOnProperty(name = "persistence.mode", havingValue = "r2dbc", matchIfMissing = true)
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService {
 
   private final ProductRepository productRepository;
+  private final StockLedger stockLedger;
+  private final ProductCache productCache;
+  private final ProductImportProperties productImportProperties;
+  private final TransactionalOperator transactionalOperator;
+  private final ChangeEventOutbox changeEventOutbox;
+  private final StockBuckets stockBuckets;
 
   @Override
   public Mono<Product> createProduct(CreateProductRequest request) {
     Product product = Product.builder().name(request.getName()).price(request.getPrice())
         .stock(request.getStock()).build();
-    return productRepository.save(product);
+    return transactionalOperator.transactional(productRepository.save(product)
+            .flatMap(saved -> stockBuckets.changed(List.of(new StockChange(null, saved.getStock())))
+                .then(changeEventOutbox.productsChanged(OutboxEvent.PRODUCT_CREATED,
+                    List.of(saved)))
+                .thenReturn(saved)))
+        .doOnNext(productCache::put);
   }
 
   @Override
   public Mono<Product> getProductById(Long productId) {
-    return productRepository.findById(productId)
-        .switchIfEmpty(Mono.error(new RuntimeException("Product not found with id: " + productId)));
+    // La caché agrupa las cargas concurrentes del mismo id en una sola consulta
+    return productCache.get(productId)
+        .switchIfEmpty(Mono.error(
+            new ResourceNotFoundException("Product not found with id: " + productId)));
   }
 
   @Override
   public Flux<Product> getAllProducts() {
-    return productRepository.findAll();
+    return productRepository.findAll().contextWrite(ReadReplica.ROUTE);
+  }
+
+  @Override
+  public Flux<Product> getProductsPage(Long afterId, int limit) {
+    return productRepository.findPage(afterId, limit).contextWrite(ReadReplica.ROUTE);
   }
 
   @Override
   public Mono<Product> updateProduct(Long productId, UpdateProductRequest request) {
-    return productRepository.findById(productId)
-        .switchIfEmpty(Mono.error(new RuntimeException("Product not found with id: " + productId)))
+    // Si el ledger es dueño del stock, volcar sus deltas antes de leer la versión vigente
+    return stockLedger.flush(productId).then(productRepository.findById(productId))
+        .switchIfEmpty(Mono.error(
+            new ResourceNotFoundException("Product not found with id: " + productId)))
         .flatMap(existingProduct -> {
           existingProduct.setName(request.getName());
           existingProduct.setPrice(request.getPrice());
           existingProduct.setStock(request.getStock());
-          // The 'version' field will be handled by optimistic locking if you save it.
-          // Spring Data R2DBC @Version might automatically increment if supported,
-          // otherwise, your manual optimistic lock query in confirmOrder is specific.
-          // For a general update, ensure the version is handled if needed,
-          // or rely on the specific updateStockOptimistic for stock changes.
-          // For this general update, we'll save, and if concurrent stock updates are
-          // critical,
-          // they should go through a method that uses updateStockOptimistic.
-          return productRepository.save(existingProduct);
+          // @Version en Product: si otra escritura cambió la fila, save() falla y no la pisa.
+          // El stock anterior se lee con la fila bloqueada: las reservas no cambian la versión
+          Mono<Product> update = productRepository.findByIdInForUpdate(List.of(productId)).next()
+              .flatMap(locked -> productRepository.save(existingProduct)
+                  .flatMap(saved -> stockBuckets.changed(
+                          List.of(new StockChange(locked.getStock(), saved.getStock())))
+                      .then(changeEventOutbox.productsChanged(OutboxEvent.PRODUCT_UPDATED,
+                          List.of(saved)))
+                      .thenReturn(saved)));
+          return transactionalOperator.transactional(update)
+              .onErrorMap(OptimisticLockingFailureException.class,
+                  ex -> new ConcurrencyConflictException(
+                      "Concurrency conflict: product modified concurrently: " + productId))
+              .doOnNext(stockLedger::refresh)
+              .doOnNext(productCache::put);
         });
   }
 
+  @Override
+  public Flux<ProductImportProgress> importProducts(Flux<ProductImportRow> rows) {
+    return Flux.defer(() -> {
+      // Totales acumulados de esta importación; cada lote se procesa tras el anterior
+      long[] totals = new long[3];
+      return rows.index((index, row) -> Tuples.of(index + 1, row))
+          .buffer(productImportProperties.getBatchSize())
+          .concatMap(batch -> importBatch(batch).map(errors -> {
+            totals[0] += batch.size();
+            totals[1] += batch.size() - errors.size();
+            totals[2] += errors.size();
+            return ProductImportProgress.builder().processed(totals[0]).upserted(totals[1])
+                .failed(totals[2]).errors(errors).build();
+          }));
+    });
+  }
+
+  private Mono<List<ProductImportProgress.RowError>> importBatch(
+      List<Tuple2<Long, ProductImportRow>> batch) {
+    List<ProductImportProgress.RowError> errors = new ArrayList<>();
+    List<Product> products = new ArrayList<>(batch.size());
+    List<Long> rowNumbers = new ArrayList<>(batch.size());
+    for (Tuple2<Long, ProductImportRow> numbered : batch) {
+      String error = validate(numbered.getT2());
+      if (error != null) {
+        errors.add(new ProductImportProgress.RowError(numbered.getT1(), error));
+        continue;
+      }
+      ProductImportRow row = numbered.getT2();
+      products.add(Product.builder().id(row.getId()).name(row.getName()).price(row.getPrice())
+          .stock(row.getStock()).build());
+      rowNumbers.add(numbered.getT1());
+    }
+
+    List<Product> ownedByLedger = products.stream()
+        .filter(product -> product.getId() != null && stockLedger.owns(product.getId())).toList();
+    List<Long> existingIds = products.stream().map(Product::getId).filter(Objects::nonNull)
+        .distinct().toList();
+    // Filas existentes bloqueadas antes del upsert: su stock anterior es el que se reemplaza
+    Mono<Map<Long, Integer>> stockBefore = existingIds.isEmpty()
+        ? Mono.just(Map.of())
+        : productRepository.findByIdInForUpdate(existingIds)
+            .collectMap(Product::getId, Product::getStock);
+    return Flux.fromIterable(ownedByLedger).concatMap(product -> stockLedger.flush(product.getId()))
+        .then(transactionalOperator.transactional(stockBefore
+            .flatMap(before -> productRepository.upsertAll(products)
+                .flatMap(affected -> stockBuckets.changed(StockBuckets.upserts(products, before))
+                    .thenReturn(affected)))
+            .flatMap(affected -> changeEventOutbox
+                .productsChanged(OutboxEvent.PRODUCT_UPSERTED, products).thenReturn(affected))))
+        .map(affected -> {
+          ownedByLedger.forEach(stockLedger::refresh);
+          products.stream().map(Product::getId).filter(Objects::nonNull)
+              .forEach(productCache::invalidate);
+          return errors;
+        })
+        .onErrorResume(ex -> {
+          rowNumbers.forEach(
+              row -> errors.add(new ProductImportProgress.RowError(row, ex.getMessage())));
+          return Mono.just(errors);
+        });
+  }
+
+  static String validate(ProductImportRow row) {
+    if (row.getParseError() != null) {
+      return row.getParseError();
+    }
+    if (row.getName() == null || row.getName().isBlank()) {
+      return "Product name cannot be blank";
+    }
+    if (row.getPrice() == null || row.getPrice().signum() <= 0) {
+      return "Product price must be positive";
+    }
+    if (row.getStock() == null || row.getStock() < 0) {
+      return "Product stock must be positive or zero";
+    }
+    return null;
+  }
+
   @Override
   public Mono<Void> deleteProduct(Long productId) {
-    return productRepository.findById(productId)
-        .switchIfEmpty(Mono.error(new RuntimeException("Product not found with id: " + productId)))
-        .flatMap(productRepository::delete);
+    return transactionalOperator.transactional(
+            productRepository.findByIdInForUpdate(List.of(productId)).next()
+                .switchIfEmpty(Mono.error(
+                    new ResourceNotFoundException("Product not found with id: " + productId)))
+                .flatMap(product -> productRepository.delete(product)
+                    .then(stockBuckets.changed(
+                        List.of(new StockChange(product.getStock(), null))))
+                    .then(changeEventOutbox.productDeleted(productId))))
+        .doOnSuccess(unused -> productCache.invalidate(productId));
   }
 }
\ No newline at end of file
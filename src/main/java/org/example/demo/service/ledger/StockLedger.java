@@ -0,0 +1,255 @@
+package org.example.demo.service.ledger;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.example.demo.model.entity.OrderItem;
+import org.example.demo.model.entity.Product;
+import org.example.demo.model.entity.StockLedgerJournalEntry;
+import org.example.demo.model.response.ProductSales;
+import org.example.demo.repository.ProductRepository;
+import org.example.demo.repository.SalesAggregateRepository;
+import org.example.demo.repository.StockLedgerJournalRepository;
+import org.example.demo.service.aggregate.SalesAggregates;
+import org.example.demo.service.aggregate.SalesAggregatesProperties;
+import org.example.demo.service.aggregate.StockBuckets;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory stock for hot products. Reservations are answered with lock-free counters and the
+ * net deltas are written behind to PRODUCT.stock in batched conditional updates.
+ *
+ * <p>Durability: PRODUCT.stock of an owned product lags behind the confirmed orders by up to one
+ * flush interval. So that a crash in that window does not leave CONFIRMADO orders without their
+ * stock decrement, every confirmation writes the quantities it took from the ledger to
+ * STOCK_LEDGER_JOURNAL ({@link #journal}) in its own transaction, and each flush applies and
+ * deletes journal entries in one transaction. At startup the entries left by a previous run are
+ * applied before the in-memory stock is loaded. The counters themselves are never persisted.
+ *
+ * <p>The flush also carries what the confirmation would otherwise have written to the summaries
+ * of an owned product: its PRODUCT_SALES totals and its stock range count. Confirmations of a hot
+ * product then never wait on the same summary row.
+ *
+ * <p>Ownership: once a product is loaded here, only the ledger decrements its stock. The in-memory
+ * availability never exceeds {@code PRODUCT.stock - pending}, and the flush uses the same
+ * {@code stock >= delta} guard as the direct path, so CHK_ProductStock can never be violated.
+ * Direct writes to an owned product (e.g. updateProduct) must go through {@link #flush(Long)}
+ * and {@link #refresh(Product)}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockLedger {
+
+  /** Journal entries applied per flush transaction. */
+  private static final int FLUSH_BATCH_SIZE = 1000;
+
+  private final StockLedgerProperties properties;
+  private final ProductRepository productRepository;
+  private final StockLedgerJournalRepository journalRepository;
+  private final SalesAggregateRepository salesAggregateRepository;
+  private final StockBuckets stockBuckets;
+  private final SalesAggregatesProperties aggregatesProperties;
+  private final TransactionalOperator transactionalOperator;
+
+  private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+  private Disposable flushTask;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    // Reservas confirmadas que una ejecución anterior no llegó a volcar (caída): se aplican
+    // aunque el ledger esté ahora desactivado o ya no sea dueño de esos productos
+    journalRepository.findProductIds().concatMap(this::flushJournal)
+        .then().block(Duration.ofSeconds(30));
+    if (!properties.isEnabled() || properties.getProductIds().isEmpty()) {
+      return;
+    }
+    // Recuperar el stock desde BD: en memoria no sobrevive nada entre reinicios
+    productRepository.findByIdIn(properties.getProductIds())
+        .doOnNext(product -> entries.put(product.getId(), new Entry(product.getStock())))
+        .then().block(Duration.ofSeconds(30));
+    log.info("Stock ledger owns products {}", entries.keySet());
+
+    flushTask = Flux.interval(properties.getFlushInterval())
+        .onBackpressureDrop()
+        .concatMap(tick -> flushAll().onErrorResume(ex -> {
+          log.warn("Stock ledger flush failed, will retry: {}", ex.getMessage());
+          return Mono.empty();
+        }))
+        .subscribe();
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (flushTask != null) {
+      flushTask.dispose();
+    }
+    flushAll().block(Duration.ofSeconds(30));
+  }
+
+  public boolean owns(Long productId) {
+    return entries.containsKey(productId);
+  }
+
+  /**
+   * Reserves every quantity or none. Returns the IDs that could not be reserved.
+   */
+  public List<Long> reserve(Map<Long, Integer> quantityPerProduct) {
+    Map<Long, Integer> reserved = new HashMap<>();
+    for (Map.Entry<Long, Integer> request : quantityPerProduct.entrySet()) {
+      Entry entry = entries.get(request.getKey());
+      if (entry == null || !entry.tryReserve(request.getValue())) {
+        release(reserved);
+        return List.of(request.getKey());
+      }
+      reserved.put(request.getKey(), request.getValue());
+    }
+    return List.of();
+  }
+
+  /** Gives back quantities reserved by a confirmation that was later rolled back. */
+  public void release(Map<Long, Integer> quantityPerProduct) {
+    quantityPerProduct.forEach((productId, quantity) -> {
+      Entry entry = entries.get(productId);
+      if (entry != null) {
+        entry.release(quantity);
+      }
+    });
+  }
+
+  /** Re-bases an owned product on the stock just written to the database. */
+  public void refresh(Product product) {
+    Entry entry = entries.get(product.getId());
+    if (entry != null) {
+      entry.available.set(Math.max(0, product.getStock() - entry.pending.get()));
+    }
+  }
+
+  /**
+   * Writes what a confirmation took from the ledger to the journal. Must run in the confirmation's
+   * transaction, so that the entry exists exactly when the confirmation committed.
+   */
+  public Mono<Void> journal(Map<Long, Integer> heldInLedger, Collection<OrderItem> items) {
+    return journalRepository.appendAll(ledgerSales(heldInLedger, items)).then();
+  }
+
+  /** Journal rows of a confirmation: per product held, its quantity and the items' value. */
+  public static List<ProductSales> ledgerSales(Map<Long, Integer> heldInLedger,
+      Collection<OrderItem> items) {
+    // Ordenadas por producto, como todas las escrituras por lotes
+    return SalesAggregates.productTotals(items.stream()
+            .filter(item -> heldInLedger.containsKey(item.getProductId())).toList())
+        .stream()
+        .map(sold -> new ProductSales(sold.getProductId(), heldInLedger.get(sold.getProductId()),
+            sold.getGrossAmount()))
+        .toList();
+  }
+
+  public Mono<Void> flush(Long productId) {
+    Entry entry = entries.get(productId);
+    return entry == null || entry.pending.get() == 0 ? Mono.empty() : flushJournal(productId);
+  }
+
+  public Mono<Void> flushAll() {
+    return Flux.fromIterable(entries.entrySet())
+        .filter(entry -> entry.getValue().pending.get() != 0)
+        .concatMap(entry -> flushJournal(entry.getKey()))
+        .then();
+  }
+
+  /** Applies the product's journal to PRODUCT.stock, a batch per transaction, until it is empty. */
+  private Mono<Void> flushJournal(Long productId) {
+    return flushBatch(productId).repeat().takeUntil(delta -> delta == 0).then();
+  }
+
+  private Mono<Integer> flushBatch(Long productId) {
+    Mono<Integer> batch = journalRepository.findOldest(productId, FLUSH_BATCH_SIZE).collectList()
+        .flatMap(journalEntries -> {
+          if (journalEntries.isEmpty()) {
+            return Mono.just(0);
+          }
+          int delta = journalEntries.stream().mapToInt(StockLedgerJournalEntry::getQuantity).sum();
+          List<Long> ids = journalEntries.stream().map(StockLedgerJournalEntry::getId).toList();
+          return productRepository.reserveStock(Map.of(productId, delta)).flatMap(rejectedIds -> {
+            if (!rejectedIds.isEmpty()) {
+              log.warn("Stock ledger flush rejected for product {}, keeping delta {}", productId,
+                  delta);
+              return Mono.just(0);
+            }
+            // Borrar reclama las entradas: si otro volcado ya las aplicó, este se deshace
+            return journalRepository.deleteAllById(ids).flatMap(deleted -> deleted == ids.size()
+                    ? Mono.just(delta)
+                    : Mono.error(new IllegalStateException(
+                        "Stock ledger journal of product " + productId + " flushed concurrently")))
+                .flatMap(flushed -> stockBuckets.decremented(Map.of(productId, delta))
+                    .then(salesAggregateRepository.lockGate(SalesAggregates.slotOf(productId,
+                        aggregatesProperties.getDailySlots())))
+                    .then(salesAggregateRepository.addProductSales(sold(productId, journalEntries)))
+                    .thenReturn(flushed));
+          });
+        });
+    // El valor llega tras el commit: solo entonces deja de estar pendiente en memoria
+    return transactionalOperator.transactional(batch).doOnNext(delta -> {
+      Entry entry = entries.get(productId);
+      if (entry != null) {
+        entry.pending.addAndGet(-delta);
+      }
+    });
+  }
+
+  /** Sales of the entries, as one row. */
+  private static List<ProductSales> sold(Long productId, List<StockLedgerJournalEntry> entries) {
+    long quantity = 0;
+    BigDecimal gross = BigDecimal.ZERO;
+    for (StockLedgerJournalEntry entry : entries) {
+      quantity += entry.getQuantity();
+      gross = gross.add(entry.getGrossAmount());
+    }
+    return List.of(new ProductSales(productId, quantity, gross));
+  }
+
+  private static final class Entry {
+    private final AtomicInteger available;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private Entry(int stock) {
+      this.available = new AtomicInteger(stock);
+    }
+
+    private boolean tryReserve(int quantity) {
+      int current;
+      do {
+        current = available.get();
+        if (current < quantity) {
+          return false;
+        }
+      } while (!available.compareAndSet(current, current - quantity));
+      pending.addAndGet(quantity);
+      return true;
+    }
+
+    private void release(int quantity) {
+      available.addAndGet(quantity);
+      pending.addAndGet(-quantity);
+    }
+  }
+}
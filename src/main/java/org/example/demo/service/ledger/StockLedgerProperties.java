@@ -0,0 +1,28 @@
+package org.example.demo.service.ledger;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stock.ledger")
+public class StockLedgerProperties {
+  /** Master switch; when false every reservation goes straight to PRODUCT. */
+  private boolean enabled = false;
+
+  /** Hot products whose stock is owned by the in-memory ledger. */
+  private Set<Long> productIds = new HashSet<>();
+
+  /**
+   * Delay between write-behind flushes of the net deltas to PRODUCT.stock. Until a flush, the
+   * decrements of confirmed orders exist only in STOCK_LEDGER_JOURNAL; a crash leaves them there
+   * and they are applied at the next startup.
+   */
+  private Duration flushInterval = Duration.ofMillis(200);
+}
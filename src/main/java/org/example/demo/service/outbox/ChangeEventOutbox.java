@@ -0,0 +1,52 @@
+package org.example.demo.service.outbox;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.model.entity.Order;
+import org.example.demo.model.entity.OrderItem;
+import org.example.demo.model.entity.OutboxEvent;
+import org.example.demo.model.entity.Product;
+import org.example.demo.repository.OutboxEventRepository;
+
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Appends change events to OUTBOX_EVENT. Every method must be called inside the transaction of
+ * the change it describes, so an event exists if and only if its change committed.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChangeEventOutbox {
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final OutboxEvents outboxEvents;
+
+  public Mono<Void> orderCreated(Order order, List<OrderItem> items) {
+    return append(outboxEvents.orderCreated(order, items));
+  }
+
+  /** One ORDER_CONFIRMED per order plus one STOCK_RESERVED per product they took stock from. */
+  public Mono<Void> ordersConfirmed(Collection<Order> orders,
+      Map<Long, Integer> quantityPerProduct) {
+    return append(outboxEvents.ordersConfirmed(orders, quantityPerProduct));
+  }
+
+  /** Products written with their new stock; {@code eventType} is one of the PRODUCT_* types. */
+  public Mono<Void> productsChanged(String eventType, Collection<Product> products) {
+    return append(outboxEvents.productsChanged(eventType, products));
+  }
+
+  public Mono<Void> productDeleted(Long productId) {
+    return append(outboxEvents.productDeleted(productId));
+  }
+
+  private Mono<Void> append(List<OutboxEvent> events) {
+    return outboxEventRepository.appendAll(events).then();
+  }
+}
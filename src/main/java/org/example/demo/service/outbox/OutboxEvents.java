@@ -0,0 +1,69 @@
+package org.example.demo.service.outbox;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+import org.example.demo.model.entity.Order;
+import org.example.demo.model.entity.OrderItem;
+import org.example.demo.model.entity.OutboxEvent;
+import org.example.demo.model.entity.Product;
+import org.example.demo.model.response.OrderWithItemsResponse;
+
+import org.springframework.stereotype.Component;
+
+/** Builds the OUTBOX_EVENT rows for each kind of change, whichever driver ends up writing them. */
+@Component
+@RequiredArgsConstructor
+public class OutboxEvents {
+
+  private final ObjectMapper objectMapper;
+
+  public List<OutboxEvent> orderCreated(Order order, List<OrderItem> items) {
+    return List.of(event(OutboxEvent.ORDER, order.getId(), OutboxEvent.ORDER_CREATED,
+        OrderWithItemsResponse.of(order, items)));
+  }
+
+  /** One ORDER_CONFIRMED per order plus one STOCK_RESERVED per product they took stock from. */
+  public List<OutboxEvent> ordersConfirmed(Collection<Order> orders,
+      Map<Long, Integer> quantityPerProduct) {
+    List<OutboxEvent> events = new ArrayList<>(orders.size() + quantityPerProduct.size());
+    for (Order order : orders) {
+      events.add(event(OutboxEvent.ORDER, order.getId(), OutboxEvent.ORDER_CONFIRMED, order));
+    }
+    quantityPerProduct.forEach((productId, quantity) -> events.add(event(OutboxEvent.PRODUCT,
+        productId, OutboxEvent.STOCK_RESERVED,
+        Map.of("productId", productId, "quantity", quantity))));
+    return events;
+  }
+
+  /** Products written with their new stock; {@code eventType} is one of the PRODUCT_* types. */
+  public List<OutboxEvent> productsChanged(String eventType, Collection<Product> products) {
+    return products.stream()
+        .map(product -> event(OutboxEvent.PRODUCT, product.getId(), eventType, product))
+        .toList();
+  }
+
+  public List<OutboxEvent> productDeleted(Long productId) {
+    return List.of(event(OutboxEvent.PRODUCT, productId, OutboxEvent.PRODUCT_DELETED,
+        Map.of("id", productId)));
+  }
+
+  private OutboxEvent event(String aggregateType, Long aggregateId, String eventType,
+      Object payload) {
+    try {
+      return OutboxEvent.builder().aggregateType(aggregateType).aggregateId(aggregateId)
+          .eventType(eventType).payload(objectMapper.writeValueAsString(payload))
+          .createdAt(LocalDateTime.now()).build();
+    } catch (JsonProcessingException ex) {
+      throw new IllegalStateException("Could not serialize " + eventType + " event", ex);
+    }
+  }
+}
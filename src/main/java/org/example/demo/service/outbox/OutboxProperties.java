@@ -0,0 +1,34 @@
+package org.example.demo.service.outbox;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "outbox")
+public class OutboxProperties {
+  /** When false this instance does not assign offsets; another instance must run the relay. */
+  private boolean relayEnabled = true;
+
+  /** Delay between relay polls when there was nothing left to relay. */
+  private Duration relayInterval = Duration.ofMillis(100);
+
+  /** Events given an offset per relay transaction. */
+  private int relayBatchSize = 500;
+
+  /** Events read per query while streaming to a consumer. */
+  private int streamPageSize = 500;
+
+  /**
+   * Streams re-check the table at least this often, for events relayed by another instance;
+   * events relayed here wake them up immediately.
+   */
+  private Duration streamPollInterval = Duration.ofSeconds(1);
+
+  /** Relayed events older than this are deleted; consumers must not fall further behind. */
+  private Duration retention = Duration.ofDays(7);
+}
@@ -0,0 +1,154 @@
+package org.example.demo.service.outbox;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.example.demo.model.entity.OutboxEvent;
+import org.example.demo.repository.OutboxEventRepository;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Tails OUTBOX_EVENT and turns it into a resumable change stream.
+ *
+ * <p>Row ids are allocated at insert time, so a transaction that commits late can make a smaller
+ * id visible after a larger one; a consumer tailing by id would skip it. The relay instead gives
+ * committed rows a {@code stream_offset} in batches, always after every offset already handed out,
+ * and consumers follow that offset. The last offset handed out lives in OUTBOX_STREAM_OFFSET and
+ * moves in the same transaction, so it survives the purge of the rows that carried it. Two relays
+ * cannot hand out the same offset: the one whose compare-and-set on that row misses (or that hits
+ * the unique index on the column) rolls back and retries on its next poll.
+ *
+ * <p>Consumers are at-least-once: resuming from the last offset they processed never misses an
+ * event, as long as they are not further behind than {@code outbox.retention}.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+  private final OutboxProperties properties;
+  private final OutboxEventRepository outboxEventRepository;
+  private final TransactionalOperator transactionalOperator;
+
+  /** Last offset relayed by this instance; wakes up the streams that are waiting for it. */
+  private final Sinks.Many<Long> relayedOffsets = Sinks.many().multicast().directBestEffort();
+  private Disposable relayTask;
+  private Disposable purgeTask;
+
+  public OutboxRelay(OutboxProperties properties, OutboxEventRepository outboxEventRepository,
+      TransactionalOperator transactionalOperator) {
+    this.properties = properties;
+    this.outboxEventRepository = outboxEventRepository;
+    this.transactionalOperator = transactionalOperator;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!properties.isRelayEnabled()) {
+      return;
+    }
+    relayTask = Flux.interval(properties.getRelayInterval())
+        .onBackpressureDrop()
+        .concatMap(tick -> relayAll().onErrorResume(ex -> {
+          log.debug("Outbox relay poll failed, will retry: {}", ex.getMessage());
+          return Mono.empty();
+        }))
+        .subscribe();
+    purgeTask = Flux.interval(properties.getRetention().dividedBy(24))
+        .onBackpressureDrop()
+        .concatMap(tick -> outboxEventRepository
+            .deleteRelayedBefore(LocalDateTime.now().minus(properties.getRetention()))
+            .onErrorResume(ex -> {
+              log.warn("Outbox purge failed, will retry: {}", ex.getMessage());
+              return Mono.empty();
+            }))
+        .subscribe();
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (relayTask != null) {
+      relayTask.dispose();
+    }
+    if (purgeTask != null) {
+      purgeTask.dispose();
+    }
+  }
+
+  /**
+   * Events after {@code afterOffset}, then every new event as it is relayed. Pages are read on
+   * demand, so a slow consumer only slows its own stream.
+   */
+  public Flux<OutboxEvent> events(long afterOffset) {
+    return Flux.defer(() -> {
+      AtomicLong cursor = new AtomicLong(afterOffset);
+      return Flux.merge(Flux.just(0L), relayedOffsets.asFlux(),
+              Flux.interval(properties.getStreamPollInterval()))
+          .onBackpressureLatest()
+          .concatMap(signal -> readFrom(cursor), 1);
+    });
+  }
+
+  private Flux<OutboxEvent> readFrom(AtomicLong cursor) {
+    return readPage(cursor).expand(page -> page.size() < properties.getStreamPageSize()
+            ? Mono.empty() : readPage(cursor))
+        .concatMapIterable(page -> page);
+  }
+
+  private Mono<List<OutboxEvent>> readPage(AtomicLong cursor) {
+    return outboxEventRepository.findAfterOffset(cursor.get(), properties.getStreamPageSize())
+        .collectList()
+        .doOnNext(page -> {
+          if (!page.isEmpty()) {
+            cursor.set(page.get(page.size() - 1).getStreamOffset());
+          }
+        });
+  }
+
+  // Mientras los lotes salgan llenos, seguir sin esperar al siguiente tick
+  private Mono<Void> relayAll() {
+    return relayBatch()
+        .expand(relayed -> relayed >= properties.getRelayBatchSize() ? relayBatch() : Mono.empty())
+        .then();
+  }
+
+  private Mono<Integer> relayBatch() {
+    Mono<List<OutboxEvent>> relayed = outboxEventRepository
+        .findUnrelayed(properties.getRelayBatchSize()).collectList()
+        .flatMap(events -> events.isEmpty()
+            ? Mono.just(events)
+            : outboxEventRepository.findLastOffset().flatMap(lastOffset -> {
+              long next = lastOffset;
+              for (OutboxEvent event : events) {
+                event.setStreamOffset(++next);
+              }
+              Mono<List<OutboxEvent>> concurrently = Mono.error(new IllegalStateException(
+                  "Outbox events relayed concurrently by another instance"));
+              return outboxEventRepository.advanceLastOffset(lastOffset, next)
+                  .flatMap(advanced -> advanced == 1
+                      ? outboxEventRepository.assignOffsets(events)
+                      : Mono.just(0L))
+                  .flatMap(updated -> updated == events.size() ? Mono.just(events) : concurrently);
+            }));
+    return transactionalOperator.transactional(relayed)
+        .doOnNext(events -> {
+          if (!events.isEmpty()) {
+            relayedOffsets.tryEmitNext(events.get(events.size() - 1).getStreamOffset());
+          }
+        })
+        .map(List::size);
+  }
+}
@@ -0,0 +1,16 @@
+package org.example.demo.service.pricing;
+
+import org.springframework.stereotype.Component;
+
+/** 10% off orders whose gross total exceeds 1000. */
+@Component
+public class AmountThresholdDiscountRule implements DiscountRule {
+
+  private static final long THRESHOLD_CENTS = 1000_00;
+  private static final int DISCOUNT_BASIS_POINTS = 1000;
+
+  @Override
+  public int discountBasisPoints(OrderSummary summary) {
+    return summary.grossCents() > THRESHOLD_CENTS ? DISCOUNT_BASIS_POINTS : 0;
+  }
+}
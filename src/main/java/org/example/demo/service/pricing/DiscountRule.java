@@ -0,0 +1,10 @@
+package org.example.demo.service.pricing;
+
+/**
+ * A discount applied on the gross total. Every rule that matches adds its rate; rules are picked
+ * up as Spring beans by {@link PricingEngine}.
+ */
+public interface DiscountRule {
+  /** Discount for the order in basis points (1/100 of a percent), 0 when the rule does not apply. */
+  int discountBasisPoints(OrderSummary summary);
+}
@@ -0,0 +1,11 @@
+package org.example.demo.service.pricing;
+
+/**
+ * Aggregates of one order computed in a single pass, handed to every {@link DiscountRule}.
+ *
+ * @param grossCents       sum of unit price times quantity, in cents
+ * @param lines            number of order lines
+ * @param distinctProducts number of different products across the lines
+ */
+public record OrderSummary(long grossCents, int lines, int distinctProducts) {
+}
@@ -0,0 +1,114 @@
+package org.example.demo.service.pricing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.example.demo.model.entity.Order;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Prices an order in one pass over its lines using exact arithmetic on cents. Nothing is allocated
+ * per line: distinct products are counted in a per-thread open-addressing set, and unit prices are
+ * read as cents without a BigInteger or BigDecimal intermediate.
+ */
+@Component
+public class PricingEngine {
+
+  private static final int BASIS_POINTS = 10_000;
+
+  /**
+   * Up to this many digits a price with scale 2 is read through {@code double} exactly: its
+   * unscaled value is below 2^50, so scaling back to cents is off by far less than half a cent.
+   */
+  private static final int MAX_EXACT_DOUBLE_DIGITS = 15;
+
+  private static final int MIN_SET_CAPACITY = 64;
+
+  /** Product id set reused across calls: a power-of-two table plus one slot for the id 0. */
+  private static final ThreadLocal<long[]> PRODUCT_ID_SET =
+      ThreadLocal.withInitial(() -> new long[MIN_SET_CAPACITY + 1]);
+
+  private final DiscountRule[] rules;
+
+  public PricingEngine(List<DiscountRule> rules) {
+    this.rules = rules.toArray(DiscountRule[]::new);
+  }
+
+  public PricingResult price(Collection<? extends PricingLine> lines) {
+    // Al menos el doble de ranuras que líneas: el sondeo lineal siempre encuentra hueco
+    int capacity = Math.max(MIN_SET_CAPACITY, Integer.highestOneBit(lines.size()) << 2);
+    long[] productIds = PRODUCT_ID_SET.get();
+    if (productIds.length < capacity + 1) {
+      productIds = new long[capacity + 1];
+      PRODUCT_ID_SET.set(productIds);
+    } else {
+      Arrays.fill(productIds, 0, capacity + 1, 0L);
+    }
+
+    long grossCents = 0;
+    int count = 0;
+    int distinct = 0;
+    for (PricingLine line : lines) {
+      grossCents = Math.addExact(grossCents,
+          Math.multiplyExact(toCents(line.getUnitPrice()), line.getQuantity().longValue()));
+      count++;
+      if (addProductId(productIds, capacity, line.getProductId())) {
+        distinct++;
+      }
+    }
+
+    OrderSummary summary = new OrderSummary(grossCents, count, distinct);
+    int discountBasisPoints = 0;
+    for (DiscountRule rule : rules) {
+      discountBasisPoints += rule.discountBasisPoints(summary);
+    }
+    discountBasisPoints = Math.min(discountBasisPoints, BASIS_POINTS);
+
+    // Redondeo half-up a céntimos; los importes son siempre positivos
+    long finalCents = (grossCents * (BASIS_POINTS - discountBasisPoints) + BASIS_POINTS / 2)
+        / BASIS_POINTS;
+    return new PricingResult(BigDecimal.valueOf(grossCents, 2), BigDecimal.valueOf(finalCents, 2),
+        discountBasisPoints);
+  }
+
+  /** Prices the order's lines and writes the totals on the order, marking it confirmed. */
+  public PricingResult confirm(Order order, Collection<? extends PricingLine> lines) {
+    PricingResult result = price(lines);
+    order.setTotalGross(result.totalGross());
+    order.setTotalFinal(result.totalFinal());
+    order.setState("CONFIRMADO");
+    return result;
+  }
+
+  private static long toCents(BigDecimal amount) {
+    if (amount.scale() == 2 && amount.precision() <= MAX_EXACT_DOUBLE_DIGITS) {
+      // unscaledValue() crea un BigInteger por línea; doubleValue() con escala 2 no asigna nada
+      return Math.round(amount.doubleValue() * 100);
+    }
+    return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+  }
+
+  /** Adds the id to the set in {@code table[0, capacity]}; true if it was not there yet. */
+  private static boolean addProductId(long[] table, int capacity, long productId) {
+    if (productId == 0) {
+      // 0 marca una ranura libre: la presencia del id 0 se guarda en la ranura extra
+      boolean added = table[capacity] == 0;
+      table[capacity] = 1;
+      return added;
+    }
+    int mask = capacity - 1;
+    int slot = (int) ((productId * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    while (table[slot] != 0) {
+      if (table[slot] == productId) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+    table[slot] = productId;
+    return true;
+  }
+}
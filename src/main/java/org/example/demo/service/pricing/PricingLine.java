@@ -0,0 +1,12 @@
+package org.example.demo.service.pricing;
+
+import java.math.BigDecimal;
+
+/** What the pricing engine needs from an order line. */
+public interface PricingLine {
+  Long getProductId();
+
+  Integer getQuantity();
+
+  BigDecimal getUnitPrice();
+}
@@ -0,0 +1,13 @@
+package org.example.demo.service.pricing;
+
+import java.math.BigDecimal;
+
+/**
+ * Priced order.
+ *
+ * @param totalGross          sum of the lines, scale 2
+ * @param totalFinal          gross minus discounts, rounded half-up to cents
+ * @param discountBasisPoints sum of the matching rules, in basis points
+ */
+public record PricingResult(BigDecimal totalGross, BigDecimal totalFinal, int discountBasisPoints) {
+}
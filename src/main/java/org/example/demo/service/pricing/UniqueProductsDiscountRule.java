@@ -0,0 +1,16 @@
+package org.example.demo.service.pricing;
+
+import org.springframework.stereotype.Component;
+
+/** 5% off orders with more than 5 different products. */
+@Component
+public class UniqueProductsDiscountRule implements DiscountRule {
+
+  private static final int MIN_EXCLUSIVE_PRODUCTS = 5;
+  private static final int DISCOUNT_BASIS_POINTS = 500;
+
+  @Override
+  public int discountBasisPoints(OrderSummary summary) {
+    return summary.distinctProducts() > MIN_EXCLUSIVE_PRODUCTS ? DISCOUNT_BASIS_POINTS : 0;
+  }
+}
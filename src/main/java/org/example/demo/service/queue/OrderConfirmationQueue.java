@@ -0,0 +1,196 @@
+package org.example.demo.service.queue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.example.demo.exception.InvalidOrderStateException;
+import org.example.demo.exception.ResourceNotFoundException;
+import org.example.demo.model.entity.OrderConfirmationTask;
+import org.example.demo.model.entity.OrderItem;
+import org.example.demo.model.response.OrderConfirmationResult;
+import org.example.demo.repository.OrderConfirmationTaskRepository;
+import org.example.demo.repository.ShardedOrderItemRepository;
+import org.example.demo.repository.ShardedOrderRepository;
+import org.example.demo.service.OrderService;
+import org.example.demo.service.metrics.OrderMetrics;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Asynchronous order confirmation. {@link #enqueue(Long)} only records a task in
+ * ORDER_CONFIRMATION_QUEUE; workers claim queued tasks in batches and confirm them through
+ * {@link OrderService#confirmOrders(List)}, so the outcome is visible in {@code Order.state} and
+ * in the task's status.
+ *
+ * <p>A claimed batch is split into groups of orders that share products. Groups have no product
+ * in common, so they are confirmed concurrently (up to {@code concurrency}) without waiting on each
+ * other's row locks, while each group locks its products once. Claiming goes through an UPDATE
+ * with a per-poll token, so several instances can drain the same queue.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderConfirmationQueue {
+
+  private static final String ASYNC_CONFIRM = "async-confirm";
+  private static final int MAX_ERROR_LENGTH = 500;
+  private static final String CONFIRMED = "CONFIRMADO";
+
+  private final OrderConfirmationQueueProperties properties;
+  private final OrderConfirmationTaskRepository tasks;
+  private final ShardedOrderRepository orderRepository;
+  private final ShardedOrderItemRepository orderItemRepository;
+  private final OrderService orderService;
+  private final OrderMetrics orderMetrics;
+
+  private Disposable worker;
+
+  /** Records a confirmation request for a PENDING order; nothing is locked or priced here. */
+  public Mono<OrderConfirmationTask> enqueue(Long orderId) {
+    return orderRepository.findById(orderId)
+        .switchIfEmpty(Mono.error(new ResourceNotFoundException("Order not found: " + orderId)))
+        .filter(order -> "PENDIENTE".equals(order.getState()))
+        .switchIfEmpty(
+            Mono.error(new InvalidOrderStateException("Order is not in PENDING state: " + orderId)))
+        .flatMap(order -> {
+          LocalDateTime now = LocalDateTime.now();
+          return tasks.save(OrderConfirmationTask.builder().ordersId(orderId)
+              .status(OrderConfirmationTask.QUEUED).createdAt(now).updatedAt(now).build());
+        });
+  }
+
+  /** Latest confirmation task of the order. */
+  public Mono<OrderConfirmationTask> getLatestTask(Long orderId) {
+    return tasks.findLatestByOrdersId(orderId).switchIfEmpty(Mono.error(
+        new ResourceNotFoundException("No asynchronous confirmation for order: " + orderId)));
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!properties.isWorkersEnabled()) {
+      return;
+    }
+    worker = Flux.interval(properties.getPollInterval())
+        .onBackpressureDrop()
+        .concatMap(tick -> requeueStale().then(drain()).onErrorResume(ex -> {
+          log.warn("Order confirmation queue poll failed, will retry: {}", ex.getMessage());
+          return Mono.empty();
+        }))
+        .subscribe();
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (worker != null) {
+      worker.dispose();
+    }
+  }
+
+  private Mono<Integer> requeueStale() {
+    LocalDateTime now = LocalDateTime.now();
+    return tasks.requeueStale(now.minus(properties.getClaimTimeout()), now);
+  }
+
+  // Mientras los lotes salgan llenos, seguir sin esperar al siguiente tick
+  private Mono<Void> drain() {
+    return drainBatch()
+        .expand(claimed -> claimed >= properties.getBatchSize() ? drainBatch() : Mono.empty())
+        .then();
+  }
+
+  private Mono<Integer> drainBatch() {
+    // Basta con que sea único: UUID.randomUUID() lee /dev/urandom en el hilo del poll
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    String claimToken = new UUID(random.nextLong(), random.nextLong()).toString();
+    return tasks.claim(claimToken, LocalDateTime.now(), properties.getBatchSize())
+        .flatMap(claimed -> claimed == 0
+            ? Mono.just(0)
+            : tasks.findByClaimToken(claimToken).collectList()
+                .flatMap(batch -> orderMetrics.time(ASYNC_CONFIRM, "batch", process(batch))
+                    .thenReturn(batch.size())));
+  }
+
+  private Mono<Long> process(List<OrderConfirmationTask> batch) {
+    List<Long> orderIds = batch.stream().map(OrderConfirmationTask::getOrdersId).distinct()
+        .toList();
+    return orderItemRepository.findByOrdersIdIn(orderIds)
+        .collectMultimap(OrderItem::getOrdersId)
+        .flatMapMany(itemsByOrder -> Flux.fromIterable(groupBySharedProducts(orderIds, itemsByOrder)))
+        .flatMap(orderService::confirmOrders, properties.getConcurrency())
+        .collectMap(OrderConfirmationResult::getOrderId)
+        .flatMap(results -> {
+          LocalDateTime now = LocalDateTime.now();
+          for (OrderConfirmationTask task : batch) {
+            OrderConfirmationResult result = results.get(task.getOrdersId());
+            // Ya CONFIRMADO (otra vía o un intento anterior cuyo cierre se perdió): está hecho
+            if (result != null && (result.isSuccess() || CONFIRMED.equals(result.getState()))) {
+              task.setStatus(OrderConfirmationTask.DONE);
+            } else {
+              task.setStatus(OrderConfirmationTask.FAILED);
+              task.setError(truncate(result == null ? "No confirmation result" : result.getError()));
+            }
+            task.setUpdatedAt(now);
+          }
+          return tasks.completeAll(batch);
+        });
+  }
+
+  /**
+   * Partitions the orders so that two orders sharing a product always land in the same group
+   * (connected components of the order-product graph). Request order is kept within a group.
+   */
+  static List<List<Long>> groupBySharedProducts(List<Long> orderIds,
+      Map<Long, Collection<OrderItem>> itemsByOrder) {
+    Map<Long, Long> parent = new HashMap<>();
+    Map<Long, Long> orderByProduct = new HashMap<>();
+    for (Long orderId : orderIds) {
+      parent.put(orderId, orderId);
+    }
+    for (Long orderId : orderIds) {
+      for (OrderItem item : itemsByOrder.getOrDefault(orderId, List.of())) {
+        Long other = orderByProduct.putIfAbsent(item.getProductId(), orderId);
+        if (other != null) {
+          parent.put(root(parent, orderId), root(parent, other));
+        }
+      }
+    }
+    Map<Long, List<Long>> groups = new LinkedHashMap<>();
+    for (Long orderId : orderIds) {
+      groups.computeIfAbsent(root(parent, orderId), key -> new ArrayList<>()).add(orderId);
+    }
+    return new ArrayList<>(groups.values());
+  }
+
+  private static Long root(Map<Long, Long> parent, Long orderId) {
+    Long current = orderId;
+    while (!parent.get(current).equals(current)) {
+      Long next = parent.get(current);
+      parent.put(current, parent.get(next));
+      current = next;
+    }
+    return current;
+  }
+
+  private static String truncate(String error) {
+    return error != null && error.length() > MAX_ERROR_LENGTH
+        ? error.substring(0, MAX_ERROR_LENGTH) : error;
+  }
+}
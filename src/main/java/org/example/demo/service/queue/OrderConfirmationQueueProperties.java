@@ -0,0 +1,28 @@
+package org.example.demo.service.queue;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "order.async-confirm")
+public class OrderConfirmationQueueProperties {
+  /** When false this instance only enqueues; another instance must run the workers. */
+  private boolean workersEnabled = true;
+
+  /** Product-disjoint groups of a batch confirmed at the same time. */
+  private int concurrency = 4;
+
+  /** Tasks claimed per poll. */
+  private int batchSize = 200;
+
+  /** Delay between polls when the queue was drained. */
+  private Duration pollInterval = Duration.ofMillis(100);
+
+  /** A task still PROCESSING after this long is assumed orphaned and queued again. */
+  private Duration claimTimeout = Duration.ofMinutes(5);
+}
@@ -0,0 +1,184 @@
+package org.example.demo.service.shard;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.RequiredArgsConstructor;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.example.demo.model.entity.Order;
+import org.example.demo.model.entity.OrderShardIntent;
+import org.example.demo.repository.OrderShardIntentRepository;
+import org.example.demo.repository.OutboxEventRepository;
+import org.example.demo.repository.ShardedOrderRepository;
+import org.example.demo.repository.shard.OrderShardingProperties;
+import org.example.demo.repository.shard.OrderShards;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Completes order work the main database committed and the order's shard did not (see
+ * {@link OrderShards}).
+ *
+ * <p>Creating or confirming an order of a shard other than 0 inserts an ORDER_SHARD_INTENT row in
+ * the main transaction, and {@link #release} deletes it once the shard has committed too. While
+ * the row is there the outbox relay holds back the order's events, so nothing is published about
+ * an order the shard may not have. A confirmation retried meanwhile finds the row through
+ * {@link #findConfirmations} and only confirms the order on its shard, with the totals the row
+ * kept: stock, events and summaries are already in the main database and are not repeated. Rows
+ * older than {@code order.sharding.settle-after} are settled here, and confirmations of any age
+ * by {@link #settleConfirmations} for the summaries' rebuild:
+ * <ul>
+ *   <li>CREATE: if the shard has the order, its events are released; if not, it was never created
+ *   and its events are deleted.
+ *   <li>CONFIRM: a PENDIENTE order is confirmed on its shard as a retry would.
+ * </ul>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderShardIntents {
+
+  private final OrderShardingProperties properties;
+  private final OrderShards orderShards;
+  private final OrderShardIntentRepository intentRepository;
+  private final ShardedOrderRepository orderRepository;
+  private final OutboxEventRepository outboxEventRepository;
+  private final TransactionalOperator transactionalOperator;
+
+  private Disposable settleTask;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (orderShards.count() == 1) {
+      return;
+    }
+    settleTask = Flux.interval(properties.getSettleInterval())
+        .onBackpressureDrop()
+        .concatMap(tick -> settle(properties.getSettleAfter()).onErrorResume(ex -> {
+          log.warn("Settling order shard intents failed, will retry: {}", ex.getMessage());
+          return Mono.empty();
+        }))
+        .subscribe();
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (settleTask != null) {
+      settleTask.dispose();
+    }
+  }
+
+  /** Records the creation of the order, within the main transaction that creates it. */
+  public Mono<Void> recordCreated(Order order) {
+    return record(List.of(order), OrderShardIntent.CREATE);
+  }
+
+  /** Records the confirmation of the orders, with their totals, within the main transaction. */
+  public Mono<Void> recordConfirmed(Collection<Order> orders) {
+    return record(orders, OrderShardIntent.CONFIRM);
+  }
+
+  /** Confirmations of the given orders that the main database committed, by order id. */
+  public Mono<Map<Long, OrderShardIntent>> findConfirmations(Collection<Long> orderIds) {
+    List<Long> onShards = orderIds.stream().filter(orderShards::spansTwoDatabases).toList();
+    if (onShards.isEmpty()) {
+      return Mono.just(Map.of());
+    }
+    return intentRepository.findByKindAndOrdersIdIn(OrderShardIntent.CONFIRM, onShards)
+        .collectMap(OrderShardIntent::getOrdersId);
+  }
+
+  /** Gives the order the state and totals its committed confirmation recorded. */
+  public static void rollForward(Order order, OrderShardIntent confirmation) {
+    order.setTotalGross(confirmation.getTotalGross());
+    order.setTotalFinal(confirmation.getTotalFinal());
+    order.setState("CONFIRMADO");
+  }
+
+  /**
+   * Deletes the rows once the shard has committed, which releases the orders' events. A failure is
+   * only logged: the work is done, and {@link #settle} deletes the rows later.
+   */
+  public Mono<Void> release(String kind, Collection<Long> orderIds) {
+    List<Long> onShards = orderIds.stream().filter(orderShards::spansTwoDatabases).toList();
+    return intentRepository.deleteByKindAndOrdersIdIn(kind, onShards)
+        .onErrorResume(ex -> {
+          log.warn("Could not release {} intents of orders {}, they will be settled: {}", kind,
+              onShards, ex.getMessage());
+          return Mono.just(0L);
+        })
+        .then();
+  }
+
+  /** Settles up to one batch of rows older than {@code age}; returns how many were settled. */
+  public Mono<Long> settle(Duration age) {
+    return intentRepository.findCreatedBefore(LocalDateTime.now().minus(age),
+            properties.getSettleBatchSize())
+        .concatMap(intent -> settle(intent).thenReturn(intent).onErrorResume(ex -> {
+          log.warn("Could not settle {} of order {}, will retry: {}", intent.getKind(),
+              intent.getOrdersId(), ex.getMessage());
+          return Mono.empty();
+        }))
+        .count();
+  }
+
+  /**
+   * Settles every confirmation row, whatever its age, within the caller's main transaction: after
+   * this each confirmation the main database committed shows as CONFIRMADO on its shard.
+   */
+  public Mono<Void> settleConfirmations() {
+    return intentRepository.findByKind(OrderShardIntent.CONFIRM).concatMap(this::settle).then();
+  }
+
+  private Mono<Void> settle(OrderShardIntent intent) {
+    Long orderId = intent.getOrdersId();
+    Mono<Long> delete = intentRepository.deleteByKindAndOrdersIdIn(intent.getKind(),
+        List.of(orderId));
+    return orderRepository.findById(orderId).map(Optional::of).defaultIfEmpty(Optional.empty())
+        .flatMap(order -> {
+          if (OrderShardIntent.CREATE.equals(intent.getKind())) {
+            // Sin pedido en el shard el alta nunca ocurrió: sus eventos no se publican
+            return order.isPresent()
+                ? delete
+                : transactionalOperator.transactional(
+                    outboxEventRepository.deleteUnrelayedOfOrder(orderId).then(delete));
+          }
+          if (order.isEmpty() || !"PENDIENTE".equals(order.get().getState())) {
+            return delete;
+          }
+          // Stock, eventos y resúmenes ya están en la base principal: solo falta el shard.
+          // Una confirmación aún en curso tiene la fila bloqueada y esta no actualiza nada
+          rollForward(order.get(), intent);
+          log.info("Confirming order {} on its shard, which had not committed it", orderId);
+          return orderRepository.confirmAll(List.of(order.get())).then(delete);
+        })
+        .then();
+  }
+
+  private Mono<Void> record(Collection<Order> orders, String kind) {
+    LocalDateTime now = LocalDateTime.now();
+    List<OrderShardIntent> intents = orders.stream()
+        .filter(order -> orderShards.spansTwoDatabases(order.getId()))
+        .map(order -> OrderShardIntent.builder().ordersId(order.getId()).kind(kind)
+            .totalGross(OrderShardIntent.CONFIRM.equals(kind) ? order.getTotalGross() : null)
+            .totalFinal(OrderShardIntent.CONFIRM.equals(kind) ? order.getTotalFinal() : null)
+            .createdAt(now).build())
+        .toList();
+    return intentRepository.insertAll(intents).then();
+  }
+}
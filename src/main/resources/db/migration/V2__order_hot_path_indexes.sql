@@ -0,0 +1,3 @@
+-- Item lookup by order (single and orders_id IN (...)), answered from the index alone.
+-- ORDERS needs no secondary index: orders are read by id and listed by keyset on id
+CREATE INDEX IDX_ORDERS_ITEM_ORDER_COVERING ON ORDERS_ITEM (orders_id, product_id, quantity, unit_price);
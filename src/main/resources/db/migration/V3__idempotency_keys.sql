@@ -0,0 +1,11 @@
+-- Idempotency-Key de POST /orders y PUT /orders/{id}/confirm: una fila por scope:clave
+CREATE TABLE IF NOT EXISTS IDEMPOTENCY_KEY (
+    id VARCHAR(200) PRIMARY KEY,
+    fingerprint CHAR(64) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    response VARCHAR(4000) NULL,
+    created_at TIMESTAMP NOT NULL
+    );
+
+-- Purga periódica: WHERE created_at < ?
+CREATE INDEX IDX_IDEMPOTENCY_KEY_CREATED_AT ON IDEMPOTENCY_KEY (created_at);
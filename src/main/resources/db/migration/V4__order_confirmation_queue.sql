@@ -0,0 +1,17 @@
+-- Cola durable de PUT /orders/{id}/confirm?async=true; los workers la drenan por lotes
+CREATE TABLE IF NOT EXISTS ORDER_CONFIRMATION_QUEUE (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    orders_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    error VARCHAR(500) NULL,
+    claim_token VARCHAR(36) NULL,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (orders_id) REFERENCES ORDERS(id) ON DELETE CASCADE
+    );
+
+-- Reclamo de trabajo: WHERE status = 'QUEUED' ORDER BY id
+CREATE INDEX IDX_CONFIRMATION_QUEUE_STATUS_ID ON ORDER_CONFIRMATION_QUEUE (status, id);
+
+-- Lectura del lote reclamado: WHERE claim_token = ?
+CREATE INDEX IDX_CONFIRMATION_QUEUE_CLAIM ON ORDER_CONFIRMATION_QUEUE (claim_token);
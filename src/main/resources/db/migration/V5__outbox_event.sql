@@ -0,0 +1,17 @@
+-- Outbox transaccional: cada escritura añade su evento en la misma transacción.
+-- stream_offset lo asigna el relay tras el commit, en orden y sin huecos por commits tardíos
+CREATE TABLE IF NOT EXISTS OUTBOX_EVENT (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    stream_offset BIGINT NULL,
+    aggregate_type VARCHAR(20) NOT NULL,
+    aggregate_id BIGINT NULL,
+    event_type VARCHAR(40) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL
+    );
+
+-- Lectura del stream (stream_offset > ?) y filas pendientes del relay (stream_offset IS NULL)
+CREATE UNIQUE INDEX UX_OUTBOX_EVENT_STREAM_OFFSET ON OUTBOX_EVENT (stream_offset);
+
+-- Purga: WHERE created_at < ?
+CREATE INDEX IDX_OUTBOX_EVENT_CREATED_AT ON OUTBOX_EVENT (created_at);
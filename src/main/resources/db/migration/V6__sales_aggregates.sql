@@ -0,0 +1,35 @@
+-- Totales diarios de pedidos confirmados. Cada día se reparte en varios slots (id de pedido
+-- módulo N) para que las confirmaciones concurrentes no compitan por una sola fila; se leen sumados
+CREATE TABLE IF NOT EXISTS SALES_DAILY (
+    sales_date DATE NOT NULL,
+    slot INT NOT NULL,
+    orders_count BIGINT NOT NULL,
+    total_gross DECIMAL(14, 2) NOT NULL,
+    total_final DECIMAL(14, 2) NOT NULL,
+    PRIMARY KEY (sales_date, slot)
+    );
+
+-- Unidades vendidas por producto; la confirmación ya bloquea la fila de PRODUCT del mismo id
+CREATE TABLE IF NOT EXISTS PRODUCT_SALES (
+    product_id BIGINT PRIMARY KEY,
+    quantity_sold BIGINT NOT NULL,
+    gross_amount DECIMAL(14, 2) NOT NULL
+    );
+
+-- Más vendidos: ORDER BY quantity_sold DESC LIMIT ?
+CREATE INDEX IDX_PRODUCT_SALES_QUANTITY ON PRODUCT_SALES (quantity_sold);
+
+-- Productos por rango de stock (sales.aggregates.stock-bucket-bounds), una fila por rango con su
+-- stock mínimo. Cada escritura de PRODUCT.stock ajusta aquí los rangos que cruza, en su misma
+-- transacción; el arranque la rellena desde PRODUCT si los rangos configurados cambiaron
+CREATE TABLE IF NOT EXISTS STOCK_BUCKET (
+    min_stock INT PRIMARY KEY,
+    products BIGINT NOT NULL
+    );
+
+-- Una fila por slot diario: cada confirmación bloquea la de su slot antes de sumar a los
+-- resúmenes y la reconstrucción las bloquea todas, así no pierde confirmaciones simultáneas.
+-- El arranque crea las que falten si sales.aggregates.daily-slots crece
+CREATE TABLE IF NOT EXISTS SALES_AGGREGATE_GATE (
+    slot INT PRIMARY KEY
+    );
@@ -0,0 +1,43 @@
+-- Los pedidos pueden vivir en un shard distinto de la base principal: la cola de confirmación ya no
+-- referencia ORDERS. Se recrea la tabla porque el nombre de la clave foránea depende del motor
+CREATE TABLE ORDER_CONFIRMATION_QUEUE_V7 (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    orders_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    error VARCHAR(500) NULL,
+    claim_token VARCHAR(36) NULL,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+    );
+
+INSERT INTO ORDER_CONFIRMATION_QUEUE_V7
+    (id, orders_id, status, error, claim_token, created_at, updated_at)
+SELECT id, orders_id, status, error, claim_token, created_at, updated_at
+FROM ORDER_CONFIRMATION_QUEUE;
+
+DROP TABLE ORDER_CONFIRMATION_QUEUE;
+
+ALTER TABLE ORDER_CONFIRMATION_QUEUE_V7 RENAME TO ORDER_CONFIRMATION_QUEUE;
+
+CREATE INDEX IDX_CONFIRMATION_QUEUE_STATUS_ID ON ORDER_CONFIRMATION_QUEUE (status, id);
+
+CREATE INDEX IDX_CONFIRMATION_QUEUE_CLAIM ON ORDER_CONFIRMATION_QUEUE (claim_token);
+
+-- Última tarea de un pedido: WHERE orders_id = ? ORDER BY id DESC (antes la cubría el índice de la FK)
+CREATE INDEX IDX_CONFIRMATION_QUEUE_ORDER_ID ON ORDER_CONFIRMATION_QUEUE (orders_id, id);
+
+-- Alta o confirmación de un pedido de otro shard ya confirmada en la base principal y aún no
+-- en el shard: se inserta en la transacción principal y se borra cuando el shard confirma. Un
+-- reintento que la encuentra completa el shard sin repetir stock, eventos ni resúmenes, y el
+-- relay retiene los eventos del pedido mientras exista
+CREATE TABLE IF NOT EXISTS ORDER_SHARD_INTENT (
+    orders_id BIGINT NOT NULL,
+    kind VARCHAR(20) NOT NULL,
+    total_gross DECIMAL(10, 2) NULL,
+    total_final DECIMAL(10, 2) NULL,
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (orders_id, kind)
+    );
+
+-- Las que sobreviven al commit del shard: WHERE created_at < ? ORDER BY created_at
+CREATE INDEX IDX_ORDER_SHARD_INTENT_CREATED_AT ON ORDER_SHARD_INTENT (created_at);
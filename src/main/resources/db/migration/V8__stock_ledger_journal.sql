@@ -0,0 +1,13 @@
+-- Reservas del ledger de stock confirmadas y aún no volcadas a PRODUCT.stock. Se insertan en la
+-- transacción de la confirmación y el volcado las borra en la suya: tras una caída el arranque
+-- aplica las que queden en vez de perderlas. gross_amount es el importe vendido, que el volcado
+-- suma a PRODUCT_SALES junto con la cantidad
+CREATE TABLE IF NOT EXISTS STOCK_LEDGER_JOURNAL (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    quantity INT NOT NULL,
+    gross_amount DECIMAL(14, 2) NOT NULL
+    );
+
+-- Volcado por producto: WHERE product_id = ? ORDER BY id LIMIT ?
+CREATE INDEX IDX_STOCK_LEDGER_JOURNAL_PRODUCT ON STOCK_LEDGER_JOURNAL (product_id, id);
@@ -0,0 +1,10 @@
+-- Último stream_offset entregado por el relay. Se guarda aparte de OUTBOX_EVENT porque la purga
+-- por retención borra las filas: sin ellas MAX(stream_offset) volvería a empezar y los
+-- consumidores que reanudan desde su offset se saltarían los eventos nuevos
+CREATE TABLE IF NOT EXISTS OUTBOX_STREAM_OFFSET (
+    id INT PRIMARY KEY,
+    last_offset BIGINT NOT NULL
+    );
+
+INSERT INTO OUTBOX_STREAM_OFFSET (id, last_offset)
+SELECT 1, COALESCE(MAX(stream_offset), 0) FROM OUTBOX_EVENT;
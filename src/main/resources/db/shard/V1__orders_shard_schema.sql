@@ -0,0 +1,21 @@
+-- Esquema de un shard adicional de pedidos: solo ORDERS y ORDERS_ITEM.
+-- Los ids de pedido los genera la aplicación (OrderIdGenerator); PRODUCT vive en la base principal,
+-- por eso product_id no lleva clave foránea aquí
+CREATE TABLE IF NOT EXISTS ORDERS (
+    id BIGINT PRIMARY KEY,
+    date TIMESTAMP NOT NULL,
+    total_gross DECIMAL(10, 2) NULL,
+    total_final DECIMAL(10, 2) NULL,
+    state VARCHAR(50) NOT NULL
+    );
+
+CREATE TABLE IF NOT EXISTS ORDERS_ITEM (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    orders_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity INT NOT NULL,
+    unit_price DECIMAL(10, 2) NOT NULL,
+    FOREIGN KEY (orders_id) REFERENCES ORDERS(id) ON DELETE CASCADE
+    );
+
+CREATE INDEX IDX_ORDERS_ITEM_ORDER_COVERING ON ORDERS_ITEM (orders_id, product_id, quantity, unit_price);
@@ -0,0 +1,180 @@
+package org.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import org.example.demo.model.entity.Order;
+import org.example.demo.model.entity.Product;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import reactor.blockhound.BlockHound;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Drives every endpoint with BlockHound installed and fails if a blocking call ran on a
+ * non-blocking thread (Netty event loops, Reactor parallel schedulers). Violations are recorded
+ * rather than thrown, so the report lists all of them with the application frames that led there.
+ *
+ * <p>The only allowance is the embedded database: r2dbc-h2 runs each statement synchronously on
+ * the subscribing thread and H2 takes its own locks there. It stands in for the MySQL driver, which
+ * does network I/O on Netty. Everything above the driver (services, repositories, caches,
+ * ledger, logging calls) is checked.
+ */
+@ActiveProfiles("h2")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "stock.ledger.enabled=true",
+        "stock.ledger.flush-interval=50ms"})
+class NonBlockingEventLoopTest {
+
+  private static final List<String> VIOLATIONS = new CopyOnWriteArrayList<>();
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @BeforeAll
+  static void installBlockHound() {
+    // install(...) carga además las integraciones de Reactor y Netty, que marcan sus hilos
+    BlockHound.install(builder -> builder
+        .allowBlockingCallsInside("io.r2dbc.h2.H2Statement", "execute")
+        .allowBlockingCallsInside("io.r2dbc.h2.H2Connection", "close")
+        .allowBlockingCallsInside("io.r2dbc.h2.H2Connection", "beginTransaction")
+        .allowBlockingCallsInside("io.r2dbc.h2.H2Connection", "commitTransaction")
+        .allowBlockingCallsInside("io.r2dbc.h2.H2Connection", "rollbackTransaction")
+        .allowBlockingCallsInside("io.r2dbc.h2.H2Connection", "setAutoCommit")
+        .allowBlockingCallsInside("io.r2dbc.h2.H2Connection", "setTransactionIsolationLevel")
+        .allowBlockingCallsInside("io.r2dbc.h2.H2ConnectionFactory", "create")
+        .allowBlockingCallsInside("io.r2dbc.h2.H2Result", "map")
+        .blockingMethodCallback(method -> VIOLATIONS.add(method + " on "
+            + Thread.currentThread().getName() + " via " + applicationFrames())));
+  }
+
+  @Test
+  void endpointsNeverBlockAnEventLoop() {
+    // BlockHound activo: una llamada bloqueante en un hilo no bloqueante queda registrada
+    Mono.fromRunnable(() -> {
+          try {
+            Thread.sleep(1);
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+          }
+        })
+        .subscribeOn(Schedulers.parallel()).block();
+    assertThat(VIOLATIONS).as("BlockHound is installed")
+        .anyMatch(violation -> violation.startsWith("java.lang.Thread.sleep"));
+    VIOLATIONS.clear();
+
+    long productId = client().post().uri("/api/v1/products")
+        .bodyValue(Map.of("name", "non-blocking", "price", 4, "stock", 1_000))
+        .exchange().expectStatus().isCreated()
+        .expectBody(Product.class).returnResult().getResponseBody().getId();
+    client().put().uri("/api/v1/products/{id}", productId)
+        .bodyValue(Map.of("name", "non-blocking", "price", 5, "stock", 1_000))
+        .exchange().expectStatus().isOk();
+    client().post().uri("/api/v1/products/import").contentType(MediaType.APPLICATION_NDJSON)
+        .bodyValue("{\"name\":\"nb-import\",\"price\":1,\"stock\":5}\nnot json\n")
+        .exchange().expectStatus().isOk().expectBody(String.class).returnResult();
+    client().post().uri("/api/v1/products/import").contentType(MediaType.parseMediaType("text/csv"))
+        .bodyValue("id,name,price,stock\n,nb-csv,1,5\n")
+        .exchange().expectStatus().isOk().expectBody(String.class).returnResult();
+
+    Map<String, Object> items = Map.of("items",
+        List.of(Map.of("productId", productId, "quantity", 1)));
+    client().post().uri("/api/v1/orders/preview").bodyValue(items)
+        .exchange().expectStatus().isOk();
+    long orderId = createOrder(items, null);
+    String key = UUID.randomUUID().toString();
+    long keyed = createOrder(items, key);
+    assertThat(createOrder(items, key)).isEqualTo(keyed);
+    client().put().uri("/api/v1/orders/{id}/confirm", orderId)
+        .exchange().expectStatus().isOk();
+    client().put().uri("/api/v1/orders/{id}/confirm", orderId)
+        .exchange().expectStatus().isBadRequest();
+    client().put().uri("/api/v1/orders/{id}/confirm?async=true", keyed)
+        .exchange().expectStatus().is2xxSuccessful();
+    client().get().uri("/api/v1/orders/{id}/confirmation", keyed)
+        .exchange().expectStatus().isOk();
+    long bulk = createOrder(items, null);
+    client().post().uri("/api/v1/orders/confirm")
+        .bodyValue(Map.of("orderIds", List.of(bulk, Long.MAX_VALUE)))
+        .exchange().expectStatus().isOk().expectBody(String.class).returnResult();
+
+    client().get().uri("/api/v1/orders/{id}", orderId).exchange().expectStatus().isOk();
+    client().get().uri("/api/v1/orders/{id}", Long.MAX_VALUE).exchange()
+        .expectStatus().isNotFound();
+    client().get().uri("/api/v1/orders").exchange().expectStatus().isOk();
+    client().get().uri("/api/v1/orders/with-items").exchange().expectStatus().isOk();
+    client().get().uri("/api/v1/orders/stream").accept(MediaType.APPLICATION_NDJSON)
+        .exchange().expectStatus().isOk().expectBody(String.class).returnResult();
+    client().get().uri("/api/v1/products/{id}", productId).exchange().expectStatus().isOk();
+    client().get().uri("/api/v1/products").exchange().expectStatus().isOk();
+    client().get().uri("/api/v1/products/stream").accept(MediaType.APPLICATION_NDJSON)
+        .exchange().expectStatus().isOk().expectBody(String.class).returnResult();
+
+    LocalDate today = LocalDate.now();
+    client().get().uri("/api/v1/dashboard/sales/daily?from={from}&to={to}",
+        today.minusDays(1), today.plusDays(1)).exchange().expectStatus().isOk();
+    client().get().uri("/api/v1/dashboard/products/top").exchange().expectStatus().isOk();
+    client().get().uri("/api/v1/dashboard/products/{id}/sales", productId)
+        .exchange().expectStatus().isOk();
+    client().get().uri("/api/v1/dashboard/inventory/low-stock").exchange()
+        .expectStatus().isOk();
+    client().get().uri("/api/v1/dashboard/inventory/stock-buckets").exchange()
+        .expectStatus().isOk();
+
+    // El flujo de eventos no termina: basta con recibir el primero
+    assertThat(client().get().uri("/api/v1/events?after=0").accept(MediaType.APPLICATION_NDJSON)
+        .exchange().expectStatus().isOk().returnResult(String.class).getResponseBody()
+        .blockFirst(Duration.ofSeconds(10))).isNotNull();
+
+    client().delete().uri("/api/v1/products/{id}", createProductToDelete())
+        .exchange().expectStatus().is2xxSuccessful();
+
+    assertThat(VIOLATIONS).as("blocking calls on non-blocking threads").isEmpty();
+  }
+
+  private WebTestClient client() {
+    return webTestClient.mutate().responseTimeout(Duration.ofSeconds(30)).build();
+  }
+
+  private long createOrder(Map<String, Object> items, String idempotencyKey) {
+    return client().post().uri("/api/v1/orders")
+        .headers(headers -> {
+          if (idempotencyKey != null) {
+            headers.set("Idempotency-Key", idempotencyKey);
+          }
+        })
+        .bodyValue(items).exchange().expectStatus().is2xxSuccessful()
+        .expectBody(Order.class).returnResult().getResponseBody().getId();
+  }
+
+  private long createProductToDelete() {
+    return client().post().uri("/api/v1/products")
+        .bodyValue(Map.of("name", "nb-delete", "price", 1, "stock", 1))
+        .exchange().expectStatus().isCreated()
+        .expectBody(Product.class).returnResult().getResponseBody().getId();
+  }
+
+  private static String applicationFrames() {
+    return Arrays.stream(new Throwable().getStackTrace())
+        .filter(frame -> frame.getClassName().startsWith("org.example.demo"))
+        .limit(5).map(StackTraceElement::toString).collect(Collectors.joining(" <- "));
+  }
+}
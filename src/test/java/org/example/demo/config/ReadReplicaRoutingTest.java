@@ -0,0 +1,106 @@
+package org.example.demo.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import io.r2dbc.spi.ConnectionFactory;
+
+import org.example.demo.model.entity.Order;
+import org.example.demo.model.entity.Product;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Routing over two embedded databases with no replication between them (h2-replica profile): a
+ * row that only one of them has shows which one served each request.
+ */
+@ActiveProfiles({"h2", "h2-replica"})
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "order.async-confirm.workers-enabled=false")
+class ReadReplicaRoutingTest {
+
+  /** Only on the replica. */
+  private static final long REPLICA_ONLY_ID = 990001L;
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Autowired
+  @Qualifier("primaryConnectionFactory")
+  private ConnectionFactory primary;
+
+  @Autowired
+  @Qualifier("replicaConnectionFactory")
+  private ConnectionFactory replica;
+
+  @Test
+  void writesAndReadsOfOwnWritesGoToThePrimary() {
+    long productId = createProduct("primary-only");
+    assertThat(countProduct(primary, productId)).isOne();
+    assertThat(countProduct(replica, productId)).isZero();
+
+    // La lectura por id pasa por la caché, que carga del primario: se ve lo recién escrito
+    webTestClient.get().uri("/api/v1/products/{id}", productId)
+        .exchange().expectStatus().isOk();
+
+    // Pedido y confirmación leen y escriben en el primario; la réplica no tiene ni el producto
+    long orderId = webTestClient.post().uri("/api/v1/orders")
+        .bodyValue(Map.of("items", List.of(Map.of("productId", productId, "quantity", 1))))
+        .exchange().expectStatus().is2xxSuccessful()
+        .expectBody(Order.class).returnResult().getResponseBody().getId();
+    webTestClient.put().uri("/api/v1/orders/{id}/confirm", orderId)
+        .exchange().expectStatus().isOk();
+    assertThat(DatabaseClient.create(primary)
+        .sql("SELECT state FROM ORDERS WHERE id = :id").bind("id", orderId)
+        .map((row, metadata) -> row.get("state", String.class)).one().block())
+        .isEqualTo("CONFIRMADO");
+  }
+
+  @Test
+  void lagTolerantReadsGoToTheReplica() {
+    DatabaseClient.create(replica)
+        .sql("INSERT INTO PRODUCT (id, name, price, stock) VALUES (:id, 'replica-only', 1.00, 1) "
+            + "ON DUPLICATE KEY UPDATE stock = VALUES(stock)")
+        .bind("id", REPLICA_ONLY_ID).then().block();
+    long productId = createProduct("not-replicated");
+
+    List<Long> listed = webTestClient.get().uri("/api/v1/products")
+        .exchange().expectStatus().isOk()
+        .expectBodyList(Product.class).returnResult().getResponseBody().stream()
+        .map(Product::getId).toList();
+    assertThat(listed).contains(REPLICA_ONLY_ID).doesNotContain(productId);
+
+    long orderId = webTestClient.post().uri("/api/v1/orders")
+        .bodyValue(Map.of("items", List.of(Map.of("productId", productId, "quantity", 1))))
+        .exchange().expectStatus().is2xxSuccessful()
+        .expectBody(Order.class).returnResult().getResponseBody().getId();
+    // Sin replicación, el detalle del pedido marcado muestra el retraso en su peor caso
+    webTestClient.get().uri("/api/v1/orders/{id}", orderId)
+        .exchange().expectStatus().isNotFound();
+
+    webTestClient.get().uri("/api/v1/products/{id}", REPLICA_ONLY_ID)
+        .exchange().expectStatus().isNotFound();
+  }
+
+  private long createProduct(String name) {
+    return webTestClient.post().uri("/api/v1/products")
+        .bodyValue(Map.of("name", name, "price", 1, "stock", 10))
+        .exchange().expectStatus().isCreated()
+        .expectBody(Product.class).returnResult().getResponseBody().getId();
+  }
+
+  private static long countProduct(ConnectionFactory connectionFactory, long productId) {
+    return DatabaseClient.create(connectionFactory)
+        .sql("SELECT COUNT(*) AS products FROM PRODUCT WHERE id = :id").bind("id", productId)
+        .map((row, metadata) -> row.get("products", Long.class)).one().block();
+  }
+}
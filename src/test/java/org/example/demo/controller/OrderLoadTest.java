@@ -0,0 +1,180 @@
+package org.example.demo.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.example.demo.model.entity.Order;
+import org.example.demo.model.entity.Product;
+import org.example.demo.support.LoadRun;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Order API under concurrent load on the embedded database: creation, confirmation of a hot
+ * product with less stock than orders, concurrent confirmations of the same order and a mix of
+ * writes and reads. Each run logs throughput, p50/p99 latency and the status mix (conflicts are
+ * 409); the assertions check the outcome, not the speed, so the suite runs the same on any
+ * machine. On H2 keep the callers low: r2dbc-h2 waits for row locks on the thread that would
+ * release them.
+ */
+@Slf4j
+@ActiveProfiles("h2")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "order.async-confirm.workers-enabled=false")
+class OrderLoadTest {
+
+  private static final int THREADS = 8;
+  private static final int CATALOG = 50;
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Autowired
+  private DatabaseClient databaseClient;
+
+  private final List<Long> catalog = new ArrayList<>();
+
+  @BeforeEach
+  void createCatalog() {
+    catalog.clear();
+    for (int i = 0; i < CATALOG; i++) {
+      catalog.add(createProduct("load-" + i, 1_000_000));
+    }
+  }
+
+  @Test
+  void concurrentCreates() throws Exception {
+    int requests = 400;
+    LoadRun run = LoadRun.run(requests, THREADS, i -> createOrderStatus(randomItems()));
+    log.info(run.summary("create"));
+
+    assertThat(run.count(201) + run.count(200)).isEqualTo(requests);
+  }
+
+  @Test
+  void hotProductConfirmationsSellExactlyTheStock() throws Exception {
+    int stock = 100;
+    int orders = 3 * stock;
+    long hotProductId = createProduct("load-hot", stock);
+    List<Long> orderIds = new ArrayList<>(orders);
+    for (int i = 0; i < orders; i++) {
+      orderIds.add(createOrder(List.of(item(hotProductId, 1), item(randomProduct(), 1))));
+    }
+
+    LoadRun run = LoadRun.run(orders, THREADS, i -> confirmStatus(orderIds.get(i)));
+    log.info(run.summary("hot confirm") + String.format(", conflict rate %.2f", run.rate(409)));
+
+    assertThat(run.count(200)).isEqualTo(stock);
+    assertThat(run.count(409)).isEqualTo(orders - stock);
+    assertThat(stock(hotProductId)).isZero();
+  }
+
+  @Test
+  void sameOrderConfirmedConcurrentlyOnlyOnce() throws Exception {
+    long productId = createProduct("load-once", 1_000);
+    int rounds = 20;
+    int attempts = THREADS;
+    List<Long> orderIds = new ArrayList<>(rounds);
+    for (int i = 0; i < rounds; i++) {
+      orderIds.add(createOrder(List.of(item(productId, 1))));
+    }
+
+    // Cada grupo de THREADS peticiones consecutivas confirma el mismo pedido
+    LoadRun run = LoadRun.run(rounds * attempts, THREADS,
+        i -> confirmStatus(orderIds.get(i / attempts)));
+    log.info(run.summary("double confirm") + String.format(", rejected rate %.2f",
+        1 - run.rate(200)));
+
+    assertThat(run.count(200)).isEqualTo(rounds);
+    // El resto: 409 si coincidió con la confirmación, 400 si ya la encontró hecha
+    assertThat(run.count(409) + run.count(400)).isEqualTo(rounds * (attempts - 1));
+    assertThat(stock(productId)).isEqualTo(1_000 - rounds);
+  }
+
+  @Test
+  void mixedCreateConfirmAndReads() throws Exception {
+    int requests = 800;
+    List<Long> pending = new ArrayList<>();
+    for (int i = 0; i < requests / 4; i++) {
+      pending.add(createOrder(randomItems()));
+    }
+
+    // Un cuarto de escrituras de cada tipo y la mitad lecturas, intercaladas
+    LoadRun run = LoadRun.run(requests, THREADS, i -> switch (i % 4) {
+      case 0 -> createOrderStatus(randomItems());
+      case 1 -> confirmStatus(pending.get(i / 4));
+      case 2 -> client().get().uri("/api/v1/orders/{id}", pending.get(i / 4))
+          .exchange().expectBody(String.class).returnResult().getStatus().value();
+      default -> client().get().uri("/api/v1/products?afterId={after}&limit=20",
+              catalog.get(ThreadLocalRandom.current().nextInt(CATALOG)))
+          .exchange().expectBody(String.class).returnResult().getStatus().value();
+    });
+    log.info(run.summary("mixed") + String.format(", error rate %.2f",
+        1 - run.rate(200) - run.rate(201)));
+
+    assertThat(run.count(200) + run.count(201)).isEqualTo(requests);
+  }
+
+  private WebTestClient client() {
+    return webTestClient.mutate().responseTimeout(Duration.ofSeconds(30)).build();
+  }
+
+  private long createProduct(String name, int stock) {
+    return client().post().uri("/api/v1/products")
+        .bodyValue(Map.of("name", name, "price", 3, "stock", stock))
+        .exchange().expectStatus().isCreated()
+        .expectBody(Product.class).returnResult().getResponseBody().getId();
+  }
+
+  private long createOrder(List<Map<String, Object>> items) {
+    return client().post().uri("/api/v1/orders").bodyValue(Map.of("items", items))
+        .exchange().expectStatus().is2xxSuccessful()
+        .expectBody(Order.class).returnResult().getResponseBody().getId();
+  }
+
+  private int createOrderStatus(List<Map<String, Object>> items) {
+    return client().post().uri("/api/v1/orders").bodyValue(Map.of("items", items))
+        .exchange().expectBody(String.class).returnResult().getStatus().value();
+  }
+
+  private int confirmStatus(long orderId) {
+    return client().put().uri("/api/v1/orders/{id}/confirm", orderId)
+        .exchange().expectBody(String.class).returnResult().getStatus().value();
+  }
+
+  private List<Map<String, Object>> randomItems() {
+    List<Map<String, Object>> items = new ArrayList<>();
+    int lines = 1 + ThreadLocalRandom.current().nextInt(4);
+    for (int i = 0; i < lines; i++) {
+      items.add(item(randomProduct(), 1 + ThreadLocalRandom.current().nextInt(3)));
+    }
+    return items;
+  }
+
+  private long randomProduct() {
+    return catalog.get(ThreadLocalRandom.current().nextInt(CATALOG));
+  }
+
+  private static Map<String, Object> item(long productId, int quantity) {
+    return Map.of("productId", productId, "quantity", quantity);
+  }
+
+  private int stock(long productId) {
+    return databaseClient.sql("SELECT stock FROM PRODUCT WHERE id = :id").bind("id", productId)
+        .map(row -> row.get("stock", Integer.class)).one().block();
+  }
+}
@@ -0,0 +1,49 @@
+package org.example.demo.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.example.demo.model.response.ProductImportProgress;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/** NDJSON import: malformed lines are reported as row errors and the other rows still import. */
+@ActiveProfiles("h2")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "order.async-confirm.workers-enabled=false")
+class ProductImportTest {
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Test
+  void malformedLinesAreRowErrors() {
+    String body = String.join("\n",
+        "{\"name\":\"import-a\",\"price\":1.50,\"stock\":3}",
+        "{\"name\":\"import-b\",\"price\":",
+        "",
+        "[1,2]",
+        "{\"name\":\"import-c\",\"price\":2,\"stock\":\"many\"}",
+        "{\"name\":\"import-d\",\"price\":2,\"stock\":1}") + "\n";
+
+    List<ProductImportProgress> progress = webTestClient.post().uri("/api/v1/products/import")
+        .contentType(MediaType.APPLICATION_NDJSON).accept(MediaType.APPLICATION_NDJSON)
+        .bodyValue(body)
+        .exchange().expectStatus().isOk()
+        .returnResult(ProductImportProgress.class).getResponseBody().collectList().block();
+
+    ProductImportProgress last = progress.get(progress.size() - 1);
+    assertThat(last.getProcessed()).isEqualTo(5);
+    assertThat(last.getUpserted()).isEqualTo(2);
+    assertThat(last.getFailed()).isEqualTo(3);
+    assertThat(progress.stream().flatMap(batch -> batch.getErrors().stream())
+        .map(ProductImportProgress.RowError::row)).containsExactly(2L, 3L, 4L);
+  }
+}
@@ -0,0 +1,63 @@
+package org.example.demo.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.example.demo.model.entity.Product;
+import org.example.demo.repository.ProductRepository;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * A product update that lost the optimistic-locking race answers 409, like the JDBC mode and the
+ * order conflicts, instead of falling through to the 500 handler. The race is made deterministic
+ * by reading the product with the version it had before a concurrent write.
+ */
+@ActiveProfiles("h2")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "order.async-confirm.workers-enabled=false")
+class ProductUpdateConflictTest {
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @SpyBean
+  private ProductRepository productRepository;
+
+  @Test
+  void staleUpdateIsAConflict() {
+    long productId = webTestClient.post().uri("/api/v1/products")
+        .bodyValue(Map.of("name", "conflict", "price", 2, "stock", 10))
+        .exchange().expectStatus().isCreated()
+        .expectBody(Product.class).returnResult().getResponseBody().getId();
+
+    // Otra escritura ya subió la versión: la lectura devuelve la anterior
+    doAnswer(invocation -> productRepository.findByIdIn(List.of(productId)).next()
+        .map(product -> {
+          product.setVersion(product.getVersion() - 1);
+          return product;
+        })).when(productRepository).findById(eq(productId));
+
+    webTestClient.put().uri("/api/v1/products/{id}", productId)
+        .bodyValue(Map.of("name", "lost", "price", 3, "stock", 5))
+        .exchange().expectStatus().isEqualTo(HttpStatus.CONFLICT)
+        .expectBody().jsonPath("$.detail").value(detail ->
+            assertThat(detail.toString()).contains("modified concurrently"));
+
+    Product stored = productRepository.findByIdIn(List.of(productId)).blockFirst();
+    assertThat(stored.getName()).isEqualTo("conflict");
+    assertThat(stored.getPrice()).isEqualByComparingTo(BigDecimal.valueOf(2));
+  }
+}
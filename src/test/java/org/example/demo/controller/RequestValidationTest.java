@@ -0,0 +1,68 @@
+package org.example.demo.controller;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.example.demo.model.request.BulkConfirmOrdersRequest;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Request bodies that break their constraints are rejected with 400 and a problem detail before
+ * reaching the services, instead of failing inside them with a 500.
+ */
+@ActiveProfiles("h2")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "order.async-confirm.workers-enabled=false")
+class RequestValidationTest {
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Test
+  void bulkConfirmRejectsMissingEmptyNullAndOversizedIdLists() {
+    expectBadRequest("/api/v1/orders/confirm", "{}");
+    expectBadRequest("/api/v1/orders/confirm", "{\"orderIds\":[]}");
+    expectBadRequest("/api/v1/orders/confirm", "{\"orderIds\":[null]}");
+    expectBadRequest("/api/v1/orders/confirm", "{\"orderIds\":[1,null,2]}");
+    expectBadRequest("/api/v1/orders/confirm", Map.of("orderIds",
+        Collections.nCopies(BulkConfirmOrdersRequest.MAX_ORDER_IDS + 1, 1L)));
+  }
+
+  @Test
+  void bulkConfirmAcceptsAListAtTheCap() {
+    webTestClient.post().uri("/api/v1/orders/confirm").contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(Map.of("orderIds", Collections.nCopies(BulkConfirmOrdersRequest.MAX_ORDER_IDS,
+            Long.MAX_VALUE)))
+        .exchange().expectStatus().isOk();
+  }
+
+  @Test
+  void createOrderValidatesEveryItem() {
+    expectBadRequest("/api/v1/orders", "{}");
+    expectBadRequest("/api/v1/orders", "{\"items\":[null]}");
+    expectBadRequest("/api/v1/orders", Map.of("items",
+        List.of(Map.of("productId", 1, "quantity", 0))));
+    expectBadRequest("/api/v1/orders", Map.of("items", List.of(Map.of("quantity", 1))));
+  }
+
+  @Test
+  void createProductValidatesItsFields() {
+    expectBadRequest("/api/v1/products", Map.of("name", "", "price", 1, "stock", 1));
+    expectBadRequest("/api/v1/products", Map.of("name", "p", "price", -1, "stock", 1));
+    expectBadRequest("/api/v1/products", Map.of("name", "p", "price", 1, "stock", -1));
+  }
+
+  private void expectBadRequest(String uri, Object body) {
+    webTestClient.post().uri(uri).contentType(MediaType.APPLICATION_JSON).bodyValue(body)
+        .exchange().expectStatus().isBadRequest()
+        .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_PROBLEM_JSON);
+  }
+}
@@ -0,0 +1,79 @@
+package org.example.demo.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * EXPLAIN of the queries on the order and stock hot paths after all migrations: each must be
+ * answered through the index meant for it, never by a table scan, and the indexes no query reads
+ * through must be gone. H2 prints the chosen index as a comment in the plan, e.g.
+ * {@code /* PUBLIC.IDX_ORDERS_ITEM_ORDER_COVERING: ORDERS_ID = 1 *\/}, and {@code tableScan}
+ * when there is none.
+ */
+@ActiveProfiles("h2")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    properties = "order.async-confirm.workers-enabled=false")
+class QueryPlanTest {
+
+  @Autowired
+  private DatabaseClient databaseClient;
+
+  @Test
+  void orderItemsAreReadFromTheCoveringIndex() {
+    assertThat(plan("SELECT product_id, quantity, unit_price FROM ORDERS_ITEM WHERE orders_id = 1"))
+        .contains("IDX_ORDERS_ITEM_ORDER_COVERING");
+    assertThat(plan("SELECT product_id, quantity, unit_price FROM ORDERS_ITEM "
+        + "WHERE orders_id IN (1, 2, 3)"))
+        .contains("IDX_ORDERS_ITEM_ORDER_COVERING");
+  }
+
+  @Test
+  void ordersAndProductsAreReadByPrimaryKey() {
+    assertThat(plan("SELECT * FROM ORDERS WHERE id > 1 ORDER BY id LIMIT 50"))
+        .contains("PRIMARY_KEY").doesNotContain("tableScan");
+    assertThat(plan("UPDATE ORDERS SET state = 'CONFIRMADO' WHERE id = 1 AND state = 'PENDIENTE'"))
+        .contains("PRIMARY_KEY").doesNotContain("tableScan");
+    assertThat(plan("SELECT * FROM PRODUCT WHERE id IN (1, 2) ORDER BY id FOR UPDATE"))
+        .contains("PRIMARY_KEY").doesNotContain("tableScan");
+    assertThat(plan("UPDATE PRODUCT SET stock = stock - 1 WHERE id = 1 AND stock >= 1"))
+        .contains("PRIMARY_KEY").doesNotContain("tableScan");
+  }
+
+  @Test
+  void queuesAreReadThroughTheirIndexes() {
+    assertThat(plan("SELECT * FROM ORDER_CONFIRMATION_QUEUE WHERE status = 'QUEUED' ORDER BY id "
+        + "LIMIT 10"))
+        .contains("IDX_CONFIRMATION_QUEUE_STATUS_ID");
+    assertThat(plan("SELECT * FROM ORDER_CONFIRMATION_QUEUE WHERE orders_id = 1 ORDER BY id DESC "
+        + "LIMIT 1"))
+        .contains("IDX_CONFIRMATION_QUEUE_ORDER_ID");
+    assertThat(plan("SELECT id, product_id, quantity FROM STOCK_LEDGER_JOURNAL "
+        + "WHERE product_id = 1 ORDER BY id LIMIT 1000"))
+        .contains("IDX_STOCK_LEDGER_JOURNAL_PRODUCT");
+  }
+
+  @Test
+  void ordersKeepOnlyTheIndexesQueriesUse() {
+    assertThat(indexes("ORDERS")).noneMatch(index -> index.startsWith("IDX_"));
+    assertThat(indexes("ORDERS_ITEM")).contains("IDX_ORDERS_ITEM_ORDER_COVERING");
+  }
+
+  private String plan(String sql) {
+    return databaseClient.sql("EXPLAIN " + sql).map(row -> row.get(0, String.class)).one()
+        .block();
+  }
+
+  private List<String> indexes(String table) {
+    return databaseClient.sql("SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES "
+            + "WHERE TABLE_NAME = :table")
+        .bind("table", table).map(row -> row.get(0, String.class)).all().collectList().block();
+  }
+}
@@ -0,0 +1,322 @@
+package org.example.demo.repository.shard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doCallRealMethod;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.example.demo.config.OrderShardingConfig;
+import org.example.demo.model.entity.Order;
+import org.example.demo.model.entity.OrderShardIntent;
+import org.example.demo.model.entity.Product;
+import org.example.demo.model.response.ProductSales;
+import org.example.demo.repository.OrderShardIntentRepository;
+import org.example.demo.repository.ProductRepository;
+import org.example.demo.service.aggregate.SalesAggregates;
+import org.example.demo.service.shard.OrderShardIntents;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.transaction.reactive.TransactionCallback;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Orders over three in-memory databases (h2-shards profile): each order and its items live only
+ * on the shard its id names, work on them spans the main database and that shard, and the main
+ * database commits first. A failed shard commit is simulated by rolling the shard back where it
+ * should commit: retries and the settling of ORDER_SHARD_INTENT must not repeat the main part.
+ */
+@ActiveProfiles({"h2", "h2-shards"})
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "order.async-confirm.workers-enabled=false")
+class OrderShardingTest {
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @SpyBean
+  private OrderShards orderShards;
+
+  @Autowired
+  private OrderShardIntents orderShardIntents;
+
+  @Autowired
+  private OrderShardIntentRepository intentRepository;
+
+  @Autowired
+  private ProductRepository productRepository;
+
+  @Autowired
+  private SalesAggregates salesAggregates;
+
+  @Autowired
+  private DatabaseClient databaseClient;
+
+  @Test
+  void ordersAreSpreadOverEveryShard() {
+    long productId = createProduct(100);
+    List<Long> orderIds = new ArrayList<>();
+    for (int i = 0; i < 2 * orderShards.count(); i++) {
+      orderIds.add(createOrder(productId, 1));
+    }
+
+    assertThat(orderIds.stream().map(OrderIdGenerator::shardOf).collect(Collectors.toSet()))
+        .isEqualTo(Set.of(0, 1, 2));
+    for (Long orderId : orderIds) {
+      for (OrderShard shard : orderShards.all()) {
+        boolean home = shard.index() == OrderIdGenerator.shardOf(orderId);
+        assertThat(shard.orders().existsById(orderId).block()).isEqualTo(home);
+        assertThat(shard.items().findByOrdersId(orderId).count().block()).isEqualTo(home ? 1 : 0);
+      }
+      webTestClient.get().uri("/api/v1/orders/{id}", orderId)
+          .exchange().expectStatus().isOk();
+    }
+
+    List<Long> listed = webTestClient.get().uri("/api/v1/orders")
+        .exchange().expectStatus().isOk()
+        .expectBodyList(Order.class).returnResult().getResponseBody().stream()
+        .map(Order::getId).toList();
+    assertThat(listed).containsAll(orderIds);
+  }
+
+  @Test
+  void ordersAreConfirmedOnTheirShard() {
+    long productId = createProduct(100);
+    List<Long> orderIds = new ArrayList<>();
+    for (int i = 0; i < orderShards.count(); i++) {
+      orderIds.add(createOrder(productId, 2));
+    }
+
+    webTestClient.put().uri("/api/v1/orders/{id}/confirm", orderIds.get(0))
+        .exchange().expectStatus().isOk();
+    // El lote mezcla shards: se confirma un trozo por shard
+    webTestClient.post().uri("/api/v1/orders/confirm")
+        .bodyValue(Map.of("orderIds", orderIds.subList(1, orderIds.size())))
+        .exchange().expectStatus().isOk().expectBody(String.class).returnResult();
+
+    for (Long orderId : orderIds) {
+      OrderShard shard = orderShards.forOrder(orderId);
+      assertThat(shard.orders().findById(orderId).block().getState()).isEqualTo("CONFIRMADO");
+    }
+    Product product = webTestClient.get().uri("/api/v1/products/{id}", productId)
+        .exchange().expectStatus().isOk()
+        .expectBody(Product.class).returnResult().getResponseBody();
+    assertThat(product.getStock()).isEqualTo(100 - 2 * orderIds.size());
+  }
+
+  @Test
+  void mainDatabaseCommitsBeforeTheShard() {
+    List<String> commits = new ArrayList<>();
+    OrderShards shards = new OrderShards(List.of(
+        new OrderShard(0, null, null, null, recording("main", commits)),
+        new OrderShard(1, null, null, null, recording("shard", commits))),
+        recording("main", commits), List.of());
+    OrderIdGenerator ids = new OrderIdGenerator(2, 0);
+    ids.next();
+    long onShard1 = ids.next();
+
+    shards.transactional(onShard1, Mono.just("work")).block();
+    assertThat(commits).containsExactly("main", "shard");
+
+    commits.clear();
+    shards.execute(onShard1, status -> Mono.just("work")).blockLast();
+    assertThat(commits).containsExactly("main", "shard");
+  }
+
+  @Test
+  void confirmationRetriedAfterAFailedShardCommitIsNotRepeated() {
+    long productId = createProduct(10);
+    long orderId = createOrderOffTheMainShard(productId, 3);
+
+    failShardCommits(orderId);
+    webTestClient.put().uri("/api/v1/orders/{id}/confirm", orderId)
+        .exchange().expectStatus().is5xxServerError();
+    // La base principal confirmó: stock, evento y resúmenes; el shard sigue PENDIENTE
+    assertThat(stock(productId)).isEqualTo(7);
+    assertThat(state(orderId)).isEqualTo("PENDIENTE");
+    assertThat(intents(OrderShardIntent.CONFIRM, orderId)).hasSize(1);
+
+    doCallRealMethod().when(orderShards).forOrder(anyLong());
+    Order confirmed = webTestClient.put().uri("/api/v1/orders/{id}/confirm", orderId)
+        .exchange().expectStatus().isOk()
+        .expectBody(Order.class).returnResult().getResponseBody();
+    assertThat(confirmed.getState()).isEqualTo("CONFIRMADO");
+    assertThat(confirmed.getTotalFinal()).isNotNull();
+
+    assertThat(stock(productId)).isEqualTo(7);
+    assertThat(state(orderId)).isEqualTo("CONFIRMADO");
+    assertThat(intents(OrderShardIntent.CONFIRM, orderId)).isEmpty();
+    assertThat(events(orderId, "ORDER_CONFIRMED")).isOne();
+    assertThat(productSales(productId).getQuantitySold()).isEqualTo(3);
+  }
+
+  @Test
+  void workLeftByAFailedShardCommitIsSettled() {
+    long productId = createProduct(10);
+    long pendingId = createOrderOffTheMainShard(productId, 2);
+
+    // Un alta que falla en el shard: el pedido no existe y su evento no se publica
+    List<Long> failed = new ArrayList<>();
+    doAnswer(invocation -> {
+      OrderShard shard = (OrderShard) invocation.callRealMethod();
+      if (shard.index() == 0) {
+        return shard;
+      }
+      failed.add(invocation.getArgument(0));
+      return failingCommits(shard);
+    }).when(orderShards).forOrder(anyLong());
+    while (failed.isEmpty()) {
+      webTestClient.post().uri("/api/v1/orders")
+          .bodyValue(Map.of("items", List.of(Map.of("productId", productId, "quantity", 1))))
+          .exchange();
+    }
+    long neverCreatedId = failed.get(0);
+    webTestClient.put().uri("/api/v1/orders/{id}/confirm", pendingId)
+        .exchange().expectStatus().is5xxServerError();
+    doCallRealMethod().when(orderShards).forOrder(anyLong());
+
+    assertThat(orderShards.forOrder(neverCreatedId).orders().existsById(neverCreatedId).block())
+        .isFalse();
+    assertThat(events(neverCreatedId, "ORDER_CREATED")).isOne();
+    assertThat(relayedEvents(neverCreatedId)).isZero();
+
+    // Antes de settle-after nada se toca; después, sin reintento, se completa cada lado
+    orderShardIntents.settle(Duration.ofHours(1)).block();
+    assertThat(intents(OrderShardIntent.CREATE, neverCreatedId)).hasSize(1);
+    orderShardIntents.settle(Duration.ZERO).block();
+
+    assertThat(intents(OrderShardIntent.CREATE, neverCreatedId)).isEmpty();
+    assertThat(events(neverCreatedId, "ORDER_CREATED")).isZero();
+    assertThat(intents(OrderShardIntent.CONFIRM, pendingId)).isEmpty();
+    assertThat(state(pendingId)).isEqualTo("CONFIRMADO");
+    assertThat(stock(productId)).isEqualTo(8);
+    assertThat(events(pendingId, "ORDER_CONFIRMED")).isOne();
+  }
+
+  @Test
+  void rebuildCountsConfirmationsTheirShardHasNotCommitted() {
+    long productId = createProduct(10);
+    long orderId = createOrderOffTheMainShard(productId, 4);
+    failShardCommits(orderId);
+    webTestClient.put().uri("/api/v1/orders/{id}/confirm", orderId)
+        .exchange().expectStatus().is5xxServerError();
+    doCallRealMethod().when(orderShards).forOrder(anyLong());
+
+    // Los resúmenes ya cuentan el pedido: el rebuild lo confirma en su shard antes de leerlo
+    salesAggregates.rebuild().block();
+    assertThat(state(orderId)).isEqualTo("CONFIRMADO");
+    assertThat(intents(OrderShardIntent.CONFIRM, orderId)).isEmpty();
+    assertThat(productSales(productId).getQuantitySold()).isEqualTo(4);
+  }
+
+  @Test
+  void startupFailsWithoutANodeId() {
+    assertThatThrownBy(() -> new OrderShardingConfig()
+        .orderIdGenerator(new OrderShardingProperties(), orderShards))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("order.sharding.node-id");
+  }
+
+  /** Commits when the work completes, and records it. */
+  private static TransactionalOperator recording(String name, List<String> commits) {
+    return new TransactionalOperator() {
+      @Override
+      public <T> Flux<T> execute(TransactionCallback<T> action) {
+        return Flux.from(action.doInTransaction(null)).doOnComplete(() -> commits.add(name));
+      }
+    };
+  }
+
+  /** Rolls the shard's transactions back where they would commit, and fails like the commit. */
+  private static OrderShard failingCommits(OrderShard shard) {
+    TransactionalOperator failing = new TransactionalOperator() {
+      @Override
+      public <T> Flux<T> execute(TransactionCallback<T> action) {
+        return shard.transactionalOperator().execute(status -> {
+          status.setRollbackOnly();
+          return action.doInTransaction(status);
+        }).thenMany(Flux.error(new TransientDataAccessResourceException("Shard commit failed")));
+      }
+    };
+    return new OrderShard(shard.index(), shard.entityOperations(), shard.orders(), shard.items(),
+        failing);
+  }
+
+  private void failShardCommits(long orderId) {
+    doAnswer(invocation -> failingCommits((OrderShard) invocation.callRealMethod()))
+        .when(orderShards).forOrder(orderId);
+  }
+
+  private long createOrderOffTheMainShard(long productId, int quantity) {
+    long orderId = createOrder(productId, quantity);
+    while (!orderShards.spansTwoDatabases(orderId)) {
+      orderId = createOrder(productId, quantity);
+    }
+    return orderId;
+  }
+
+  private int stock(long productId) {
+    return productRepository.findByIdIn(List.of(productId)).blockFirst().getStock();
+  }
+
+  private String state(long orderId) {
+    return orderShards.forOrder(orderId).orders().findById(orderId).block().getState();
+  }
+
+  private List<OrderShardIntent> intents(String kind, long orderId) {
+    return intentRepository.findByKindAndOrdersIdIn(kind, List.of(orderId)).collectList().block();
+  }
+
+  private long events(long orderId, String eventType) {
+    return databaseClient.sql("SELECT COUNT(*) AS events FROM OUTBOX_EVENT "
+            + "WHERE aggregate_type = 'ORDER' AND aggregate_id = :id AND event_type = :type")
+        .bind("id", orderId).bind("type", eventType)
+        .map((row, metadata) -> row.get("events", Long.class)).one().block();
+  }
+
+  private long relayedEvents(long orderId) {
+    return databaseClient.sql("SELECT COUNT(*) AS events FROM OUTBOX_EVENT "
+            + "WHERE aggregate_type = 'ORDER' AND aggregate_id = :id "
+            + "AND stream_offset IS NOT NULL")
+        .bind("id", orderId)
+        .map((row, metadata) -> row.get("events", Long.class)).one().block();
+  }
+
+  private ProductSales productSales(long productId) {
+    return webTestClient.get().uri("/api/v1/dashboard/products/{id}/sales", productId)
+        .exchange().expectStatus().isOk()
+        .expectBody(ProductSales.class).returnResult().getResponseBody();
+  }
+
+  private long createProduct(int stock) {
+    return webTestClient.post().uri("/api/v1/products")
+        .bodyValue(Map.of("name", "sharded", "price", 1, "stock", stock))
+        .exchange().expectStatus().isCreated()
+        .expectBody(Product.class).returnResult().getResponseBody().getId();
+  }
+
+  private long createOrder(long productId, int quantity) {
+    return webTestClient.post().uri("/api/v1/orders")
+        .bodyValue(Map.of("items", List.of(Map.of("productId", productId, "quantity", quantity))))
+        .exchange().expectStatus().is2xxSuccessful()
+        .expectBody(Order.class).returnResult().getResponseBody().getId();
+  }
+}
@@ -0,0 +1,193 @@
+package org.example.demo.service.aggregate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.example.demo.model.entity.Order;
+import org.example.demo.model.entity.Product;
+import org.example.demo.model.response.ProductSales;
+import org.example.demo.model.response.StockBucket;
+import org.example.demo.repository.SalesAggregateRepository;
+import org.example.demo.service.OrderService;
+import org.example.demo.service.ledger.StockLedger;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * The stock range counts follow every write to PRODUCT.stock without a recount, sales of ledger
+ * products reach PRODUCT_SALES with the flush, confirmations wait while a rebuild replaces the
+ * summaries, and the rebuild is not on the public API.
+ */
+@ActiveProfiles("h2")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "order.async-confirm.workers-enabled=false",
+    "stock.ledger.enabled=true",
+    "stock.ledger.product-ids=900003",
+    "stock.ledger.flush-interval=1h",
+    "spring.flyway.locations=classpath:db/migration,classpath:db/stock-buckets-test"})
+class StockBucketsTest {
+
+  /** Seeded by db/stock-buckets-test/afterMigrate.sql; flushed only when the test asks. */
+  private static final long LEDGER_PRODUCT_ID = 900003L;
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Autowired
+  private StockBuckets stockBuckets;
+
+  @Autowired
+  private StockLedger stockLedger;
+
+  @Autowired
+  private SalesAggregatesEndpoint salesAggregatesEndpoint;
+
+  @Autowired
+  private OrderService orderService;
+
+  @Autowired
+  private SalesAggregateRepository salesAggregateRepository;
+
+  @Autowired
+  private TransactionalOperator transactionalOperator;
+
+  @Test
+  void countsFollowEveryStockWrite() {
+    // Otros contextos siembran PRODUCT sin pasar por los contadores: se parte de un recuento
+    stockBuckets.recount().block();
+    Map<Integer, Long> initial = buckets();
+
+    long productId = createProduct("bucket-a", 5);
+    assertThat(buckets().get(1)).isEqualTo(initial.get(1) + 1);
+
+    webTestClient.put().uri("/api/v1/products/{id}", productId)
+        .bodyValue(Map.of("name", "bucket-a", "price", 1, "stock", 50))
+        .exchange().expectStatus().isOk();
+    assertThat(buckets().get(1)).isEqualTo(initial.get(1));
+    assertThat(buckets().get(11)).isEqualTo(initial.get(11) + 1);
+
+    // Confirmación individual y en lote: reservas sin lectura previa y con filas bloqueadas
+    confirm(createOrder(productId, 45));
+    webTestClient.post().uri("/api/v1/orders/confirm")
+        .bodyValue(Map.of("orderIds", List.of(createOrder(productId, 5))))
+        .exchange().expectStatus().isOk();
+    assertThat(buckets().get(0)).isEqualTo(initial.get(0) + 1);
+
+    long deletedId = createProduct("bucket-b", 500);
+    webTestClient.delete().uri("/api/v1/products/{id}", deletedId)
+        .exchange().expectStatus().is2xxSuccessful();
+
+    String rows = String.join("\n",
+        "{\"id\":" + productId + ",\"name\":\"bucket-a\",\"price\":1,\"stock\":7}",
+        "{\"name\":\"bucket-c\",\"price\":1,\"stock\":200}") + "\n";
+    webTestClient.post().uri("/api/v1/products/import")
+        .contentType(MediaType.APPLICATION_NDJSON).accept(MediaType.APPLICATION_NDJSON)
+        .bodyValue(rows)
+        .exchange().expectStatus().isOk().expectBody(String.class).returnResult();
+    assertThat(buckets().get(0)).isEqualTo(initial.get(0));
+    assertThat(buckets().get(1)).isEqualTo(initial.get(1) + 1);
+    assertThat(buckets().get(101)).isEqualTo(initial.get(101) + 1);
+
+    Map<Integer, Long> maintained = buckets();
+    stockBuckets.recount().block();
+    assertThat(buckets()).isEqualTo(maintained);
+  }
+
+  @Test
+  void ledgerSalesAreAddedByTheFlush() {
+    stockLedger.flushAll().block();
+    ProductSales before = productSales(LEDGER_PRODUCT_ID);
+
+    confirm(createOrder(LEDGER_PRODUCT_ID, 3));
+    assertThat(productSales(LEDGER_PRODUCT_ID)).isEqualTo(before);
+
+    // El rebuild no cuenta lo que el volcado todavía va a sumar
+    salesAggregatesEndpoint.rebuild().block();
+    ProductSales rebuilt = productSales(LEDGER_PRODUCT_ID);
+
+    stockLedger.flushAll().block();
+    ProductSales flushed = productSales(LEDGER_PRODUCT_ID);
+    assertThat(flushed.getQuantitySold()).isEqualTo(rebuilt.getQuantitySold() + 3);
+    assertThat(flushed.getGrossAmount())
+        .isEqualByComparingTo(rebuilt.getGrossAmount().add(new BigDecimal("3.00")));
+  }
+
+  @Test
+  void confirmationsWaitWhileARebuildHoldsTheGates() throws Exception {
+    long productId = createProduct("rebuild-gate", 10);
+    long orderId = createOrder(productId, 2);
+
+    // Una transacción con todas las filas de SALES_AGGREGATE_GATE, como la del rebuild
+    CountDownLatch locked = new CountDownLatch(1);
+    Sinks.Empty<Void> rebuilt = Sinks.empty();
+    transactionalOperator.transactional(salesAggregateRepository.lockAllGates()
+        .doOnSuccess(gates -> locked.countDown()).then(rebuilt.asMono())).subscribe();
+    assertThat(locked.await(5, TimeUnit.SECONDS)).isTrue();
+
+    CompletableFuture<Order> confirmation = orderService.confirmOrder(orderId)
+        .subscribeOn(Schedulers.boundedElastic()).toFuture();
+    Thread.sleep(200);
+    assertThat(confirmation).isNotDone();
+
+    rebuilt.tryEmitEmpty();
+    assertThat(confirmation.get(5, TimeUnit.SECONDS).getState()).isEqualTo("CONFIRMADO");
+    assertThat(productSales(productId).getQuantitySold()).isEqualTo(2);
+  }
+
+  @Test
+  void rebuildIsNotExposed() {
+    webTestClient.post().uri("/api/v1/dashboard/rebuild")
+        .exchange().expectStatus().isNotFound();
+    webTestClient.post().uri("/actuator/salesaggregates")
+        .exchange().expectStatus().isNotFound();
+  }
+
+  private Map<Integer, Long> buckets() {
+    return webTestClient.get().uri("/api/v1/dashboard/inventory/stock-buckets")
+        .exchange().expectStatus().isOk()
+        .expectBodyList(StockBucket.class).returnResult().getResponseBody().stream()
+        .collect(Collectors.toMap(StockBucket::getMinStock, StockBucket::getProducts));
+  }
+
+  private ProductSales productSales(long productId) {
+    return webTestClient.get().uri("/api/v1/dashboard/products/{id}/sales", productId)
+        .exchange().expectStatus().isOk()
+        .expectBody(ProductSales.class).returnResult().getResponseBody();
+  }
+
+  private long createProduct(String name, int stock) {
+    return webTestClient.post().uri("/api/v1/products")
+        .bodyValue(Map.of("name", name, "price", 1, "stock", stock))
+        .exchange().expectStatus().isCreated()
+        .expectBody(Product.class).returnResult().getResponseBody().getId();
+  }
+
+  private long createOrder(long productId, int quantity) {
+    return webTestClient.post().uri("/api/v1/orders")
+        .bodyValue(Map.of("items", List.of(Map.of("productId", productId, "quantity", quantity))))
+        .exchange().expectStatus().is2xxSuccessful()
+        .expectBody(Order.class).returnResult().getResponseBody().getId();
+  }
+
+  private void confirm(long orderId) {
+    webTestClient.put().uri("/api/v1/orders/{id}/confirm", orderId)
+        .exchange().expectStatus().isOk();
+  }
+}
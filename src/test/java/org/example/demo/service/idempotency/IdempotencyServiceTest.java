@@ -0,0 +1,159 @@
+package org.example.demo.service.idempotency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.example.demo.exception.ConcurrencyConflictException;
+import org.example.demo.exception.IdempotencyKeyReuseException;
+import org.example.demo.model.entity.IdempotencyRecord;
+import org.example.demo.repository.IdempotencyRecordRepository;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Keys left IN_PROGRESS by a request that never finished: a retry of the same request takes the
+ * key over once the claim is older than {@code idempotency.claim-timeout}, a fresh claim still
+ * answers a conflict, a different request gets the key-reuse error, and the request that lost the
+ * key can no longer complete it nor commit its writes. A request whose writes committed completed
+ * its key with them, so a retry replays it instead of running it again.
+ */
+@ActiveProfiles("h2")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+    "order.async-confirm.workers-enabled=false",
+    "idempotency.claim-timeout=1m"})
+class IdempotencyServiceTest {
+
+  private static final String SCOPE = "test";
+  private static final Map<String, Object> REQUEST = Map.of("quantity", 1);
+
+  @Autowired
+  private IdempotencyService idempotencyService;
+
+  @Autowired
+  private IdempotencyRecordRepository records;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private TransactionalOperator transactionalOperator;
+
+  @Test
+  void staleClaimIsTakenOverByARetry() throws Exception {
+    String key = UUID.randomUUID().toString();
+    LocalDateTime abandonedAt = LocalDateTime.now().minusMinutes(2).truncatedTo(ChronoUnit.SECONDS);
+    records.claim(SCOPE + ":" + key, fingerprint(REQUEST), abandonedAt).block();
+
+    AtomicInteger runs = new AtomicInteger();
+    String response = idempotencyService.execute(SCOPE, key, REQUEST, String.class,
+        () -> Mono.fromSupplier(() -> "run-" + runs.incrementAndGet())).block();
+
+    assertThat(response).isEqualTo("run-1");
+    IdempotencyRecord record = records.findById(SCOPE + ":" + key).block();
+    assertThat(record.getStatus()).isEqualTo(IdempotencyRecord.COMPLETED);
+    // La petición abandonada ya no es dueña de la clave
+    assertThat(records.complete(SCOPE + ":" + key, abandonedAt, "\"late\"").block()).isZero();
+    assertThat(records.release(SCOPE + ":" + key, abandonedAt).block()).isZero();
+    assertThat(records.findById(SCOPE + ":" + key).block().getResponse()).isEqualTo("\"run-1\"");
+  }
+
+  @Test
+  void freshClaimIsStillAConflict() throws Exception {
+    String key = UUID.randomUUID().toString();
+    records.claim(SCOPE + ":" + key, fingerprint(REQUEST),
+        LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS)).block();
+
+    AtomicInteger runs = new AtomicInteger();
+    assertThatThrownBy(() -> idempotencyService.execute(SCOPE, key, REQUEST, String.class,
+        () -> Mono.fromSupplier(() -> "run-" + runs.incrementAndGet())).block())
+        .isInstanceOf(ConcurrencyConflictException.class);
+    assertThat(runs).hasValue(0);
+  }
+
+  @Test
+  void staleClaimOfAnotherRequestIsAKeyReuse() throws Exception {
+    String key = UUID.randomUUID().toString();
+    records.claim(SCOPE + ":" + key, fingerprint(Map.of("quantity", 2)),
+        LocalDateTime.now().minusMinutes(2).truncatedTo(ChronoUnit.SECONDS)).block();
+
+    AtomicInteger runs = new AtomicInteger();
+    assertThatThrownBy(() -> idempotencyService.execute(SCOPE, key, REQUEST, String.class,
+        () -> Mono.fromSupplier(() -> "run-" + runs.incrementAndGet())).block())
+        .isInstanceOf(IdempotencyKeyReuseException.class);
+    assertThat(runs).hasValue(0);
+  }
+
+  @Test
+  void keyInProgressForAnotherRequestIsAKeyReuse() throws Exception {
+    String key = UUID.randomUUID().toString();
+    records.claim(SCOPE + ":" + key, fingerprint(Map.of("quantity", 2)),
+        LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS)).block();
+
+    AtomicInteger runs = new AtomicInteger();
+    assertThatThrownBy(() -> idempotencyService.execute(SCOPE, key, REQUEST, String.class,
+        () -> Mono.fromSupplier(() -> "run-" + runs.incrementAndGet())).block())
+        .isInstanceOf(IdempotencyKeyReuseException.class);
+    assertThat(runs).hasValue(0);
+  }
+
+  @Test
+  void committedRequestIsReplayedAfterTheClaimTimeout() throws Exception {
+    String key = UUID.randomUUID().toString();
+    LocalDateTime claimedAt = LocalDateTime.now().minusMinutes(2).truncatedTo(ChronoUnit.SECONDS);
+    IdempotencyService.Claim claim = new IdempotencyService.Claim(SCOPE + ":" + key, claimedAt);
+    records.claim(claim.id(), fingerprint(REQUEST), claimedAt).block();
+    // La instancia confirmó sus escrituras con la clave y cayó antes de responder
+    transactionalOperator.transactional(idempotencyService.completeWithin("run-0"))
+        .contextWrite(IdempotencyService.contextOf(claim)).block();
+
+    AtomicInteger runs = new AtomicInteger();
+    String response = idempotencyService.execute(SCOPE, key, REQUEST, String.class,
+        () -> Mono.fromSupplier(() -> "run-" + runs.incrementAndGet())).block();
+
+    assertThat(response).isEqualTo("run-0");
+    assertThat(runs).hasValue(0);
+  }
+
+  @Test
+  void requestThatLostItsKeyCannotCommit() throws Exception {
+    String key = UUID.randomUUID().toString();
+    LocalDateTime abandonedAt = LocalDateTime.now().minusMinutes(2).truncatedTo(ChronoUnit.SECONDS);
+    IdempotencyService.Claim claim = new IdempotencyService.Claim(SCOPE + ":" + key, abandonedAt);
+    records.claim(claim.id(), fingerprint(REQUEST), abandonedAt).block();
+    assertThat(idempotencyService.execute(SCOPE, key, REQUEST, String.class,
+        () -> Mono.just("retry")).block()).isEqualTo("retry");
+
+    // La petición original termina tarde: su escritura se deshace con la clave que ya no tiene
+    String write = SCOPE + ":" + UUID.randomUUID();
+    assertThatThrownBy(() -> transactionalOperator.transactional(
+            records.claim(write, fingerprint(REQUEST), abandonedAt)
+                .then(idempotencyService.completeWithin("late")))
+        .contextWrite(IdempotencyService.contextOf(claim)).block())
+        .isInstanceOf(ConcurrencyConflictException.class);
+    assertThat(records.findById(write).block()).isNull();
+    assertThat(records.findById(claim.id()).block().getResponse()).isEqualTo("\"retry\"");
+  }
+
+  /** Same digest as the service: SHA-256 of the request serialized by the application mapper. */
+  private String fingerprint(Object request) throws Exception {
+    return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+        .digest(objectMapper.writeValueAsBytes(request)));
+  }
+}
@@ -0,0 +1,184 @@
+package org.example.demo.service.ledger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doReturn;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.example.demo.model.entity.Order;
+import org.example.demo.model.entity.Product;
+import org.example.demo.service.OrderService;
+import org.example.demo.support.LoadRun;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Concurrent confirmations of ledger-owned products over HTTP: the ledger must never sell more
+ * than the stock, every sale must reach PRODUCT.stock through the journal, and confirmations that
+ * are cancelled mid-flight must give their quantities back. The hot product is also confirmed with
+ * the ledger switched off for it, with the same orders and threads, and both throughputs are
+ * logged side by side.
+ */
+@Slf4j
+@ActiveProfiles("h2")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "stock.ledger.enabled=true",
+    "stock.ledger.product-ids=900001,900002",
+    "stock.ledger.flush-interval=50ms",
+    "spring.flyway.locations=classpath:db/migration,classpath:db/ledger-load-test"})
+class StockLedgerLoadTest {
+
+  /** Seeded by db/ledger-load-test/afterMigrate.sql with {@link #HOT_STOCK} units each. */
+  private static final long HOT_PRODUCT_ID = 900001L;
+  private static final long CANCEL_PRODUCT_ID = 900002L;
+  private static final int HOT_STOCK = 200;
+
+  private static final int ORDERS = 2 * HOT_STOCK;
+  private static final int THREADS = 16;
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Autowired
+  private OrderService orderService;
+
+  @SpyBean
+  private StockLedger stockLedger;
+
+  @Autowired
+  private DatabaseClient databaseClient;
+
+  @Test
+  void concurrentConfirmationsSellExactlyTheStockAndFlushIt() throws Exception {
+    long coldProductId = createProduct(100_000);
+    // Todos los pedidos antes de confirmar ninguno: el stock preliminar es el mismo en ambas
+    List<Long> directOrderIds = createOrders(ORDERS, HOT_PRODUCT_ID, coldProductId);
+    List<Long> orderIds = createOrders(ORDERS, HOT_PRODUCT_ID, coldProductId);
+
+    // Sin ledger para el producto caliente: cada confirmación espera el bloqueo de su fila.
+    // El volcado periódico se para antes de tocar el espía, que no admite llamadas concurrentes
+    stockLedger.stop();
+    doReturn(false).when(stockLedger).owns(HOT_PRODUCT_ID);
+    LoadRun direct;
+    try {
+      direct = confirm(directOrderIds);
+    } finally {
+      doCallRealMethod().when(stockLedger).owns(HOT_PRODUCT_ID);
+    }
+    assertThat(direct.count(200)).isEqualTo(HOT_STOCK);
+    assertThat(stock(HOT_PRODUCT_ID)).isZero();
+    // Mismo punto de partida para el ledger: stock repuesto y cargado de nuevo al arrancarlo
+    setStock(HOT_PRODUCT_ID, HOT_STOCK);
+    stockLedger.start();
+
+    LoadRun run = confirm(orderIds);
+    log.info(direct.summary("direct confirm"));
+    log.info(run.summary("ledger confirm"));
+    log.info("hot product {}, {} threads: ledger {} req/s vs direct {} req/s ({}x)",
+        HOT_PRODUCT_ID, THREADS, Math.round(run.throughputPerSecond()),
+        Math.round(direct.throughputPerSecond()),
+        String.format("%.2f", run.throughputPerSecond() / direct.throughputPerSecond()));
+
+    assertThat(run.count(200)).isEqualTo(HOT_STOCK);
+    assertThat(run.count(409)).isEqualTo(ORDERS - HOT_STOCK);
+    awaitJournalFlushed(HOT_PRODUCT_ID);
+    assertThat(stock(HOT_PRODUCT_ID)).isZero();
+    assertThat(stock(coldProductId)).isEqualTo(100_000 - 2 * HOT_STOCK);
+    assertThat(confirmed(orderIds)).isEqualTo(HOT_STOCK);
+  }
+
+  @Test
+  void cancelledConfirmationsGiveTheirStockBack() {
+    List<Long> orderIds = createOrders(HOT_STOCK / 2, CANCEL_PRODUCT_ID);
+
+    // Cada confirmación se cancela tras un tiempo aleatorio, a menudo con la transacción abierta
+    Flux.fromIterable(orderIds)
+        .flatMap(orderId -> orderService.confirmOrder(orderId)
+            .timeout(Duration.ofMillis(ThreadLocalRandom.current().nextInt(1, 20)))
+            .onErrorResume(ex -> Mono.empty()), THREADS)
+        .blockLast(Duration.ofMinutes(1));
+    awaitJournalFlushed(CANCEL_PRODUCT_ID);
+
+    int confirmed = confirmed(orderIds);
+    int stock = stock(CANCEL_PRODUCT_ID);
+    log.info("ledger cancel: {} of {} confirmations committed", confirmed, orderIds.size());
+    assertThat(stock).isEqualTo(HOT_STOCK - confirmed);
+    // Lo disponible en memoria vuelve a coincidir con PRODUCT.stock: nada quedó retenido
+    assertThat(stockLedger.reserve(Map.of(CANCEL_PRODUCT_ID, stock + 1))).isNotEmpty();
+    assertThat(stockLedger.reserve(Map.of(CANCEL_PRODUCT_ID, stock))).isEmpty();
+    stockLedger.release(Map.of(CANCEL_PRODUCT_ID, stock));
+  }
+
+  private LoadRun confirm(List<Long> orderIds) throws Exception {
+    return LoadRun.run(orderIds.size(), THREADS, i -> client().put()
+        .uri("/api/v1/orders/{id}/confirm", orderIds.get(i))
+        .exchange().expectBody(String.class).returnResult().getStatus().value());
+  }
+
+  private WebTestClient client() {
+    return webTestClient.mutate().responseTimeout(Duration.ofSeconds(30)).build();
+  }
+
+  private long createProduct(int stock) {
+    return client().post().uri("/api/v1/products")
+        .bodyValue(Map.of("name", "ledger-cold", "price", 2, "stock", stock))
+        .exchange().expectStatus().isCreated()
+        .expectBody(Product.class).returnResult().getResponseBody().getId();
+  }
+
+  private List<Long> createOrders(int count, long... productIds) {
+    List<Map<String, Object>> items = new ArrayList<>();
+    for (long productId : productIds) {
+      items.add(Map.of("productId", productId, "quantity", 1));
+    }
+    List<Long> orderIds = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      orderIds.add(client().post().uri("/api/v1/orders").bodyValue(Map.of("items", items))
+          .exchange().expectStatus().is2xxSuccessful()
+          .expectBody(Order.class).returnResult().getResponseBody().getId());
+    }
+    return orderIds;
+  }
+
+  private int stock(long productId) {
+    return databaseClient.sql("SELECT stock FROM PRODUCT WHERE id = :id").bind("id", productId)
+        .map(row -> row.get("stock", Integer.class)).one().block();
+  }
+
+  private void setStock(long productId, int stock) {
+    databaseClient.sql("UPDATE PRODUCT SET stock = :stock WHERE id = :id")
+        .bind("stock", stock).bind("id", productId).then().block();
+  }
+
+  private int confirmed(List<Long> orderIds) {
+    return databaseClient.sql("SELECT COUNT(*) AS confirmed FROM ORDERS "
+            + "WHERE state = 'CONFIRMADO' AND id IN (:ids)").bind("ids", orderIds)
+        .map(row -> row.get("confirmed", Long.class)).one().block().intValue();
+  }
+
+  private void awaitJournalFlushed(long productId) {
+    Mono.defer(() -> databaseClient
+            .sql("SELECT COUNT(*) AS entries FROM STOCK_LEDGER_JOURNAL WHERE product_id = :id")
+            .bind("id", productId).map(row -> row.get("entries", Long.class)).one())
+        .filter(entries -> entries == 0)
+        .repeatWhenEmpty(repeat -> repeat.delayElements(Duration.ofMillis(50)))
+        .block(Duration.ofSeconds(30));
+  }
+}
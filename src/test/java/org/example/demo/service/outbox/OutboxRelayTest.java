@@ -0,0 +1,70 @@
+package org.example.demo.service.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.example.demo.model.entity.OutboxEvent;
+import org.example.demo.repository.OutboxEventRepository;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Stream offsets keep growing after the retention purge has deleted every relayed event, so a
+ * consumer resuming from the last offset it saw still gets the events written afterwards.
+ */
+@ActiveProfiles("h2")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "order.async-confirm.workers-enabled=false")
+class OutboxRelayTest {
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Autowired
+  private OutboxEventRepository outboxEventRepository;
+
+  @Test
+  void offsetsSurviveThePurge() {
+    createProduct("before-purge");
+    long lastSeen = awaitRelayed();
+    assertThat(lastSeen).isPositive();
+
+    // La purga por retención se lleva todas las filas ya entregadas, incluida la del último offset
+    outboxEventRepository.deleteRelayedBefore(LocalDateTime.now().plusDays(1)).block();
+    assertThat(outboxEventRepository.findAfterOffset(0, 10).collectList().block()).isEmpty();
+
+    createProduct("after-purge");
+    awaitRelayed();
+    List<OutboxEvent> resumed = outboxEventRepository.findAfterOffset(lastSeen, 10).collectList()
+        .block();
+    assertThat(resumed).hasSize(1);
+    assertThat(resumed.get(0).getStreamOffset()).isEqualTo(lastSeen + 1);
+    assertThat(resumed.get(0).getPayload()).contains("after-purge");
+  }
+
+  private void createProduct(String name) {
+    webTestClient.post().uri("/api/v1/products")
+        .bodyValue(Map.of("name", name, "price", 1, "stock", 1))
+        .exchange().expectStatus().isCreated();
+  }
+
+  /** Waits until the relay has given every event an offset; returns the last one. */
+  private long awaitRelayed() {
+    return Mono.defer(() -> outboxEventRepository.findUnrelayed(1).hasElements())
+        .filter(pending -> !pending)
+        .repeatWhenEmpty(ticks -> ticks.delayElements(Duration.ofMillis(50)))
+        .then(outboxEventRepository.findLastOffset())
+        .block(Duration.ofSeconds(10));
+  }
+}
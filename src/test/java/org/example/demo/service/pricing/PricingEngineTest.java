@@ -0,0 +1,97 @@
+package org.example.demo.service.pricing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.example.demo.model.entity.OrderItem;
+
+import org.junit.jupiter.api.Test;
+
+/** The cents read from unit prices must match BigDecimal arithmetic exactly, at every scale. */
+class PricingEngineTest {
+
+  private final PricingEngine pricingEngine = new PricingEngine(
+      List.of(new AmountThresholdDiscountRule(), new UniqueProductsDiscountRule()));
+
+  @Test
+  void grossTotalMatchesBigDecimalArithmetic() {
+    Random random = new Random(42);
+    for (int order = 0; order < 2_000; order++) {
+      List<OrderItem> items = new ArrayList<>();
+      BigDecimal expected = BigDecimal.ZERO.setScale(2);
+      for (int line = 0; line < 1 + random.nextInt(20); line++) {
+        // Hasta 13 dígitos enteros: el límite de la lectura por double y algo más allá
+        long unscaled = (long) (random.nextDouble() * Math.pow(10, 3 + random.nextInt(14)));
+        BigDecimal price = BigDecimal.valueOf(unscaled, 2);
+        int quantity = 1 + random.nextInt(5);
+        items.add(line(line, price, quantity));
+        expected = expected.add(price.multiply(BigDecimal.valueOf(quantity)));
+      }
+      assertThat(pricingEngine.price(items).totalGross()).isEqualByComparingTo(expected);
+    }
+  }
+
+  @Test
+  void edgePricesAreExact() {
+    for (String price : List.of("0.01", "0.10", "19.99", "99999999.99", "9999999999999.99",
+        "1.15", "2.675", "0.005", "7", "12.3")) {
+      BigDecimal unitPrice = new BigDecimal(price);
+      BigDecimal expected = unitPrice.setScale(2, RoundingMode.HALF_UP);
+      assertThat(pricingEngine.price(List.of(line(1, unitPrice, 1))).totalGross())
+          .as(price).isEqualByComparingTo(expected);
+    }
+    BigDecimal large = new BigDecimal("12345678901234567.89");
+    assertThat(pricingEngine.price(List.of(line(1, large, 1))).totalGross())
+        .isEqualByComparingTo(large);
+  }
+
+  @Test
+  void discountsApplyOnTheGrossTotal() {
+    List<OrderItem> items = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      items.add(line(i, new BigDecimal("200.00"), 1));
+    }
+    PricingResult result = pricingEngine.price(items);
+    assertThat(result.totalGross()).isEqualByComparingTo("1200.00");
+    assertThat(result.discountBasisPoints()).isEqualTo(1_500);
+    assertThat(result.totalFinal()).isEqualByComparingTo("1020.00");
+  }
+
+  @Test
+  void distinctProductsAreCountedAcrossRepeatsAndSizes() {
+    Random random = new Random(7);
+    for (int size : new int[] {0, 1, 5, 6, 63, 64, 65, 200, 1_000}) {
+      List<OrderItem> items = new ArrayList<>();
+      Set<Long> expected = new HashSet<>();
+      for (int i = 0; i < size; i++) {
+        // Ids repetidos, negativos, el 0 y múltiplos de la capacidad para forzar colisiones
+        long productId = switch (random.nextInt(4)) {
+          case 0 -> random.nextInt(8);
+          case 1 -> -random.nextInt(8);
+          case 2 -> random.nextInt(8) * 1_024L;
+          default -> random.nextLong();
+        };
+        items.add(line(productId, new BigDecimal("1.00"), 1));
+        expected.add(productId);
+      }
+      OrderSummary[] summary = new OrderSummary[1];
+      new PricingEngine(List.of(seen -> {
+        summary[0] = seen;
+        return 0;
+      })).price(items);
+      assertThat(summary[0].lines()).isEqualTo(size);
+      assertThat(summary[0].distinctProducts()).as("size %d", size).isEqualTo(expected.size());
+    }
+  }
+
+  private static OrderItem line(long productId, BigDecimal unitPrice, int quantity) {
+    return OrderItem.builder().productId(productId).quantity(quantity).unitPrice(unitPrice).build();
+  }
+}
@@ -0,0 +1,91 @@
+package org.example.demo.service.queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.example.demo.model.entity.Order;
+import org.example.demo.model.entity.OrderConfirmationTask;
+import org.example.demo.model.entity.Product;
+import org.example.demo.repository.OrderConfirmationTaskRepository;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * How the asynchronous confirmation worker closes its tasks: an order that is already confirmed
+ * when its task runs counts as done, and a worker only closes the tasks its claim still holds.
+ */
+@ActiveProfiles("h2")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "order.async-confirm.poll-interval=50ms")
+class OrderConfirmationQueueTest {
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Autowired
+  private OrderConfirmationTaskRepository tasks;
+
+  @Test
+  void alreadyConfirmedOrderIsDone() {
+    long orderId = createOrder();
+    webTestClient.put().uri("/api/v1/orders/{id}/confirm", orderId)
+        .exchange().expectStatus().isOk();
+
+    // Encolada antes de la confirmación síncrona: el worker la encuentra ya CONFIRMADO
+    LocalDateTime now = LocalDateTime.now();
+    OrderConfirmationTask task = tasks.save(OrderConfirmationTask.builder().ordersId(orderId)
+        .status(OrderConfirmationTask.QUEUED).createdAt(now).updatedAt(now).build()).block();
+
+    OrderConfirmationTask finished = Mono.defer(() -> tasks.findById(task.getId()))
+        .filter(latest -> !OrderConfirmationTask.QUEUED.equals(latest.getStatus())
+            && !OrderConfirmationTask.PROCESSING.equals(latest.getStatus()))
+        .repeatWhenEmpty(ticks -> ticks.delayElements(Duration.ofMillis(50)))
+        .block(Duration.ofSeconds(10));
+    assertThat(finished.getStatus()).isEqualTo(OrderConfirmationTask.DONE);
+    assertThat(finished.getError()).isNull();
+  }
+
+  @Test
+  void onlyTheCurrentClaimCompletesATask() {
+    // Requeued como vencida y reclamada de nuevo: el worker anterior ya no es su dueño
+    LocalDateTime now = LocalDateTime.now();
+    OrderConfirmationTask task = tasks.save(OrderConfirmationTask.builder().ordersId(createOrder())
+        .status(OrderConfirmationTask.PROCESSING).claimToken("current").createdAt(now)
+        .updatedAt(now).build()).block();
+
+    OrderConfirmationTask late = OrderConfirmationTask.builder().id(task.getId())
+        .ordersId(task.getOrdersId()).status(OrderConfirmationTask.FAILED).error("late")
+        .claimToken("previous").updatedAt(LocalDateTime.now()).build();
+    assertThat(tasks.completeAll(List.of(late)).block()).isZero();
+    assertThat(tasks.findById(task.getId()).block().getStatus())
+        .isEqualTo(OrderConfirmationTask.PROCESSING);
+
+    task.setStatus(OrderConfirmationTask.DONE);
+    task.setUpdatedAt(LocalDateTime.now());
+    assertThat(tasks.completeAll(List.of(task)).block()).isEqualTo(1);
+    assertThat(tasks.findById(task.getId()).block().getStatus())
+        .isEqualTo(OrderConfirmationTask.DONE);
+  }
+
+  private long createOrder() {
+    long productId = webTestClient.post().uri("/api/v1/products")
+        .bodyValue(Map.of("name", "queue", "price", 2, "stock", 10))
+        .exchange().expectStatus().isCreated()
+        .expectBody(Product.class).returnResult().getResponseBody().getId();
+    return webTestClient.post().uri("/api/v1/orders")
+        .bodyValue(Map.of("items", List.of(Map.of("productId", productId, "quantity", 1))))
+        .exchange().expectStatus().is2xxSuccessful()
+        .expectBody(Order.class).returnResult().getResponseBody().getId();
+  }
+}
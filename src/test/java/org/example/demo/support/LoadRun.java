@@ -0,0 +1,93 @@
+package org.example.demo.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Fires {@code requests} calls from {@code threads} threads as fast as they complete and records
+ * the status code and latency of each one. Calls are blocking (WebTestClient), so the number of
+ * threads is the number of requests in flight.
+ */
+public final class LoadRun {
+
+  private final long[] latenciesNanos;
+  private final Map<Integer, AtomicInteger> statusCounts = new ConcurrentHashMap<>();
+  private long elapsedNanos;
+
+  private LoadRun(int requests) {
+    this.latenciesNanos = new long[requests];
+  }
+
+  /** {@code call} receives the request index and returns the HTTP status it got. */
+  public static LoadRun run(int requests, int threads, IntUnaryOperator call) throws Exception {
+    LoadRun run = new LoadRun(requests);
+    AtomicInteger next = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> workers = new ArrayList<>(threads);
+      long start = System.nanoTime();
+      for (int t = 0; t < threads; t++) {
+        workers.add(executor.submit(() -> {
+          for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+            long callStart = System.nanoTime();
+            int status = call.applyAsInt(i);
+            run.latenciesNanos[i] = System.nanoTime() - callStart;
+            run.statusCounts.computeIfAbsent(status, key -> new AtomicInteger()).incrementAndGet();
+          }
+          return null;
+        }));
+      }
+      for (Future<?> worker : workers) {
+        worker.get(5, TimeUnit.MINUTES);
+      }
+      run.elapsedNanos = System.nanoTime() - start;
+    } finally {
+      executor.shutdownNow();
+    }
+    return run;
+  }
+
+  public int requests() {
+    return latenciesNanos.length;
+  }
+
+  public int count(int status) {
+    AtomicInteger count = statusCounts.get(status);
+    return count == null ? 0 : count.get();
+  }
+
+  /** Share of the requests answered with {@code status}, between 0 and 1. */
+  public double rate(int status) {
+    return (double) count(status) / requests();
+  }
+
+  public double throughputPerSecond() {
+    return requests() / (elapsedNanos / 1e9);
+  }
+
+  public double percentileMillis(double percentile) {
+    long[] sorted = latenciesNanos.clone();
+    Arrays.sort(sorted);
+    int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+    return sorted[Math.max(0, index)] / 1e6;
+  }
+
+  /** One line for the test log: throughput, p50/p99 latency and status mix. */
+  public String summary(String name) {
+    Map<Integer, Integer> statuses = new TreeMap<>();
+    statusCounts.forEach((status, count) -> statuses.put(status, count.get()));
+    return String.format("%s: %d requests, %.0f req/s, p50 %.1f ms, p99 %.1f ms, statuses %s",
+        name, requests(), throughputPerSecond(), percentileMillis(50), percentileMillis(99),
+        statuses);
+  }
+}
@@ -0,0 +1,5 @@
+-- Productos calientes del ledger: tienen que existir antes de que el ledger cargue su stock
+INSERT INTO PRODUCT (id, name, price, stock) VALUES (900001, 'ledger-load-test', 1.00, 200)
+ON DUPLICATE KEY UPDATE stock = VALUES(stock);
+INSERT INTO PRODUCT (id, name, price, stock) VALUES (900002, 'ledger-cancel-test', 1.00, 200)
+ON DUPLICATE KEY UPDATE stock = VALUES(stock);
@@ -0,0 +1,3 @@
+-- Producto del ledger: tiene que existir antes de que el ledger cargue su stock
+INSERT INTO PRODUCT (id, name, price, stock) VALUES (900003, 'stock-buckets-test', 1.00, 200)
+ON DUPLICATE KEY UPDATE stock = VALUES(stock);